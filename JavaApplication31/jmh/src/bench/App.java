@@ -0,0 +1,73 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+/**
+ * Bridge to the application classes. They live in the unnamed package, which Java code in a
+ * named package cannot import, and JMH refuses benchmarks in the unnamed package, so every
+ * call goes through a MethodHandle resolved once per trial.
+ */
+final class App {
+    private App() {
+    }
+
+    static Class<?> type(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Application class missing from benchmark classpath: " + name, e);
+        }
+    }
+
+    static Object create(String className, Object... args) {
+        try {
+            Class<?> cls = type(className);
+            for (Constructor<?> ctor : cls.getDeclaredConstructors()) {
+                if (ctor.getParameterCount() == args.length) {
+                    ctor.setAccessible(true);
+                    return ctor.newInstance(args);
+                }
+            }
+            throw new IllegalStateException("No " + args.length + "-arg constructor on " + className);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Resolve an instance method (private included) as a handle of type
+     * (Object receiver, params...) -> Object, suitable for invokeExact. Primitive and
+     * array parameters and primitive results keep their types.
+     */
+    static MethodHandle method(String className, String name, Class<?>... params) {
+        try {
+            Method m = type(className).getDeclaredMethod(name, params);
+            m.setAccessible(true);
+            MethodHandle handle = MethodHandles.lookup().unreflect(m);
+            Class<?>[] generic = new Class<?>[params.length + 1];
+            generic[0] = Object.class;
+            for (int i = 0; i < params.length; i++) {
+                // Application types cannot be named at the call site, so they erase to Object
+                generic[i + 1] = params[i].isPrimitive() || params[i].isArray() ? params[i] : Object.class;
+            }
+            Class<?> ret = m.getReturnType() == void.class ? void.class
+                : m.getReturnType().isPrimitive() ? m.getReturnType() : Object.class;
+            return handle.asType(MethodType.methodType(ret, generic));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static Object enumConstant(String className, String constant) {
+        for (Object value : type(className).getEnumConstants()) {
+            if (((Enum<?>) value).name().equals(constant)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException(className + "." + constant);
+    }
+}
@@ -0,0 +1,93 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed puzzle inputs shared by all benchmarks so results are comparable between runs.
+ *
+ * The 5-hole boards drive the permutation solvers to their extremes: "best" blanks five
+ * cells whose answer is 1 (the first permutation tried), "worst" blanks five cells whose
+ * answer is 9 (the last of 9^5 permutations).
+ */
+final class Corpus {
+    static final String SOLVED =
+        "534678912672195348198342567859761423426853791713924856961537284287419635345286179";
+
+    private Corpus() {
+    }
+
+    static int[][] solved() {
+        return parse(SOLVED);
+    }
+
+    static int[][] fiveHoles(String inputCase) {
+        switch (inputCase) {
+            case "best":
+                return blankDigit(1);
+            case "worst":
+                return blankDigit(9);
+            default:
+                throw new IllegalArgumentException("Unknown input case: " + inputCase);
+        }
+    }
+
+    /** Solved board with one duplicated digit in the last row. */
+    static int[][] invalid() {
+        int[][] board = solved();
+        board[8][8] = board[8][0];
+        return board;
+    }
+
+    /** Board with the given number of cells blanked in row-major order. */
+    static int[][] withHoles(int holes) {
+        int[][] board = solved();
+        for (int i = 0; i < holes; i++) {
+            board[i / 9][i % 9] = 0;
+        }
+        return board;
+    }
+
+    static List<int[]> emptyCells(int[][] board) {
+        List<int[]> cells = new ArrayList<>();
+        for (int r = 0; r < 9; r++) {
+            for (int c = 0; c < 9; c++) {
+                if (board[r][c] == 0) {
+                    cells.add(new int[]{r, c});
+                }
+            }
+        }
+        return cells;
+    }
+
+    static int[][] copy(int[][] board) {
+        int[][] copy = new int[9][];
+        for (int i = 0; i < 9; i++) {
+            copy[i] = board[i].clone();
+        }
+        return copy;
+    }
+
+    private static int[][] blankDigit(int digit) {
+        int[][] board = solved();
+        int blanked = 0;
+        for (int r = 0; r < 9 && blanked < 5; r++) {
+            for (int c = 0; c < 9; c++) {
+                if (board[r][c] == digit) {
+                    board[r][c] = 0;
+                    blanked++;
+                    break;
+                }
+            }
+        }
+        return board;
+    }
+
+    private static int[][] parse(String line) {
+        int[][] board = new int[9][9];
+        for (int i = 0; i < 81; i++) {
+            board[i / 9][i % 9] = line.charAt(i) - '0';
+        }
+        return board;
+    }
+}
@@ -0,0 +1,63 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Controller.removeNumbers (digging with a uniqueness check per cell) for each difficulty,
+ * and a single UniquenessChecker.tryDig test, the check removeNumbers runs per cell, on
+ * boards with few and many holes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GenerateBenchmark {
+    @Param({"10", "20", "25"})
+    public int holes;
+
+    private int[][] solved;
+    private Object controller;
+    private MethodHandle removeNumbers;
+    private Object checker;
+    private int cell;
+    private MethodHandle tryDig;
+    private MethodHandle undoDig;
+
+    @Setup
+    public void setup() {
+        solved = Corpus.solved();
+        controller = App.create("Controller");
+        removeNumbers = App.method("Controller", "removeNumbers", int[][].class, int.class);
+        // Row-major holes put all the search at the top of the grid; the first given is tested
+        checker = App.create("UniquenessChecker", (Object) Corpus.withHoles(holes));
+        cell = holes;
+        tryDig = App.method("UniquenessChecker", "tryDig", int.class);
+        undoDig = App.method("UniquenessChecker", "undoDig", int.class, int.class);
+    }
+
+    @Benchmark
+    public int[][] removeNumbers() throws Throwable {
+        int[][] board = Corpus.copy(solved);
+        removeNumbers.invokeExact(controller, board, holes);
+        return board;
+    }
+
+    @Benchmark
+    public boolean tryDig() throws Throwable {
+        boolean dug = (boolean) tryDig.invokeExact(checker, cell);
+        if (dug) {
+            // Put the given back so every invocation tests the same board
+            undoDig.invokeExact(checker, cell, solved[cell / 9][cell % 9]);
+        }
+        return dug;
+    }
+}
@@ -0,0 +1,115 @@
+package bench;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * GameStorage save/load round trips and GameLogger.logAction. Both write relative to the
+ * working directory; the Ant "bench" target forks into build/jmh/work so runs never touch
+ * the real sudoku_games folder.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PersistenceBenchmark {
+    private int[][] board;
+    private int[][] solved;
+    private long saves;
+    private Object storage;
+    private Object hard;
+    private Object logger;
+    private Object action;
+    private MethodHandle saveGame;
+    private MethodHandle saveCurrentGame;
+    private MethodHandle loadCurrentGame;
+    private MethodHandle logAction;
+
+    @Setup(Level.Trial)
+    public void setup() throws Throwable {
+        board = Corpus.withHoles(25);
+        solved = Corpus.solved();
+        storage = App.create("GameStorage");
+        hard = App.enumConstant("DifficultyEnum", "HARD");
+        saveGame = App.method("GameStorage", "saveGame", App.type("DifficultyEnum"), int[][].class);
+        saveCurrentGame = App.method("GameStorage", "saveCurrentGame", int[][].class);
+        loadCurrentGame = App.method("GameStorage", "loadCurrentGame");
+        logger = App.create("GameLogger");
+        action = App.create("UserAction", "PLACE", 4, 4, 7);
+        logAction = App.method("GameLogger", "logAction", App.type("UserAction"));
+        saveCurrentGame.invokeExact(storage, board);
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanHardGames() throws IOException {
+        // saveGame creates a new file per call; keep the directory from growing across iterations
+        Path dir = Paths.get("sudoku_games", "hard");
+        if (Files.isDirectory(dir)) {
+            try (var files = Files.list(dir)) {
+                for (Path p : (Iterable<Path>) files::iterator) {
+                    Files.deleteIfExists(p);
+                }
+            }
+        }
+        Files.deleteIfExists(Paths.get("sudoku_game.log"));
+    }
+
+    /**
+     * Saves a different puzzle every call: the shared PuzzleIndex rejects a board it has
+     * already seen, and a rejected save never reaches the disk.
+     */
+    @Benchmark
+    public boolean saveGame() throws Throwable {
+        boolean saved = (boolean) saveGame.invokeExact(storage, hard, distinctBoard());
+        if (!saved) {
+            throw new IllegalStateException("saveGame rejected puzzle " + saves + " as a duplicate");
+        }
+        return saved;
+    }
+
+    /**
+     * The solved grid with 25 cells blanked in an order drawn from a per-call seed; with
+     * C(81,25) hole patterns, repeats (even up to symmetry) do not occur in a run.
+     */
+    private int[][] distinctBoard() {
+        int[][] next = Corpus.copy(solved);
+        SplittableRandom random = new SplittableRandom(System.nanoTime() ^ (++saves * 0x9E3779B97F4A7C15L));
+        for (int blanked = 0; blanked < 25; ) {
+            int cell = random.nextInt(81);
+            if (next[cell / 9][cell % 9] != 0) {
+                next[cell / 9][cell % 9] = 0;
+                blanked++;
+            }
+        }
+        return next;
+    }
+
+    @Benchmark
+    public void saveCurrentGame() throws Throwable {
+        saveCurrentGame.invokeExact(storage, board);
+    }
+
+    @Benchmark
+    public Object loadCurrentGame() throws Throwable {
+        return (Object) loadCurrentGame.invokeExact(storage);
+    }
+
+    @Benchmark
+    public void logAction() throws Throwable {
+        logAction.invokeExact(logger, action);
+    }
+}
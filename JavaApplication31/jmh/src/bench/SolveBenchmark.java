@@ -0,0 +1,80 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * PermutationSolveStrategy.solve and SudokuSolver.solve on the best- and worst-case 5-hole boards.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SolveBenchmark {
+    @Param({"best", "worst"})
+    public String input;
+
+    private int[][] puzzle;
+    private Object permutationStrategy;
+    private Object sudokuSolver;
+    private MethodHandle permutationSolve;
+    private MethodHandle sudokuSolve;
+
+    @Setup
+    public void setup() {
+        puzzle = Corpus.fiveHoles(input);
+        permutationStrategy = App.create("PermutationSolveStrategy");
+        sudokuSolver = App.create("SudokuSolver", App.create("Verifier"));
+        permutationSolve = App.method("PermutationSolveStrategy", "solve", int[][].class);
+        sudokuSolve = App.method("SudokuSolver", "solve", int[][].class);
+    }
+
+    @Benchmark
+    public Object permutationStrategySolve() throws Throwable {
+        // solve() fills the board in place, so each call gets a fresh copy
+        return (Object) permutationSolve.invokeExact(permutationStrategy, Corpus.copy(puzzle));
+    }
+
+    @Benchmark
+    public Object sudokuSolverSolve() throws Throwable {
+        return (Object) sudokuSolve.invokeExact(sudokuSolver, puzzle);
+    }
+
+    @State(Scope.Thread)
+    public static class FlyweightState {
+        @Param({"best", "worst"})
+        public String input;
+
+        Object board;
+        MethodHandle isValid;
+        int[] candidate;
+
+        @Setup
+        public void setup() {
+            int[][] puzzle = Corpus.fiveHoles(input);
+            List<int[]> empty = Corpus.emptyCells(puzzle);
+            board = App.create("FlyweightBoard", puzzle, empty);
+            isValid = App.method("FlyweightBoard", "isValid", int[].class);
+            // Answer digits for the holes: a full-board check that succeeds
+            int[][] solved = Corpus.solved();
+            candidate = new int[empty.size()];
+            for (int i = 0; i < candidate.length; i++) {
+                candidate[i] = solved[empty.get(i)[0]][empty.get(i)[1]];
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean flyweightIsValid(FlyweightState state) throws Throwable {
+        return (boolean) state.isValid.invokeExact(state.board, state.candidate);
+    }
+}
@@ -0,0 +1,58 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Verifier.verifyState and Verifier.verify on a solved (full scan), an incomplete
+ * and an invalid board (early exit on the last row).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class VerifyBenchmark {
+    @Param({"valid", "incomplete", "invalid"})
+    public String input;
+
+    private int[][] board;
+    private Object verifier;
+    private MethodHandle verifyState;
+    private MethodHandle verify;
+
+    @Setup
+    public void setup() {
+        switch (input) {
+            case "valid":
+                board = Corpus.solved();
+                break;
+            case "incomplete":
+                board = Corpus.withHoles(25);
+                break;
+            default:
+                board = Corpus.invalid();
+                break;
+        }
+        verifier = App.create("Verifier");
+        verifyState = App.method("Verifier", "verifyState", int[][].class);
+        verify = App.method("Verifier", "verify", int[][].class);
+    }
+
+    @Benchmark
+    public Object verifyState() throws Throwable {
+        return (Object) verifyState.invokeExact(verifier, board);
+    }
+
+    @Benchmark
+    public Object verify() throws Throwable {
+        return (Object) verify.invokeExact(verifier, board);
+    }
+}
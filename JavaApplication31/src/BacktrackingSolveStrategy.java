@@ -0,0 +1,139 @@
+/**
+ * General-purpose solver for any 9x9 board: depth-first search over bitmask candidates,
+ * always branching on the empty cell with the fewest candidates. Unlike
+ * PermutationSolveStrategy it has no limit on the number of empty cells.
+ * 16x16 and 25x25 boards are handed to BitsetSolver.
+ * Fills the board in place and returns it, like the other strategies.
+ * Polls the cancellation token every CHECK_INTERVAL nodes. Stateless, so one instance can
+ * serve concurrent solves.
+ */
+public class BacktrackingSolveStrategy implements SolveStrategy {
+    private static final int ALL_DIGITS = 0x3FE; // bits 1..9
+    private static final int CHECK_INTERVAL = 1024;
+
+    @Override
+    public int[][] solve(int[][] game) throws Exception {
+        return solve(game, CancellationToken.NONE);
+    }
+
+    @Override
+    public int[][] solve(int[][] game, CancellationToken token) throws Exception {
+        token.throwIfCancelled();
+        if (game.length != 9) {
+            BitsetSolver solver = new BitsetSolver(BoardGeometry.of(game));
+            solver.setCancellation(token);
+            return solver.solve(game);
+        }
+        Search search = new Search(game, token);
+        int[] rows = search.rows;
+        int[] cols = search.cols;
+        int[] boxes = search.boxes;
+        int[] empty = search.empty;
+        int remaining = 0;
+
+        for (int r = 0; r < 9; r++) {
+            for (int c = 0; c < 9; c++) {
+                int v = game[r][c];
+                if (v == 0) {
+                    empty[remaining++] = r * 9 + c;
+                    continue;
+                }
+                if (v < 1 || v > 9) {
+                    throw new Exception("Invalid value " + v + " at " + r + "," + c);
+                }
+                int bit = 1 << v;
+                int b = (r / 3) * 3 + c / 3;
+                if (((rows[r] | cols[c] | boxes[b]) & bit) != 0) {
+                    throw new Exception("Board is invalid at " + r + "," + c);
+                }
+                rows[r] |= bit;
+                cols[c] |= bit;
+                boxes[b] |= bit;
+            }
+        }
+
+        if (!search.run(remaining)) {
+            throw new Exception("No solution exists");
+        }
+        return game;
+    }
+
+    /**
+     * State of one solve call.
+     */
+    private static final class Search {
+        final int[][] game;
+        final int[] rows = new int[9];
+        final int[] cols = new int[9];
+        final int[] boxes = new int[9];
+        final int[] empty = new int[81];
+        final CancellationToken token;
+        int nodes;
+
+        Search(int[][] game, CancellationToken token) {
+            this.game = game;
+            this.token = token;
+        }
+
+        boolean run(int remaining) {
+            if (remaining == 0) {
+                return true;
+            }
+            Metrics.nodeVisited();
+            if (++nodes % CHECK_INTERVAL == 0) {
+                token.throwIfCancelled();
+            }
+
+            // Pick the most constrained cell
+            int best = -1;
+            int bestMask = 0;
+            int bestCount = 10;
+            for (int i = 0; i < remaining; i++) {
+                int cell = empty[i];
+                int r = cell / 9;
+                int c = cell % 9;
+                int mask = ALL_DIGITS & ~(rows[r] | cols[c] | boxes[(r / 3) * 3 + c / 3]);
+                int count = Integer.bitCount(mask);
+                if (count < bestCount) {
+                    best = i;
+                    bestMask = mask;
+                    bestCount = count;
+                    if (count <= 1) {
+                        break;
+                    }
+                }
+            }
+            if (bestCount == 0) {
+                return false;
+            }
+            Metrics.candidatesRejected(9 - bestCount);
+
+            int cell = empty[best];
+            empty[best] = empty[remaining - 1];
+            empty[remaining - 1] = cell;
+            int r = cell / 9;
+            int c = cell % 9;
+            int b = (r / 3) * 3 + c / 3;
+
+            int mask = bestMask;
+            while (mask != 0) {
+                int bit = mask & -mask;
+                mask ^= bit;
+                rows[r] |= bit;
+                cols[c] |= bit;
+                boxes[b] |= bit;
+                game[r][c] = Integer.numberOfTrailingZeros(bit);
+                if (run(remaining - 1)) {
+                    return true;
+                }
+                rows[r] &= ~bit;
+                cols[c] &= ~bit;
+                boxes[b] &= ~bit;
+            }
+            game[r][c] = 0;
+            empty[remaining - 1] = empty[best];
+            empty[best] = cell;
+            return false;
+        }
+    }
+}
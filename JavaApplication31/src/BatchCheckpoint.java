@@ -0,0 +1,261 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Progress record of a resumable batch job, kept in a small file next to its output.
+ *
+ * It holds the job description (so a resume with different arguments is refused), the seed,
+ * the cursor (difficulty position and next puzzle index), the running counts, the length
+ * of every append-only file the job writes and the record count of every archive it stores
+ * into. Both are taken after those files have been flushed and forced to disk, and the
+ * checkpoint is written to a temporary file, forced and renamed over the old one, so the file
+ * on disk is always a complete earlier checkpoint.
+ * On resume restoreFiles() truncates each file the job owns back to its recorded length,
+ * which discards whatever was written after that checkpoint; the job then regenerates it from
+ * the cursor. The sudoku_games archives are shared with other writers and never rolled back:
+ * the job reads the records appended since the recorded count and skips the regenerated
+ * puzzles it finds there. Other shared files (the shared puzzle index of a job that does not
+ * store) cannot be told apart that way, so if one has grown the resume is refused.
+ * A CRC32 trailer rejects a damaged file.
+ */
+public final class BatchCheckpoint {
+    private static final int MAGIC = 0x5344_4243; // "SDBC"
+    private static final int VERSION = 3;
+
+    private final String job;
+    private final long seed;
+    private int level;
+    private long next;
+    private long processed;
+    private long duplicates;
+    private final long[] stored = new long[DifficultyEnum.values().length];
+    private boolean complete;
+    private final Map<String, Long> files = new LinkedHashMap<>();
+    private final Map<String, Boolean> shared = new LinkedHashMap<>();
+    private final Map<String, Long> records = new LinkedHashMap<>();
+
+    public BatchCheckpoint(String job, long seed) {
+        this.job = job;
+        this.seed = seed;
+    }
+
+    public String getJob() { return job; }
+    public long getSeed() { return seed; }
+    /** Position in the job's difficulty list of the next puzzle to generate. */
+    public int getLevel() { return level; }
+    /** Index within that difficulty of the next puzzle to generate. */
+    public long getNext() { return next; }
+    public long getProcessed() { return processed; }
+    public long getDuplicates() { return duplicates; }
+    public long getStored(DifficultyEnum difficulty) { return stored[difficulty.ordinal()]; }
+    public boolean isComplete() { return complete; }
+
+    /**
+     * Move the cursor to (level, next) after a batch of difficulty and add the batch's counts;
+     * nothing is written until save.
+     */
+    public void advance(int level, long next, DifficultyEnum difficulty, long processed, long duplicates, long stored) {
+        this.level = level;
+        this.next = next;
+        this.processed += processed;
+        this.duplicates += duplicates;
+        this.stored[difficulty.ordinal()] += stored;
+    }
+
+    public void markComplete() {
+        complete = true;
+    }
+
+    /**
+     * Record the current length of each file the job owns and each file it shares with other
+     * writers. The caller flushes and forces them first.
+     */
+    public void recordFiles(Iterable<Path> owned, Iterable<Path> sharedWith) throws IOException {
+        files.clear();
+        shared.clear();
+        record(owned, false);
+        record(sharedWith, true);
+    }
+
+    /**
+     * Record the current size of each archive; the caller syncs them first.
+     */
+    public void recordArchives(Iterable<PuzzleArchive> archives) throws IOException {
+        records.clear();
+        for (PuzzleArchive archive : archives) {
+            records.put(key(archive), archive.size());
+        }
+    }
+
+    /**
+     * Recorded size of archive, or -1 if it is not part of the checkpoint.
+     */
+    public long archiveRecords(PuzzleArchive archive) {
+        return records.getOrDefault(key(archive), -1L);
+    }
+
+    private static String key(PuzzleArchive archive) {
+        return archive.files().get(1).toAbsolutePath().normalize().toString();
+    }
+
+    private void record(Iterable<Path> paths, boolean isShared) throws IOException {
+        for (Path path : paths) {
+            String key = path.toAbsolutePath().normalize().toString();
+            files.put(key, Files.size(path));
+            shared.put(key, isShared);
+        }
+    }
+
+    /**
+     * Truncate every owned file back to its checkpointed length. Nothing is truncated unless
+     * every shared file still has exactly its checkpointed length.
+     */
+    public void restoreFiles() throws IOException {
+        for (Map.Entry<String, Long> entry : files.entrySet()) {
+            Path path = Paths.get(entry.getKey());
+            long length = entry.getValue();
+            if (!Files.exists(path) || Files.size(path) < length) {
+                throw new IOException("Cannot resume: " + path + " is shorter than its checkpointed length " + length);
+            }
+            if (shared.get(entry.getKey()) && Files.size(path) > length) {
+                throw new IOException("Cannot resume: shared file " + path + " has grown from " + length + " to "
+                    + Files.size(path) + " bytes since the checkpoint and cannot be rolled back without losing"
+                    + " other writers' data; resumable jobs should --store or write --out with a private --dedup FILE");
+            }
+        }
+        for (Map.Entry<String, Long> entry : files.entrySet()) {
+            if (shared.get(entry.getKey())) {
+                continue;
+            }
+            Path path = Paths.get(entry.getKey());
+            long length = entry.getValue();
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                if (channel.size() > length) {
+                    channel.truncate(length);
+                    channel.force(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Recorded length of path, or -1 if it is not part of the checkpoint.
+     */
+    public long fileLength(Path path) {
+        return files.getOrDefault(path.toAbsolutePath().normalize().toString(), -1L);
+    }
+
+    /**
+     * Replace file atomically with this checkpoint.
+     */
+    public void save(Path file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeUTF(job);
+        out.writeLong(seed);
+        out.writeInt(level);
+        out.writeLong(next);
+        out.writeLong(processed);
+        out.writeLong(duplicates);
+        out.writeByte(stored.length);
+        for (long count : stored) {
+            out.writeLong(count);
+        }
+        out.writeBoolean(complete);
+        out.writeInt(files.size());
+        for (Map.Entry<String, Long> entry : files.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue());
+            out.writeBoolean(shared.get(entry.getKey()));
+        }
+        out.writeInt(records.size());
+        for (Map.Entry<String, Long> entry : records.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeLong(crc.getValue());
+        out.flush();
+
+        Path tmp = Paths.get(file + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static BatchCheckpoint load(Path file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        if (bytes.length < Long.BYTES) {
+            throw new IOException("Not a batch checkpoint: " + file);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - Long.BYTES);
+        if (ByteBuffer.wrap(bytes, bytes.length - Long.BYTES, Long.BYTES).getLong() != crc.getValue()) {
+            throw new IOException("Corrupt batch checkpoint: " + file);
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+            Arrays.copyOf(bytes, bytes.length - Long.BYTES)));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a batch checkpoint: " + file);
+        }
+        BatchCheckpoint checkpoint = new BatchCheckpoint(in.readUTF(), in.readLong());
+        checkpoint.level = in.readInt();
+        checkpoint.next = in.readLong();
+        checkpoint.processed = in.readLong();
+        checkpoint.duplicates = in.readLong();
+        int levels = in.readUnsignedByte();
+        for (int i = 0; i < levels; i++) {
+            long count = in.readLong();
+            if (i < checkpoint.stored.length) {
+                checkpoint.stored[i] = count;
+            }
+        }
+        checkpoint.complete = in.readBoolean();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String path = in.readUTF();
+            checkpoint.files.put(path, in.readLong());
+            checkpoint.shared.put(path, in.readBoolean());
+        }
+        int archives = in.readInt();
+        for (int i = 0; i < archives; i++) {
+            checkpoint.records.put(in.readUTF(), in.readLong());
+        }
+        return checkpoint;
+    }
+
+    @Override
+    public String toString() {
+        Map<DifficultyEnum, Long> byLevel = new LinkedHashMap<>();
+        for (DifficultyEnum difficulty : DifficultyEnum.values()) {
+            if (stored[difficulty.ordinal()] > 0) {
+                byLevel.put(difficulty, stored[difficulty.ordinal()]);
+            }
+        }
+        return (complete ? "complete" : "level " + level + ", next " + next) + ", " + processed
+            + " processed, " + duplicates + " duplicates, stored " + byLevel;
+    }
+}
@@ -0,0 +1,738 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless batch entry point for bulk generate / solve / verify runs.
+ *
+ *   batch generate --source FILE --count N [--difficulty E|M|H|all] [--out FILE] [--store] [--seed S] [--dedup [FILE]]
+ *                  [--minimal] [--corpus FILE] [--job FILE [--checkpoint-every SECONDS]]
+ *   batch solve    (--in FILE | --store E|M|H) [--out FILE] [--strategy backtracking|permutation]
+ *   batch verify   (--in FILE | --store E|M|H | --corpus FILE [--unique]) [--out FILE]
+ *   batch import   --in FILE [--difficulty E|M|H|auto] [--dedup [FILE]]
+ *
+ * Every subcommand takes --threads T (default: available processors). Puzzle files hold
+ * one 81-character board per line; output keeps input order. Throughput is printed at the end.
+ * Each generated puzzle's dig order derives from (seed, difficulty, index) only, so a run with
+ * the same --seed reproduces the same puzzles regardless of thread count.
+ * Puzzles already in the dedup index (the shared one with --store or a bare --dedup, otherwise
+ * the given FILE) are dropped and counted as duplicates.
+ * generate --minimal digs each puzzle until no given can be removed without losing uniqueness
+ * (Controller.removeToMinimal), giving irreducible puzzles of about 21-28 clues; they are
+ * filed under --difficulty (default H) and a clue-count summary is printed.
+ * generate --corpus FILE also appends the puzzles to an off-heap PuzzleCorpus file, and
+ * verify --corpus FILE checks one in place without building int[][] boards (--unique also
+ * counts solutions); --out is ignored there.
+ * generate --job FILE checkpoints its progress to FILE (see BatchCheckpoint) every
+ * --checkpoint-every seconds (default 10) and at the end. Run the same command again after a
+ * crash and it truncates its own outputs (--out, a --dedup FILE) to the last checkpoint and
+ * carries on from its cursor, with the checkpoint's seed if --seed is not given; a completed
+ * job does nothing. Shared files (--store archives, the shared dedup index) are never
+ * truncated: if one has grown since the checkpoint, the resume is refused.
+ * import memory-maps a puzzle collection, keeps the puzzles with exactly one solution and
+ * stores them with that solution (see PuzzleImporter); rejected lines count as failures.
+ */
+public class BatchTool {
+    private static final int BATCH_SIZE = 4096;
+    /** Hole count that stands for "dig until minimal" (see Controller.removeToMinimal). */
+    static final int MINIMAL = -1;
+
+    private final Map<String, String> options;
+    private final int threads;
+    private final ExecutorService executor;
+    private long processed;
+    private long failures;
+    private long duplicates;
+
+    BatchTool(Map<String, String> options) {
+        this.options = options;
+        this.threads = Integer.parseInt(options.getOrDefault("threads",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+        if (threads < 1) {
+            throw new IllegalArgumentException("--threads must be at least 1, got " + threads);
+        }
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            usage();
+            return;
+        }
+        Map<String, String> options = parseOptions(args);
+        BatchTool tool = new BatchTool(options);
+        long start = System.nanoTime();
+        try {
+            switch (args[0]) {
+                case "generate":
+                    tool.generate();
+                    break;
+                case "solve":
+                    tool.solve();
+                    break;
+                case "verify":
+                    tool.verify();
+                    break;
+                case "import":
+                    tool.importPuzzles();
+                    break;
+                default:
+                    usage();
+                    return;
+            }
+        } finally {
+            tool.executor.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s: %d puzzles, %d failures, %d duplicates, %.2fs, %.0f puzzles/s on %d threads%n",
+            args[0], tool.processed, tool.failures, tool.duplicates, seconds, tool.processed / seconds, tool.threads);
+    }
+
+    private static void usage() {
+        System.err.println("usage: batch generate --source FILE --count N [--difficulty E|M|H|all] [--out FILE] [--store] [--seed S] [--dedup [FILE]]");
+        System.err.println("                      [--minimal] [--corpus FILE] [--job FILE [--checkpoint-every SECONDS]] [--threads T]");
+        System.err.println("       batch solve (--in FILE | --store E|M|H) [--out FILE] [--strategy backtracking|permutation] [--threads T]");
+        System.err.println("       batch verify (--in FILE | --store E|M|H | --corpus FILE [--unique]) [--out FILE] [--threads T]");
+        System.err.println("       batch import --in FILE [--difficulty E|M|H|auto] [--dedup [FILE]] [--threads T]");
+    }
+
+    static Map<String, String> parseOptions(String[] args) {
+        return parseOptions(args, 1);
+    }
+
+    /**
+     * Parse "--key value" and bare "--flag" arguments starting at index from.
+     */
+    static Map<String, String> parseOptions(String[] args, int from) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = from; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            String key = args[i].substring(2);
+            if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                options.put(key, args[++i]);
+            } else {
+                options.put(key, "true");
+            }
+        }
+        return options;
+    }
+
+    private String required(String key) {
+        String value = options.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing --" + key);
+        }
+        return value;
+    }
+
+    // ---- generate ----
+
+    private void generate() throws Exception {
+        int[][] source = readSourceBoard(Paths.get(required("source")));
+        GameState state = new Verifier().verifyState(source);
+        if (state != GameState.VALID) {
+            throw new IllegalArgumentException("Source solution must be VALID. Found: " + state);
+        }
+        int count = Integer.parseInt(required("count"));
+        boolean store = options.containsKey("store");
+        boolean minimal = options.containsKey("minimal");
+        List<DifficultyEnum> levels = difficulties(options.getOrDefault("difficulty", minimal ? "H" : "all"));
+        Path jobFile = options.containsKey("job") ? Paths.get(options.get("job")) : null;
+        if (jobFile != null && options.containsKey("corpus")) {
+            throw new IllegalArgumentException("--corpus cannot be combined with --job");
+        }
+        BatchCheckpoint checkpoint = jobFile != null && Files.exists(jobFile) ? BatchCheckpoint.load(jobFile) : null;
+        long seed = options.containsKey("seed") ? Long.parseLong(options.get("seed"))
+            : checkpoint != null ? checkpoint.getSeed() : new CellSampler().getSeed();
+        String job = describeGenerateJob(source, count, store);
+        boolean resumed = checkpoint != null;
+        if (resumed) {
+            if (!checkpoint.getJob().equals(job) || checkpoint.getSeed() != seed) {
+                throw new IllegalArgumentException("Checkpoint " + jobFile + " is for a different job: "
+                    + checkpoint.getJob() + " seed " + checkpoint.getSeed());
+            }
+            if (checkpoint.isComplete()) {
+                System.out.println("generate: job already complete, " + checkpoint);
+                return;
+            }
+            // Drop whatever was written after the checkpoint before anything reopens those files
+            checkpoint.restoreFiles();
+            System.out.println("generate: resuming at " + checkpoint);
+        } else if (jobFile != null) {
+            checkpoint = new BatchCheckpoint(job, seed);
+        }
+        // Dedup happens here, on fingerprints computed by the workers, so storage skips its own check
+        GameStorage storage = store ? new GameStorage(null) : null;
+        PuzzleIndex dedup = openIndex(store, count);
+        ThreadLocal<Controller> generators = ThreadLocal.withInitial(Controller::new);
+        System.out.println("generate: seed " + seed);
+
+        try (PuzzleFileWriter out = openWriter(checkpoint);
+             PuzzleCorpus corpus = openCorpus((long) count * levels.size())) {
+            Checkpointer checkpointer = null;
+            if (checkpoint != null) {
+                List<PuzzleArchive> archives = new ArrayList<>();
+                for (DifficultyEnum difficulty : levels) {
+                    if (storage != null) {
+                        archives.add(storage.archiveFor(difficulty));
+                    }
+                }
+                boolean sharedDedup = !options.containsKey("dedup") || options.get("dedup").equals("true");
+                checkpointer = new Checkpointer(jobFile, checkpoint, out, archives, dedup, sharedDedup,
+                    Long.parseLong(options.getOrDefault("checkpoint-every", "10")));
+                if (!resumed) {
+                    // Lengths before the first puzzle, so a crash before the next save is undone too
+                    checkpointer.save();
+                }
+            }
+            long[] fingerprints = new long[Math.min(BATCH_SIZE, count)];
+            int[] clues = new int[BoardCodec.CELLS + 1];
+            int firstLevel = resumed ? checkpoint.getLevel() : 0;
+            for (int level = firstLevel; level < levels.size(); level++) {
+                DifficultyEnum difficulty = levels.get(level);
+                int holes = minimal ? MINIMAL : holesFor(difficulty);
+                long difficultySeed = difficultySeed(seed, difficulty);
+                int from = resumed && level == firstLevel ? (int) checkpoint.getNext() : 0;
+                // Puzzles this job stored after its last checkpoint; they are regenerated but not stored again
+                Map<BoardKey, Integer> alreadyStored = resumed && storage != null
+                    ? storedSince(storage.archiveFor(difficulty), checkpoint, source) : new HashMap<>();
+                for (int done = from; done < count; done += BATCH_SIZE) {
+                    int n = Math.min(BATCH_SIZE, count - done);
+                    int first = done;
+                    List<int[][]> boards = new ArrayList<>(n);
+                    for (int i = 0; i < n; i++) {
+                        boards.add(copy(source));
+                    }
+                    runParallel(boards, (index, board) -> {
+                        long puzzleSeed = puzzleSeed(difficultySeed, first + index);
+                        if (holes == MINIMAL) {
+                            generators.get().removeToMinimal(board, puzzleSeed);
+                        } else {
+                            generators.get().removeNumbers(board, holes, puzzleSeed);
+                        }
+                        if (dedup != null) {
+                            fingerprints[index] = dedup.fingerprint(board);
+                        }
+                        return board;
+                    });
+                    long batchDuplicates = 0;
+                    for (int i = 0; i < n; i++) {
+                        int[][] board = boards.get(i);
+                        boolean stored = takeStored(alreadyStored, board);
+                        if (!stored && dedup != null && dedup.contains(fingerprints[i])) {
+                            batchDuplicates++;
+                            continue;
+                        }
+                        if (minimal) {
+                            clues[BoardCodec.CELLS - countHoles(board)]++;
+                        }
+                        if (out != null) {
+                            out.write(board);
+                        }
+                        if (storage != null && !stored) {
+                            storage.saveGame(difficulty, board, source);
+                        }
+                        if (corpus != null) {
+                            corpus.append(board);
+                        }
+                        if (dedup != null) {
+                            dedup.add(fingerprints[i]);
+                        }
+                    }
+                    // Puzzles written, as the coordinator counts them; duplicates are reported on their own
+                    processed += n - batchDuplicates;
+                    duplicates += batchDuplicates;
+                    if (checkpointer != null) {
+                        checkpoint.advance(level, first + n, difficulty, n, batchDuplicates, n - batchDuplicates);
+                        checkpointer.saveIfDue();
+                    }
+                }
+            }
+            if (minimal) {
+                printClues(clues);
+            }
+            if (checkpointer != null) {
+                checkpoint.markComplete();
+                checkpointer.save();
+                System.out.println("generate: job complete, " + checkpoint);
+            }
+        } finally {
+            if (dedup != null && options.containsKey("dedup") && !options.get("dedup").equals("true")) {
+                dedup.close();
+            } else if (dedup != null) {
+                dedup.flush();
+            }
+        }
+    }
+
+    /**
+     * Puzzles dug from source among the archive's records appended since the checkpoint, with
+     * their number of copies. They include everything this job stored after that checkpoint.
+     */
+    private static Map<BoardKey, Integer> storedSince(PuzzleArchive archive, BatchCheckpoint checkpoint,
+            int[][] source) throws IOException {
+        long from = checkpoint.archiveRecords(archive);
+        long size = archive.size();
+        if (from < 0 || size < from) {
+            throw new IOException("Cannot resume: archive " + archive.files().get(1) + " has " + size
+                + " records, the checkpoint recorded " + from);
+        }
+        Map<BoardKey, Integer> stored = new HashMap<>();
+        for (long i = from; i < size; i++) {
+            if (Arrays.deepEquals(archive.getSolution(i), source)) {
+                stored.merge(packedKey(archive.getPuzzle(i)), 1, Integer::sum);
+            }
+        }
+        return stored;
+    }
+
+    /**
+     * Whether board is one of the already stored puzzles, using up one copy of it if so.
+     */
+    private static boolean takeStored(Map<BoardKey, Integer> alreadyStored, int[][] board) {
+        if (alreadyStored.isEmpty()) {
+            return false;
+        }
+        BoardKey key = packedKey(board);
+        Integer copies = alreadyStored.get(key);
+        if (copies == null) {
+            return false;
+        }
+        if (copies > 1) {
+            alreadyStored.put(key, copies - 1);
+        } else {
+            alreadyStored.remove(key);
+        }
+        return true;
+    }
+
+    private static BoardKey packedKey(int[][] board) {
+        byte[] packed = new byte[BoardCodec.PACKED_BYTES];
+        BoardCodec.pack(board, packed, 0);
+        return BoardKey.of(packed);
+    }
+
+    /**
+     * Everything that decides which puzzles a generate run writes where, except the seed.
+     */
+    private String describeGenerateJob(int[][] source, int count, boolean store) {
+        String out = options.get("out");
+        return "generate source=" + BoardCodec.toLine(source) + " count=" + count
+            + " difficulty=" + options.getOrDefault("difficulty", "all").toUpperCase()
+            + " out=" + (out == null ? "-" : Paths.get(out).toAbsolutePath().normalize())
+            + " store=" + store + " dedup=" + options.getOrDefault("dedup", "-")
+            + " canonical=" + System.getProperty("sudoku.dedup.canonical", "true")
+            + (options.containsKey("minimal") ? " minimal" : "");
+    }
+
+    private static int countHoles(int[][] board) {
+        int holes = 0;
+        for (int[] row : board) {
+            for (int v : row) {
+                if (v == 0) {
+                    holes++;
+                }
+            }
+        }
+        return holes;
+    }
+
+    /**
+     * Clue-count range, mean and histogram of the puzzles written by this run.
+     */
+    private static void printClues(int[] clues) {
+        long total = 0;
+        long sum = 0;
+        StringBuilder histogram = new StringBuilder();
+        for (int i = 0; i < clues.length; i++) {
+            if (clues[i] > 0) {
+                total += clues[i];
+                sum += (long) i * clues[i];
+                histogram.append(histogram.length() == 0 ? "" : " ").append(i).append(':').append(clues[i]);
+            }
+        }
+        if (total > 0) {
+            System.out.printf("generate: minimal puzzles, %.1f clues on average (%s)%n", (double) sum / total, histogram);
+        }
+    }
+
+    /**
+     * Saves a generate job's checkpoint: forces every output to disk, records the file
+     * lengths and archive sizes, then replaces the checkpoint file. saveIfDue does so at most once per interval.
+     */
+    private static final class Checkpointer {
+        private final Path file;
+        private final BatchCheckpoint checkpoint;
+        private final PuzzleFileWriter out;
+        private final List<PuzzleArchive> archives;
+        private final PuzzleIndex dedup;
+        private final List<Path> owned = new ArrayList<>();
+        private final List<Path> shared = new ArrayList<>();
+        private final long intervalNanos;
+        private long lastSave = System.nanoTime();
+
+        Checkpointer(Path file, BatchCheckpoint checkpoint, PuzzleFileWriter out, List<PuzzleArchive> archives,
+                PuzzleIndex dedup, boolean sharedDedup, long intervalSeconds) {
+            this.file = file;
+            this.checkpoint = checkpoint;
+            this.out = out;
+            this.archives = archives;
+            this.dedup = dedup;
+            this.intervalNanos = intervalSeconds * 1_000_000_000L;
+            if (out != null) {
+                owned.add(out.getPath());
+            }
+            // The difficulty archives are also appended to by every game and import, so they are
+            // recorded by record count; a storing job finds its own entries in the shared index
+            // through the archives, so only a job that does not store needs it unchanged
+            if (dedup != null && !sharedDedup) {
+                owned.add(dedup.getFile());
+            } else if (dedup != null && archives.isEmpty()) {
+                shared.add(dedup.getFile());
+            }
+        }
+
+        void saveIfDue() throws IOException {
+            if (System.nanoTime() - lastSave >= intervalNanos) {
+                save();
+            }
+        }
+
+        void save() throws IOException {
+            if (out != null) {
+                out.sync();
+            }
+            for (PuzzleArchive archive : archives) {
+                archive.sync();
+            }
+            if (dedup != null) {
+                dedup.sync();
+            }
+            checkpoint.recordFiles(owned, shared);
+            checkpoint.recordArchives(archives);
+            checkpoint.save(file);
+            lastSave = System.nanoTime();
+        }
+    }
+
+    // ---- import ----
+
+    private void importPuzzles() throws Exception {
+        Path in = Paths.get(required("in"));
+        String level = options.getOrDefault("difficulty", "auto");
+        DifficultyEnum difficulty = level.equalsIgnoreCase("auto") ? null : difficultyOf(level);
+        long expected = Files.size(in) / (BoardCodec.CELLS + 1);
+        PuzzleIndex dedup = openIndex(true, (int) Math.min(Integer.MAX_VALUE, expected));
+        PuzzleImporter importer = new PuzzleImporter(new GameStorage(null), dedup, difficulty);
+        try {
+            importer.importFile(in, executor, 2 * threads);
+        } finally {
+            if (dedup != null && options.containsKey("dedup") && !options.get("dedup").equals("true")) {
+                dedup.close();
+            }
+            processed = importer.getLines();
+            failures = importer.getRejected();
+            duplicates = importer.getDuplicates();
+        }
+        System.out.println("import: stored " + importer.getImportedByDifficulty() + ", rejected " + importer.getRejections()
+            + (importer.getFirstError() == null ? "" : ", first: " + importer.getFirstError()));
+    }
+
+    private PuzzleIndex openIndex(boolean store, int count) throws IOException {
+        String dedup = options.get("dedup");
+        if (dedup == null) {
+            return store && PuzzleIndex.enabled() ? PuzzleIndex.shared() : null;
+        }
+        if (dedup.equals("true")) {
+            return PuzzleIndex.shared();
+        }
+        return new PuzzleIndex(Paths.get(dedup), 3L * count,
+            Boolean.parseBoolean(System.getProperty("sudoku.dedup.canonical", "true")));
+    }
+
+    static long difficultySeed(long seed, DifficultyEnum difficulty) {
+        return BoardKey.mix(seed ^ ((long) difficulty.ordinal() << 48));
+    }
+
+    static long puzzleSeed(long difficultySeed, long index) {
+        return BoardKey.mix(difficultySeed + index * 0x9E3779B97F4A7C15L);
+    }
+
+    static List<DifficultyEnum> difficulties(String value) {
+        List<DifficultyEnum> list = new ArrayList<>();
+        if (value.equalsIgnoreCase("all")) {
+            list.add(DifficultyEnum.EASY);
+            list.add(DifficultyEnum.MEDIUM);
+            list.add(DifficultyEnum.HARD);
+        } else {
+            list.add(difficultyOf(value));
+        }
+        return list;
+    }
+
+    static DifficultyEnum difficultyOf(String value) {
+        switch (Character.toUpperCase(value.charAt(0))) {
+            case 'E':
+                return DifficultyEnum.EASY;
+            case 'M':
+                return DifficultyEnum.MEDIUM;
+            case 'H':
+                return DifficultyEnum.HARD;
+            default:
+                throw new IllegalArgumentException("Invalid difficulty level. Use E, M, or H.");
+        }
+    }
+
+    static int holesFor(DifficultyEnum difficulty) {
+        switch (difficulty) {
+            case EASY:
+                return 10;
+            case MEDIUM:
+                return 20;
+            case HARD:
+                return 25;
+            default:
+                throw new IllegalArgumentException("Unknown difficulty: " + difficulty);
+        }
+    }
+
+    /**
+     * Accepts both the 9-line source.txt layout and a single 81-character line.
+     */
+    static int[][] readSourceBoard(Path path) throws IOException {
+        String content = Files.readString(path);
+        StringBuilder cells = new StringBuilder(BoardCodec.CELLS);
+        for (int i = 0; i < content.length() && cells.length() < BoardCodec.CELLS; i++) {
+            char ch = content.charAt(i);
+            if ((ch >= '0' && ch <= '9') || ch == '.') {
+                cells.append(ch);
+            }
+        }
+        if (cells.length() != BoardCodec.CELLS) {
+            throw new IOException("Invalid source board file: " + path);
+        }
+        return BoardCodec.fromLine(cells);
+    }
+
+    // ---- solve / verify ----
+
+    private void solve() throws Exception {
+        String strategyName = options.getOrDefault("strategy", "backtracking");
+        ThreadLocal<SolveStrategy> strategies = ThreadLocal.withInitial(() ->
+            new MeteredSolveStrategy(strategyName.equals("permutation")
+                ? new PermutationSolveStrategy() : new BacktrackingSolveStrategy()));
+
+        try (PuzzleFileWriter out = openWriter()) {
+            forEachInputBatch(batch -> {
+                List<Object> results = runParallel(batch, (index, board) -> {
+                    try {
+                        return strategies.get().solve(copy(board));
+                    } catch (Exception e) {
+                        return "unsolvable: " + e.getMessage();
+                    }
+                });
+                for (Object result : results) {
+                    if (result instanceof int[][]) {
+                        if (out != null) {
+                            out.write((int[][]) result);
+                        }
+                    } else {
+                        failures++;
+                        if (out != null) {
+                            out.writeComment(result.toString());
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    private void verify() throws Exception {
+        Map<GameState, Long> totals = new EnumMap<>(GameState.class);
+        if (options.containsKey("corpus")) {
+            verifyCorpus(totals);
+            System.out.println("verify: " + totals);
+            return;
+        }
+        ThreadLocal<Verifier> verifiers = ThreadLocal.withInitial(Verifier::new);
+
+        try (PuzzleFileWriter out = openWriter()) {
+            forEachInputBatch(batch -> {
+                List<Object> results = runParallel(batch, (index, board) -> verifiers.get().verifyState(board));
+                for (int i = 0; i < results.size(); i++) {
+                    GameState state = (GameState) results.get(i);
+                    totals.merge(state, 1L, Long::sum);
+                    if (state == GameState.INVALID) {
+                        failures++;
+                    }
+                    if (out != null) {
+                        out.writeComment(state.name());
+                    }
+                }
+            });
+        }
+        System.out.println("verify: " + totals);
+    }
+
+    /**
+     * Verify every committed record of the --corpus file in place, one contiguous slice per
+     * thread, through a single reused View each. With --unique, puzzles without exactly one
+     * solution also count as failures.
+     */
+    private void verifyCorpus(Map<GameState, Long> totals) throws Exception {
+        Path path = Paths.get(required("corpus"));
+        if (!Files.exists(path)) {
+            throw new IOException("No corpus file: " + path);
+        }
+        boolean unique = options.containsKey("unique");
+        int states = GameState.values().length;
+        try (PuzzleCorpus corpus = PuzzleCorpus.openReadOnly(path)) {
+            long n = corpus.committed();
+            long slice = (n + threads - 1) / threads;
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (long from = 0; from < n; from += slice) {
+                long lo = from;
+                long hi = Math.min(n, from + slice);
+                futures.add(executor.submit(() -> {
+                    // One slot per GameState, then the number of puzzles that are not unique
+                    long[] counts = new long[states + 1];
+                    Verifier verifier = new Verifier();
+                    BitsetSolver solver = unique ? new BitsetSolver(BoardGeometry.STANDARD) : null;
+                    PuzzleCorpus.View view = corpus.view(lo);
+                    for (long i = lo; i < hi; i++) {
+                        GameState state = verifier.verifyState(view.moveTo(i));
+                        counts[state.ordinal()]++;
+                        if (solver != null && state != GameState.INVALID && solver.countSolutions(view, 2) != 1) {
+                            counts[states]++;
+                        }
+                    }
+                    return counts;
+                }));
+            }
+            long notUnique = 0;
+            for (Future<long[]> future : futures) {
+                long[] counts = future.get();
+                for (GameState state : GameState.values()) {
+                    if (counts[state.ordinal()] > 0) {
+                        totals.merge(state, counts[state.ordinal()], Long::sum);
+                    }
+                }
+                notUnique += counts[states];
+            }
+            processed = n;
+            failures = totals.getOrDefault(GameState.INVALID, 0L) + notUnique;
+            if (unique) {
+                System.out.println("verify: " + notUnique + " puzzles without exactly one solution");
+            }
+        }
+    }
+
+    /**
+     * The --corpus file, with room for at least needed more puzzles; null without --corpus.
+     */
+    private PuzzleCorpus openCorpus(long needed) throws IOException {
+        String value = options.get("corpus");
+        if (value == null) {
+            return null;
+        }
+        Path path = Paths.get(value);
+        PuzzleCorpus corpus = new PuzzleCorpus(path, needed);
+        if (corpus.getCapacity() - corpus.size() < needed) {
+            long capacity = corpus.size() + needed;
+            corpus.close();
+            corpus = new PuzzleCorpus(path, capacity);
+        }
+        return corpus;
+    }
+
+    private interface BatchHandler {
+        void accept(List<int[][]> batch) throws Exception;
+    }
+
+    private void forEachInputBatch(BatchHandler handler) throws Exception {
+        String store = options.get("store");
+        if (store != null) {
+            List<int[][]> all = new GameStorage().loadAllGames(difficultyOf(store));
+            for (int from = 0; from < all.size(); from += BATCH_SIZE) {
+                List<int[][]> batch = all.subList(from, Math.min(all.size(), from + BATCH_SIZE));
+                handler.accept(batch);
+                processed += batch.size();
+            }
+            return;
+        }
+        try (PuzzleFileReader in = new PuzzleFileReader(Paths.get(required("in")))) {
+            List<int[][]> batch = new ArrayList<>(BATCH_SIZE);
+            while (in.readBatch(batch, BATCH_SIZE) > 0) {
+                handler.accept(batch);
+                processed += batch.size();
+                batch.clear();
+            }
+        }
+    }
+
+    private interface BoardTask {
+        Object apply(int index, int[][] board) throws Exception;
+    }
+
+    /**
+     * Apply the task to every board, split into one contiguous slice per thread.
+     * Results come back in input order.
+     */
+    private List<Object> runParallel(List<int[][]> boards, BoardTask task) throws Exception {
+        int n = boards.size();
+        Object[] results = new Object[n];
+        int slice = (n + threads - 1) / threads;
+        List<Future<?>> futures = new ArrayList<>();
+        for (int from = 0; from < n; from += slice) {
+            int lo = from;
+            int hi = Math.min(n, from + slice);
+            futures.add(executor.submit((Callable<Void>) () -> {
+                for (int i = lo; i < hi; i++) {
+                    results[i] = task.apply(i, boards.get(i));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        return java.util.Arrays.asList(results);
+    }
+
+    private PuzzleFileWriter openWriter() throws IOException {
+        return openWriter(null);
+    }
+
+    /**
+     * The --out writer; when resuming, it appends after the output's checkpointed length.
+     */
+    private PuzzleFileWriter openWriter(BatchCheckpoint checkpoint) throws IOException {
+        String out = options.get("out");
+        if (out == null) {
+            return null;
+        }
+        Path path = Paths.get(out);
+        return new PuzzleFileWriter(path, checkpoint == null ? 0 : Math.max(0, checkpoint.fileLength(path)));
+    }
+
+    private static int[][] copy(int[][] board) {
+        int[][] copy = new int[9][9];
+        for (int i = 0; i < 9; i++) {
+            System.arraycopy(board[i], 0, copy[i], 0, 9);
+        }
+        return copy;
+    }
+}
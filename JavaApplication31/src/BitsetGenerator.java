@@ -0,0 +1,127 @@
+/**
+ * Puzzle generator for any BoardGeometry.
+ *
+ * A full grid comes from the standard pattern ((box * (r % box) + r / box + c) % side) + 1,
+ * shuffled by validity-preserving moves: digit relabeling, rows within each band, bands,
+ * columns within each stack, stacks, and an optional transpose. That costs O(cells) at every
+ * size, where filling a 25x25 grid by search can stall.
+ * Holes are dug in CellSampler order. A cell stays given if the grid has another solution
+ * without it (BitsetSolver.hasSolutionWithout), or if that check exceeds CHECK_NODES search
+ * nodes, so every puzzle has a unique solution.
+ * Sparse 25x25 grids can make one proof run for minutes; with the cap, generation keeps a
+ * few extra givens instead. The same seed gives the same puzzles. Not thread-safe.
+ */
+public class BitsetGenerator {
+    static final long CHECK_NODES = 20_000;
+
+    private final BoardGeometry geometry;
+    private final BitsetSolver solver;
+    private final CellSampler sampler;
+
+    public BitsetGenerator(BoardGeometry geometry, long seed) {
+        this.geometry = geometry;
+        this.solver = new BitsetSolver(geometry);
+        solver.setNodeLimit(CHECK_NODES);
+        this.sampler = new CellSampler(seed, geometry.getCells());
+    }
+
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * A random complete, valid grid.
+     */
+    public int[][] solvedGrid() {
+        int box = geometry.getBox();
+        int side = geometry.getSide();
+        int[] digits = shuffled(side);
+        int[] rowOrder = bandOrder();
+        int[] colOrder = bandOrder();
+        boolean transpose = sampler.nextInt(2) == 1;
+        int[][] grid = new int[side][side];
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                int pr = rowOrder[r];
+                int pc = colOrder[c];
+                int v = digits[(box * (pr % box) + pr / box + pc) % side] + 1;
+                if (transpose) {
+                    grid[c][r] = v;
+                } else {
+                    grid[r][c] = v;
+                }
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Dig holes into a fresh solved grid, keeping the solution unique.
+     * Throws IllegalStateException if fewer than holes cells could be removed.
+     */
+    public int[][] generate(int holes) {
+        return dig(solvedGrid(), holes);
+    }
+
+    /**
+     * Dig holes into solved in place and return it.
+     */
+    public int[][] dig(int[][] solved, int holes) {
+        int side = geometry.getSide();
+        if (holes < 0 || holes > geometry.getCells()) {
+            throw new IllegalArgumentException("holes must be between 0 and " + geometry.getCells());
+        }
+        sampler.reset();
+        int removed = 0;
+        while (removed < holes && sampler.remaining() > 0) {
+            int cell = sampler.nextCell();
+            int r = cell / side;
+            int c = cell % side;
+            int v = solved[r][c];
+            if (v == 0) {
+                continue;
+            }
+            solved[r][c] = 0;
+            if (solver.hasSolutionWithout(solved, r, c, v) || solver.isAborted()) {
+                solved[r][c] = v;
+            } else {
+                removed++;
+            }
+        }
+        if (removed < holes) {
+            throw new IllegalStateException("Only " + removed + " cells could be removed, " + holes + " requested");
+        }
+        return solved;
+    }
+
+    /**
+     * Random order of 0..side-1 that keeps each band of box rows together: bands are shuffled,
+     * and rows within each band.
+     */
+    private int[] bandOrder() {
+        int box = geometry.getBox();
+        int[] bands = shuffled(box);
+        int[] order = new int[geometry.getSide()];
+        for (int b = 0; b < box; b++) {
+            int[] within = shuffled(box);
+            for (int i = 0; i < box; i++) {
+                order[b * box + i] = bands[b] * box + within[i];
+            }
+        }
+        return order;
+    }
+
+    private int[] shuffled(int n) {
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = sampler.nextInt(i + 1);
+            int t = values[i];
+            values[i] = values[j];
+            values[j] = t;
+        }
+        return values;
+    }
+}
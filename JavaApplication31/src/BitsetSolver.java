@@ -0,0 +1,376 @@
+import java.util.Arrays;
+
+/**
+ * Solver for any BoardGeometry (9x9 up to 25x25) over long candidate bitsets, bit d-1 for digit d.
+ *
+ * Depth-first search that fills the empty cell with the fewest candidates. When no cell
+ * is forced, it first looks for a hidden single: a digit that only one cell of a row,
+ * column or box can still take. It finds those for a whole unit at once with "seen
+ * once / twice / three times" masks.
+ * A digit that no cell of a unit can take ends the branch. If every cell has more than two
+ * candidates but some unit has a digit with only two places, it branches on those two cells.
+ * These rules keep 16x16 and 25x25 searches small where plain backtracking would not finish.
+ * Not thread-safe; each instance reuses its arrays between calls.
+ */
+public class BitsetSolver {
+    private static final long NONE = -1;
+    private static final long DEAD_END = -2;
+
+    private final BoardGeometry geometry;
+    private final int side;
+    private final long all;
+    private final int[] values;
+    private final long[] rows;
+    private final long[] cols;
+    private final long[] boxes;
+    private final int[] order;
+    private final int[] position;
+    private int emptyCount;
+    private int[] first;
+    private int found;
+    private int limit;
+    private int forbiddenCell = -1;
+    private long forbiddenBit;
+    private long nodes;
+    private long nodeLimit = Long.MAX_VALUE;
+    private CancellationToken cancellation = CancellationToken.NONE;
+    private boolean aborted;
+    // Set by scanUnits: a unit and digit with exactly two possible cells, or -1
+    private int pairUnit;
+    private long pairBit;
+
+    public BitsetSolver(BoardGeometry geometry) {
+        this.geometry = geometry;
+        this.side = geometry.getSide();
+        this.all = geometry.allDigits();
+        this.values = new int[geometry.getCells()];
+        this.rows = new long[side];
+        this.cols = new long[side];
+        this.boxes = new long[side];
+        this.order = new int[geometry.getCells()];
+        this.position = new int[geometry.getCells()];
+    }
+
+    public BoardGeometry getGeometry() {
+        return geometry;
+    }
+
+    /** Search nodes visited by the last call. */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Give up a search after this many nodes (default: never). A call that gives up reports
+     * what it found so far and sets isAborted.
+     */
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * Stop searches once token is cancelled, polled every 1024 nodes. A stopped call behaves
+     * like one that hit the node limit, except that solve throws CancellationException.
+     */
+    public void setCancellation(CancellationToken token) {
+        this.cancellation = token;
+    }
+
+    /** Whether the last call stopped at the node limit or on cancellation before finishing. */
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * Fill board in place with its first solution and return it.
+     */
+    public int[][] solve(int[][] board) throws Exception {
+        if (!load(board)) {
+            throw new Exception("Board is invalid");
+        }
+        run(1);
+        if (found == 0) {
+            if (aborted) {
+                cancellation.throwIfCancelled();
+            }
+            throw new Exception(aborted ? "Gave up after " + nodes + " nodes" : "No solution exists");
+        }
+        for (int i = 0; i < first.length; i++) {
+            board[geometry.rowOf(i)][geometry.colOf(i)] = first[i];
+        }
+        return board;
+    }
+
+    /**
+     * Number of solutions, counting no further than limit; 0 for an invalid board.
+     */
+    public int countSolutions(int[][] board, int limit) {
+        if (!load(board)) {
+            return 0;
+        }
+        run(limit);
+        return found;
+    }
+
+    /**
+     * countSolutions for a 9x9 view (for example a PuzzleCorpus record), read in place.
+     */
+    public int countSolutions(BoardView board, int limit) {
+        if (!load(board)) {
+            return 0;
+        }
+        run(limit);
+        return found;
+    }
+
+    /**
+     * Like countSolutions, and if there is at least one solution, also write the first into
+     * solution (same shape as board). A count of 1 means board is a proper puzzle.
+     */
+    public int countSolutions(int[][] board, int limit, int[][] solution) {
+        int count = countSolutions(board, limit);
+        if (count > 0) {
+            for (int i = 0; i < first.length; i++) {
+                solution[geometry.rowOf(i)][geometry.colOf(i)] = first[i];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Whether board has a solution in which (row, col) is not value. Removing the given
+     * value from a uniquely solvable puzzle keeps it unique exactly when this is false.
+     */
+    public boolean hasSolutionWithout(int[][] board, int row, int col, int value) {
+        if (!load(board)) {
+            return false;
+        }
+        forbiddenCell = row * side + col;
+        forbiddenBit = 1L << (value - 1);
+        try {
+            run(1);
+        } finally {
+            forbiddenCell = -1;
+        }
+        return found > 0;
+    }
+
+    private boolean load(int[][] board) {
+        if (!geometry.fits(board)) {
+            throw new IllegalArgumentException("Board is not " + geometry);
+        }
+        clear();
+        for (int i = 0; i < values.length; i++) {
+            if (!loadCell(i, board[geometry.rowOf(i)][geometry.colOf(i)])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean load(BoardView board) {
+        if (side != 9) {
+            throw new IllegalArgumentException("Board is not " + geometry);
+        }
+        clear();
+        for (int i = 0; i < values.length; i++) {
+            if (!loadCell(i, board.get(i / 9, i % 9))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void clear() {
+        Arrays.fill(rows, 0);
+        Arrays.fill(cols, 0);
+        Arrays.fill(boxes, 0);
+        emptyCount = 0;
+    }
+
+    /**
+     * Add cell i with value v to the state; false if v is out of range or conflicts.
+     */
+    private boolean loadCell(int i, int v) {
+        values[i] = v;
+        if (v == 0) {
+            position[i] = emptyCount;
+            order[emptyCount++] = i;
+            return true;
+        }
+        if (v < 0 || v > side) {
+            return false;
+        }
+        long bit = 1L << (v - 1);
+        if (((rows[geometry.rowOf(i)] | cols[geometry.colOf(i)] | boxes[geometry.boxOf(i)]) & bit) != 0) {
+            return false;
+        }
+        place(i, bit);
+        return true;
+    }
+
+    private void run(int limit) {
+        this.limit = limit;
+        this.found = 0;
+        this.nodes = 0;
+        this.aborted = false;
+        this.first = null;
+        search(emptyCount);
+    }
+
+    private long candidates(int cell) {
+        long mask = all & ~(rows[geometry.rowOf(cell)] | cols[geometry.colOf(cell)] | boxes[geometry.boxOf(cell)]);
+        return cell == forbiddenCell ? mask & ~forbiddenBit : mask;
+    }
+
+    /**
+     * Returns true once limit solutions have been found, or the node limit is hit.
+     */
+    private boolean search(int n) {
+        if (n == 0) {
+            if (found++ == 0) {
+                first = values.clone();
+            }
+            return found >= limit;
+        }
+        if (++nodes > nodeLimit || ((nodes & 1023) == 0 && cancellation.isCancelled())) {
+            aborted = true;
+            return true;
+        }
+        Metrics.nodeVisited();
+
+        int best = -1;
+        long bestMask = 0;
+        int bestCount = side + 1;
+        for (int i = 0; i < n; i++) {
+            long mask = candidates(order[i]);
+            int count = Long.bitCount(mask);
+            if (count < bestCount) {
+                best = i;
+                bestMask = mask;
+                bestCount = count;
+                if (count <= 1) {
+                    break;
+                }
+            }
+        }
+        if (bestCount == 0) {
+            return false;
+        }
+        if (bestCount > 1) {
+            long single = scanUnits();
+            if (single == DEAD_END) {
+                return false;
+            }
+            if (single != NONE) {
+                best = position[(int) (single >>> 8)];
+                bestMask = 1L << (single & 0xFF);
+            } else if (bestCount > 2 && pairUnit >= 0) {
+                return branchOnPair(n);
+            }
+        }
+
+        int cell = order[best];
+        swap(best, n - 1);
+        long mask = bestMask;
+        while (mask != 0) {
+            long bit = mask & -mask;
+            mask ^= bit;
+            place(cell, bit);
+            boolean done = search(n - 1);
+            unplace(cell, bit);
+            if (done) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Two-way branch: the digit pairBit goes in one of the two cells of pairUnit that can take it.
+     */
+    private boolean branchOnPair(int n) {
+        long bit = pairBit;
+        for (int cell : geometry.unit(pairUnit)) {
+            if (values[cell] != 0 || (candidates(cell) & bit) == 0) {
+                continue;
+            }
+            swap(position[cell], n - 1);
+            place(cell, bit);
+            boolean done = search(n - 1);
+            unplace(cell, bit);
+            if (done) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A (cell << 8 | digit bit index) that some unit can only place in that cell, DEAD_END if
+     * some unit has a digit no empty cell can take, otherwise NONE. Also records in pairUnit
+     * the first unit with a digit that fits exactly two cells.
+     */
+    private long scanUnits() {
+        pairUnit = -1;
+        for (int u = 0; u < geometry.getUnitCount(); u++) {
+            int[] unit = geometry.unit(u);
+            long once = 0;
+            long twice = 0;
+            long thrice = 0;
+            long placed = 0;
+            for (int cell : unit) {
+                int v = values[cell];
+                if (v != 0) {
+                    placed |= 1L << (v - 1);
+                    continue;
+                }
+                long mask = candidates(cell);
+                thrice |= twice & mask;
+                twice |= once & mask;
+                once |= mask;
+            }
+            if ((once | placed) != all) {
+                return DEAD_END;
+            }
+            long single = once & ~twice;
+            if (single != 0) {
+                long bit = single & -single;
+                for (int cell : unit) {
+                    if (values[cell] == 0 && (candidates(cell) & bit) != 0) {
+                        return ((long) cell << 8) | Long.numberOfTrailingZeros(bit);
+                    }
+                }
+            }
+            long pair = twice & ~thrice;
+            if (pairUnit < 0 && pair != 0) {
+                pairUnit = u;
+                pairBit = pair & -pair;
+            }
+        }
+        return NONE;
+    }
+
+    private void swap(int i, int j) {
+        int a = order[i];
+        int b = order[j];
+        order[i] = b;
+        order[j] = a;
+        position[b] = i;
+        position[a] = j;
+    }
+
+    private void place(int cell, long bit) {
+        values[cell] = Long.numberOfTrailingZeros(bit) + 1;
+        rows[geometry.rowOf(cell)] |= bit;
+        cols[geometry.colOf(cell)] |= bit;
+        boxes[geometry.boxOf(cell)] |= bit;
+    }
+
+    private void unplace(int cell, long bit) {
+        values[cell] = 0;
+        rows[geometry.rowOf(cell)] &= ~bit;
+        cols[geometry.colOf(cell)] &= ~bit;
+        boxes[geometry.boxOf(cell)] &= ~bit;
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * Blocked Bloom filter over 64-bit fingerprints: every key sets 6 bits inside one 512-bit
+ * block, so a lookup touches a single cache line. At 8 bits per expected entry the false
+ * positive rate is about 2.5%. Not thread-safe.
+ */
+public class BloomFilter {
+    private static final int BLOCK_WORDS = 8;
+    private static final int HASHES = 6;
+
+    private final long[] words;
+    private final int blocks;
+
+    public BloomFilter(long expectedEntries, int bitsPerEntry) {
+        long bits = Math.max(512L, expectedEntries * bitsPerEntry);
+        long blockCount = (bits + 511) / 512;
+        if (blockCount * BLOCK_WORDS > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Bloom filter too large for " + expectedEntries + " entries");
+        }
+        this.blocks = (int) blockCount;
+        this.words = new long[blocks * BLOCK_WORDS];
+    }
+
+    public void add(long fingerprint) {
+        long h = BoardKey.mix(fingerprint);
+        int base = block(h);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (int) (h >>> (i * 9)) & 511;
+            words[base + (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * False means definitely absent; true means probably present.
+     */
+    public boolean mightContain(long fingerprint) {
+        long h = BoardKey.mix(fingerprint);
+        int base = block(h);
+        for (int i = 0; i < HASHES; i++) {
+            int bit = (int) (h >>> (i * 9)) & 511;
+            if ((words[base + (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Bits 0-53 pick the positions; the top 32 bits pick the block
+    private int block(long h) {
+        return (int) (((h >>> 32) * blocks) >>> 32) * BLOCK_WORDS;
+    }
+
+    public long sizeInBytes() {
+        return (long) words.length * Long.BYTES;
+    }
+}
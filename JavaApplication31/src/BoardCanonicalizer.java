@@ -0,0 +1,160 @@
+/**
+ * Maps a board to a canonical representative so that equivalent puzzles share one form.
+ *
+ * Covered symmetries: transposition, band and stack permutations (72 geometric transforms)
+ * combined with digit relabeling by first appearance. Row and column swaps inside a band or
+ * stack are not enumerated (that multiplies the work by 46656), so some equivalent puzzles
+ * still get different forms; boards with the same form are always equivalent.
+ */
+public final class BoardCanonicalizer {
+    private static final int CELLS = 81;
+    private static final int[][] TRANSFORMS = buildTransforms();
+
+    private BoardCanonicalizer() {
+    }
+
+    /**
+     * Canonical form of a board plus the mapping needed to translate results back.
+     */
+    public static final class Canonical {
+        /** Canonical cell values, row-major. */
+        public final byte[] cells;
+        /** sourceIndex[i] = index in the original board of canonical cell i. */
+        final int[] sourceIndex;
+        /** relabel[d] = canonical digit for original digit d (relabel[0] == 0). */
+        final int[] relabel;
+
+        Canonical(byte[] cells, int[] sourceIndex, int[] relabel) {
+            this.cells = cells;
+            this.sourceIndex = sourceIndex;
+            this.relabel = relabel;
+        }
+
+        /**
+         * Express a board given in original coordinates/digits in canonical coordinates/digits.
+         */
+        public byte[] toCanonical(int[][] board) {
+            byte[] out = new byte[CELLS];
+            for (int i = 0; i < CELLS; i++) {
+                int src = sourceIndex[i];
+                out[i] = (byte) relabel[board[src / 9][src % 9]];
+            }
+            return out;
+        }
+
+        /**
+         * Write a board given in canonical coordinates/digits back into original form.
+         */
+        public void fromCanonical(byte[] canonical, int[][] target) {
+            int[] inverse = new int[10];
+            for (int d = 0; d <= 9; d++) {
+                inverse[relabel[d]] = d;
+            }
+            for (int i = 0; i < CELLS; i++) {
+                int src = sourceIndex[i];
+                target[src / 9][src % 9] = inverse[canonical[i]];
+            }
+        }
+    }
+
+    /**
+     * Identity mapping: the board as-is, for callers that want exact-match keys only.
+     */
+    public static Canonical identity(int[][] board) {
+        int[] relabel = new int[10];
+        for (int d = 0; d <= 9; d++) {
+            relabel[d] = d;
+        }
+        byte[] cells = new byte[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            cells[i] = (byte) board[i / 9][i % 9];
+        }
+        return new Canonical(cells, TRANSFORMS[0], relabel);
+    }
+
+    public static Canonical canonicalize(int[][] board) {
+        byte[] flat = new byte[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            flat[i] = (byte) board[i / 9][i % 9];
+        }
+
+        byte[] best = null;
+        int bestTransform = 0;
+        byte[] candidate = new byte[CELLS];
+        int[] relabel = new int[10];
+
+        for (int t = 0; t < TRANSFORMS.length; t++) {
+            int[] src = TRANSFORMS[t];
+            java.util.Arrays.fill(relabel, 0);
+            int next = 1;
+            int cmp = best == null ? -1 : 0;
+            int i = 0;
+            for (; i < CELLS; i++) {
+                int v = flat[src[i]];
+                if (v != 0 && relabel[v] == 0) {
+                    relabel[v] = next++;
+                }
+                byte mapped = (byte) relabel[v];
+                candidate[i] = mapped;
+                if (cmp == 0) {
+                    cmp = Byte.compare(mapped, best[i]);
+                    if (cmp > 0) {
+                        break;
+                    }
+                }
+            }
+            if (cmp < 0) {
+                if (best == null) {
+                    best = new byte[CELLS];
+                }
+                System.arraycopy(candidate, 0, best, 0, CELLS);
+                bestTransform = t;
+            }
+        }
+
+        return new Canonical(best, TRANSFORMS[bestTransform], relabelFor(flat, TRANSFORMS[bestTransform]));
+    }
+
+    /**
+     * Full digit permutation for a transform: digits in order of first appearance, then any
+     * digits missing from the board in ascending order, so the mapping is always a bijection.
+     */
+    private static int[] relabelFor(byte[] flat, int[] src) {
+        int[] relabel = new int[10];
+        int next = 1;
+        for (int i = 0; i < CELLS; i++) {
+            int v = flat[src[i]];
+            if (v != 0 && relabel[v] == 0) {
+                relabel[v] = next++;
+            }
+        }
+        for (int d = 1; d <= 9; d++) {
+            if (relabel[d] == 0) {
+                relabel[d] = next++;
+            }
+        }
+        return relabel;
+    }
+
+    private static int[][] buildTransforms() {
+        int[][] perms = {{0, 1, 2}, {0, 2, 1}, {1, 0, 2}, {1, 2, 0}, {2, 0, 1}, {2, 1, 0}};
+        int[][] transforms = new int[2 * perms.length * perms.length][];
+        int n = 0;
+        for (int transpose = 0; transpose < 2; transpose++) {
+            for (int[] bands : perms) {
+                for (int[] stacks : perms) {
+                    int[] src = new int[CELLS];
+                    for (int r = 0; r < 9; r++) {
+                        for (int c = 0; c < 9; c++) {
+                            int sr = bands[r / 3] * 3 + r % 3;
+                            int sc = stacks[c / 3] * 3 + c % 3;
+                            src[r * 9 + c] = transpose == 0 ? sr * 9 + sc : sc * 9 + sr;
+                        }
+                    }
+                    transforms[n++] = src;
+                }
+            }
+        }
+        return transforms;
+    }
+}
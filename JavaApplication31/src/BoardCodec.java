@@ -0,0 +1,81 @@
+/**
+ * Converts 9x9 boards to and from the single-line text form
+ * (81 characters, '0' or '.' for an empty cell) used by headless tools.
+ */
+public final class BoardCodec {
+    public static final int CELLS = 81;
+    /** Size of the packed binary form: two cells per byte, 4 bits each. */
+    public static final int PACKED_BYTES = (CELLS + 1) / 2;
+
+    private BoardCodec() {
+    }
+
+    public static String toLine(int[][] board) {
+        char[] out = new char[CELLS];
+        for (int r = 0; r < 9; r++) {
+            for (int c = 0; c < 9; c++) {
+                out[r * 9 + c] = (char) ('0' + board[r][c]);
+            }
+        }
+        return new String(out);
+    }
+
+    public static String toLine(BoardView board) {
+        char[] out = new char[CELLS];
+        for (int i = 0; i < CELLS; i++) {
+            out[i] = (char) ('0' + board.get(i / 9, i % 9));
+        }
+        return new String(out);
+    }
+
+    public static String toLine(boolean[][] mask) {
+        char[] out = new char[CELLS];
+        for (int r = 0; r < 9; r++) {
+            for (int c = 0; c < 9; c++) {
+                out[r * 9 + c] = mask[r][c] ? '1' : '0';
+            }
+        }
+        return new String(out);
+    }
+
+    public static void pack(int[][] board, byte[] out, int offset) {
+        for (int i = 0; i < CELLS; i += 2) {
+            int high = board[i / 9][i % 9];
+            int low = i + 1 < CELLS ? board[(i + 1) / 9][(i + 1) % 9] : 0;
+            out[offset + i / 2] = (byte) ((high << 4) | low);
+        }
+    }
+
+    public static int[][] unpack(byte[] in, int offset) {
+        int[][] board = new int[9][9];
+        for (int i = 0; i < CELLS; i++) {
+            int b = in[offset + i / 2];
+            int v = (i & 1) == 0 ? (b >> 4) & 0xF : b & 0xF;
+            if (v > 9) {
+                throw new IllegalArgumentException("Invalid packed cell " + v + " at index " + i);
+            }
+            board[i / 9][i % 9] = v;
+        }
+        return board;
+    }
+
+    public static int[][] fromLine(CharSequence line) {
+        if (line.length() < CELLS) {
+            throw new IllegalArgumentException("Board line must have 81 cells, found: " + line.length());
+        }
+        int[][] board = new int[9][9];
+        for (int i = 0; i < CELLS; i++) {
+            char ch = line.charAt(i);
+            int v;
+            if (ch == '.') {
+                v = 0;
+            } else if (ch >= '0' && ch <= '9') {
+                v = ch - '0';
+            } else {
+                throw new IllegalArgumentException("Invalid cell '" + ch + "' at index " + i);
+            }
+            board[i / 9][i % 9] = v;
+        }
+        return board;
+    }
+}
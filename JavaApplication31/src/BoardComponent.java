@@ -0,0 +1,327 @@
+import javax.swing.JComponent;
+import javax.swing.Timer;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+
+/**
+ * The whole 9x9 board as one custom-painted component.
+ *
+ * Digits are pre-rendered once per cell size and style, so painting a cell is a fill plus one
+ * image blit. Model updates may come from any thread: they only mark the cell dirty, and a
+ * single frame timer turns all cells dirtied since the last frame into repaints of just
+ * their rectangles, so a burst of updates (replay, auto-solve, undo) costs one paint pass.
+ */
+public final class BoardComponent extends JComponent {
+    private static final long serialVersionUID = 1L;
+    private static final int FRAME_MS = 16;
+    private static final int DEFAULT_CELL = 50;
+
+    private static final Color BG_COLOR = new Color(240, 240, 240);
+    private static final Color SELECTED_COLOR = new Color(200, 230, 255);
+    private static final Color CORRECT_BG = new Color(200, 255, 200);
+    private static final Color WRONG_BG = new Color(255, 200, 200);
+    private static final Color GIVEN_FG = Color.BLACK;
+    private static final Color CORRECT_FG = new Color(0, 100, 0);
+    private static final Color WRONG_FG = Color.RED;
+    private static final Color THIN_LINE = Color.LIGHT_GRAY;
+    private static final Color THICK_LINE = Color.BLACK;
+
+    // Glyph styles
+    private static final int GIVEN = 0;
+    private static final int CORRECT = 1;
+    private static final int WRONG = 2;
+    private static final Color[] GLYPH_COLORS = {GIVEN_FG, CORRECT_FG, WRONG_FG};
+
+    /**
+     * Receives user input; called on the event dispatch thread.
+     */
+    public interface CellListener {
+        void cellSelected(int row, int col);
+
+        void valueEntered(int row, int col, int value);
+    }
+
+    // Model, guarded by this
+    private final int[] values = new int[81];
+    private final int[] solution = new int[81];
+    private final boolean[] given = new boolean[81];
+    private int selected = -1;
+    private long dirtyLow;
+    private long dirtyHigh;
+
+    // Paint-side state, EDT only
+    private final int[] paintValues = new int[81];
+    private final boolean[] paintGiven = new boolean[81];
+    private final int[] paintSolution = new int[81];
+    private transient BufferedImage[][] glyphs;
+    private int glyphSize;
+
+    private final Timer frameTimer;
+    private transient CellListener listener;
+
+    public BoardComponent() {
+        setPreferredSize(new Dimension(9 * DEFAULT_CELL + 2, 9 * DEFAULT_CELL + 2));
+        setFocusable(true);
+        setOpaque(true);
+        frameTimer = new Timer(FRAME_MS, e -> flushDirty());
+        frameTimer.setRepeats(false);
+
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                int cell = cellAt(e.getX(), e.getY());
+                if (cell >= 0 && listener != null) {
+                    requestFocusInWindow();
+                    listener.cellSelected(cell / 9, cell % 9);
+                }
+            }
+        });
+        addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                handleKey(e);
+            }
+        });
+    }
+
+    public void setCellListener(CellListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Replace the whole board. solution may be null, in which case every entry shows as correct.
+     */
+    public void setBoard(int[][] board, boolean[][] original, int[][] solved) {
+        synchronized (this) {
+            for (int i = 0; i < 81; i++) {
+                values[i] = board[i / 9][i % 9];
+                given[i] = original[i / 9][i % 9];
+                solution[i] = solved == null ? 0 : solved[i / 9][i % 9];
+            }
+            dirtyLow = -1L;
+            dirtyHigh = -1L;
+        }
+        scheduleFrame();
+    }
+
+    /**
+     * Update one cell's digit (0 clears it). Safe to call from any thread.
+     */
+    public void setValue(int row, int col, int value) {
+        int cell = row * 9 + col;
+        synchronized (this) {
+            if (values[cell] == value) {
+                return;
+            }
+            values[cell] = value;
+            markDirty(cell);
+        }
+        scheduleFrame();
+    }
+
+    /**
+     * Move the selection highlight; -1, -1 clears it.
+     */
+    public void setSelected(int row, int col) {
+        int cell = row < 0 ? -1 : row * 9 + col;
+        synchronized (this) {
+            if (selected == cell) {
+                return;
+            }
+            if (selected >= 0) {
+                markDirty(selected);
+            }
+            selected = cell;
+            if (cell >= 0) {
+                markDirty(cell);
+            }
+        }
+        scheduleFrame();
+    }
+
+    private void markDirty(int cell) {
+        if (cell < 64) {
+            dirtyLow |= 1L << cell;
+        } else {
+            dirtyHigh |= 1L << (cell - 64);
+        }
+    }
+
+    private void scheduleFrame() {
+        if (!frameTimer.isRunning()) {
+            frameTimer.start();
+        }
+    }
+
+    private void flushDirty() {
+        long low;
+        long high;
+        synchronized (this) {
+            low = dirtyLow;
+            high = dirtyHigh;
+            dirtyLow = 0;
+            dirtyHigh = 0;
+        }
+        int size = cellSize();
+        while (low != 0) {
+            repaintCell(Long.numberOfTrailingZeros(low), size);
+            low &= low - 1;
+        }
+        while (high != 0) {
+            repaintCell(64 + Long.numberOfTrailingZeros(high), size);
+            high &= high - 1;
+        }
+    }
+
+    private void repaintCell(int cell, int size) {
+        // One pixel of slack on each side covers the grid lines drawn over the cell edge
+        repaint(1 + (cell % 9) * size - 1, 1 + (cell / 9) * size - 1, size + 2, size + 2);
+    }
+
+    private int cellSize() {
+        return Math.max(1, (Math.min(getWidth(), getHeight()) - 2) / 9);
+    }
+
+    private int cellAt(int x, int y) {
+        int size = cellSize();
+        int col = (x - 1) / size;
+        int row = (y - 1) / size;
+        if (x < 1 || y < 1 || col > 8 || row > 8) {
+            return -1;
+        }
+        return row * 9 + col;
+    }
+
+    private void handleKey(KeyEvent e) {
+        int cell;
+        synchronized (this) {
+            cell = selected;
+        }
+        if (cell < 0 || listener == null) {
+            return;
+        }
+        int row = cell / 9;
+        int col = cell % 9;
+        int keyCode = e.getKeyCode();
+        if (keyCode >= KeyEvent.VK_1 && keyCode <= KeyEvent.VK_9) {
+            listener.valueEntered(row, col, keyCode - KeyEvent.VK_0);
+        } else if (keyCode >= KeyEvent.VK_NUMPAD1 && keyCode <= KeyEvent.VK_NUMPAD9) {
+            listener.valueEntered(row, col, keyCode - KeyEvent.VK_NUMPAD0);
+        } else if (keyCode == KeyEvent.VK_BACK_SPACE || keyCode == KeyEvent.VK_DELETE) {
+            listener.valueEntered(row, col, 0);
+        } else if (keyCode == KeyEvent.VK_UP && row > 0) {
+            listener.cellSelected(row - 1, col);
+        } else if (keyCode == KeyEvent.VK_DOWN && row < 8) {
+            listener.cellSelected(row + 1, col);
+        } else if (keyCode == KeyEvent.VK_LEFT && col > 0) {
+            listener.cellSelected(row, col - 1);
+        } else if (keyCode == KeyEvent.VK_RIGHT && col < 8) {
+            listener.cellSelected(row, col + 1);
+        }
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        int selectedCell;
+        synchronized (this) {
+            System.arraycopy(values, 0, paintValues, 0, 81);
+            System.arraycopy(given, 0, paintGiven, 0, 81);
+            System.arraycopy(solution, 0, paintSolution, 0, 81);
+            selectedCell = selected;
+        }
+        int size = cellSize();
+        ensureGlyphs(size);
+
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.setColor(getParent() != null ? getParent().getBackground() : BG_COLOR);
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        int firstCol = Math.max(0, (clip.x - 1) / size);
+        int lastCol = Math.min(8, (clip.x + clip.width - 1) / size);
+        int firstRow = Math.max(0, (clip.y - 1) / size);
+        int lastRow = Math.min(8, (clip.y + clip.height - 1) / size);
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstCol; c <= lastCol; c++) {
+                paintCell(g, r * 9 + c, 1 + c * size, 1 + r * size, size, selectedCell);
+            }
+        }
+        paintGrid(g, size);
+    }
+
+    private void paintCell(Graphics g, int cell, int x, int y, int size, int selectedCell) {
+        int value = paintValues[cell];
+        boolean correct = paintSolution[cell] == 0 || value == paintSolution[cell];
+        Color background;
+        if (cell == selectedCell) {
+            background = SELECTED_COLOR;
+        } else if (paintGiven[cell] || value == 0) {
+            background = BG_COLOR;
+        } else {
+            background = correct ? CORRECT_BG : WRONG_BG;
+        }
+        g.setColor(background);
+        g.fillRect(x, y, size, size);
+        if (value != 0) {
+            int style = paintGiven[cell] ? GIVEN : (correct ? CORRECT : WRONG);
+            g.drawImage(glyphs[style][value], x, y, null);
+        }
+    }
+
+    private void paintGrid(Graphics g, int size) {
+        int extent = 9 * size;
+        g.setColor(THIN_LINE);
+        for (int i = 1; i < 9; i++) {
+            if (i % 3 != 0) {
+                g.drawLine(1 + i * size, 1, 1 + i * size, extent);
+                g.drawLine(1, 1 + i * size, extent, 1 + i * size);
+            }
+        }
+        g.setColor(THICK_LINE);
+        for (int i = 0; i <= 9; i += 3) {
+            g.fillRect(i * size, 0, 2, extent + 2);
+            g.fillRect(0, i * size, extent + 2, 2);
+        }
+    }
+
+    /**
+     * Render every digit in every style once for the current cell size; transparent background.
+     */
+    private void ensureGlyphs(int size) {
+        if (glyphs != null && glyphSize == size) {
+            return;
+        }
+        Font font = new Font("Arial", Font.BOLD, Math.max(6, size * 2 / 5));
+        glyphs = new BufferedImage[GLYPH_COLORS.length][10];
+        for (int style = 0; style < GLYPH_COLORS.length; style++) {
+            for (int digit = 1; digit <= 9; digit++) {
+                BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+                Graphics2D g2 = image.createGraphics();
+                g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                g2.setFont(font);
+                g2.setColor(GLYPH_COLORS[style]);
+                FontMetrics fm = g2.getFontMetrics();
+                String text = String.valueOf(digit);
+                int tx = (size - fm.stringWidth(text)) / 2;
+                int ty = (size - fm.getHeight()) / 2 + fm.getAscent();
+                g2.drawString(text, tx, ty);
+                g2.dispose();
+                glyphs[style][digit] = image;
+            }
+        }
+        glyphSize = size;
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ * Shape of an N²×N² board with N×N boxes: 9x9 (box 3), 16x16 (box 4), 25x25 (box 5).
+ * Digits run 1..side. Lookup tables map a flat cell index (row * side + col) to its row,
+ * column and box, so solvers never divide in their inner loops.
+ * Instances are immutable and shared; use of(box) or forSide(side).
+ */
+public final class BoardGeometry {
+    public static final int MIN_BOX = 2;
+    public static final int MAX_BOX = 5;
+    public static final BoardGeometry STANDARD;
+
+    private static final BoardGeometry[] BY_BOX = new BoardGeometry[MAX_BOX + 1];
+
+    static {
+        for (int box = MIN_BOX; box <= MAX_BOX; box++) {
+            BY_BOX[box] = new BoardGeometry(box);
+        }
+        STANDARD = BY_BOX[3];
+    }
+
+    private final int box;
+    private final int side;
+    private final int cells;
+    private final long allDigits;
+    private final int[] rowOf;
+    private final int[] colOf;
+    private final int[] boxOf;
+    private final int[][] units;
+
+    private BoardGeometry(int box) {
+        this.box = box;
+        this.side = box * box;
+        this.cells = side * side;
+        this.allDigits = side == 64 ? -1L : (1L << side) - 1;
+        this.rowOf = new int[cells];
+        this.colOf = new int[cells];
+        this.boxOf = new int[cells];
+        for (int i = 0; i < cells; i++) {
+            int r = i / side;
+            int c = i % side;
+            rowOf[i] = r;
+            colOf[i] = c;
+            boxOf[i] = (r / box) * box + c / box;
+        }
+        // Rows, then columns, then boxes
+        this.units = new int[3 * side][side];
+        for (int u = 0; u < side; u++) {
+            for (int i = 0; i < side; i++) {
+                units[u][i] = u * side + i;
+                units[side + u][i] = i * side + u;
+                units[2 * side + u][i] = boxCell(u, i);
+            }
+        }
+    }
+
+    public static BoardGeometry of(int box) {
+        if (box < MIN_BOX || box > MAX_BOX) {
+            throw new IllegalArgumentException("Box size must be " + MIN_BOX + "-" + MAX_BOX + ": " + box);
+        }
+        return BY_BOX[box];
+    }
+
+    /**
+     * Geometry for a board with the given number of rows (4, 9, 16 or 25).
+     */
+    public static BoardGeometry forSide(int side) {
+        int box = (int) Math.round(Math.sqrt(side));
+        if (box * box != side) {
+            throw new IllegalArgumentException("Board side must be a square: " + side);
+        }
+        return of(box);
+    }
+
+    public static BoardGeometry of(int[][] board) {
+        return forSide(board.length);
+    }
+
+    public int getBox() {
+        return box;
+    }
+
+    public int getSide() {
+        return side;
+    }
+
+    public int getCells() {
+        return cells;
+    }
+
+    /** Candidate mask with bit d-1 set for every digit d. */
+    public long allDigits() {
+        return allDigits;
+    }
+
+    public int rowOf(int cell) {
+        return rowOf[cell];
+    }
+
+    public int colOf(int cell) {
+        return colOf[cell];
+    }
+
+    public int boxOf(int cell) {
+        return boxOf[cell];
+    }
+
+    public int boxOf(int row, int col) {
+        return (row / box) * box + col / box;
+    }
+
+    public int getUnitCount() {
+        return units.length;
+    }
+
+    /**
+     * Cells of unit u: rows are 0..side-1, columns side..2*side-1, boxes after that.
+     * The array is shared and must not be modified.
+     */
+    public int[] unit(int u) {
+        return units[u];
+    }
+
+    /** Flat index of the i-th cell of box b, in row-major order within the box. */
+    public int boxCell(int b, int i) {
+        return ((b / box) * box + i / box) * side + (b % box) * box + i % box;
+    }
+
+    /**
+     * Whether board is a side x side array of values in 0..side.
+     */
+    public boolean fits(int[][] board) {
+        if (board == null || board.length != side) {
+            return false;
+        }
+        for (int[] row : board) {
+            if (row == null || row.length != side) {
+                return false;
+            }
+            for (int v : row) {
+                if (v < 0 || v > side) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return side + "x" + side;
+    }
+}
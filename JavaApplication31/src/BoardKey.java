@@ -0,0 +1,65 @@
+/**
+ * 128-bit fingerprint of an 81-cell board, usable as a hash map key.
+ * Two independent 64-bit mixes over the packed cells; a collision needs both to match.
+ */
+public final class BoardKey {
+    private final long hi;
+    private final long lo;
+
+    private BoardKey(long hi, long lo) {
+        this.hi = hi;
+        this.lo = lo;
+    }
+
+    public static BoardKey of(byte[] cells) {
+        long h1 = 0x9E3779B97F4A7C15L;
+        long h2 = 0xC2B2AE3D27D4EB4FL;
+        // 16 cells of 4 bits per word
+        for (int i = 0; i < cells.length; i += 16) {
+            long word = 0;
+            int end = Math.min(cells.length, i + 16);
+            for (int j = i; j < end; j++) {
+                word = (word << 4) | (cells[j] & 0xF);
+            }
+            h1 = mix(h1 ^ word);
+            h2 = mix(h2 + Long.rotateLeft(word, 31) * 0xFF51AFD7ED558CCDL);
+        }
+        return new BoardKey(mix(h1 ^ cells.length), mix(h2 ^ h1));
+    }
+
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public long high() {
+        return hi;
+    }
+
+    public long low() {
+        return lo;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof BoardKey)) {
+            return false;
+        }
+        BoardKey other = (BoardKey) o;
+        return hi == other.hi && lo == other.lo;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (lo ^ (lo >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", hi, lo);
+    }
+}
@@ -0,0 +1,24 @@
+/**
+ * Read-only view of a 9x9 board, row-major, 0 for an empty cell.
+ * Lets callers inspect session state without materializing an int[][] copy.
+ */
+public interface BoardView {
+
+    int get(int row, int col);
+
+    /** True if the cell is part of the puzzle rather than a player entry. */
+    boolean isGiven(int row, int col);
+
+    int getEmptyCount();
+
+    /** Fresh int[9][9] copy, owned by the caller. */
+    default int[][] toArray() {
+        int[][] board = new int[9][9];
+        for (int r = 0; r < 9; r++) {
+            for (int c = 0; c < 9; c++) {
+                board[r][c] = get(r, c);
+            }
+        }
+        return board;
+    }
+}
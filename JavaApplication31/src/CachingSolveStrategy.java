@@ -0,0 +1,48 @@
+/**
+ * Decorator that answers repeated solves from a SolutionCache. With canonical keys enabled,
+ * boards that differ only by the symmetries BoardCanonicalizer covers share one entry; the
+ * cached solution is mapped back onto the caller's orientation and digits.
+ * Fills the board in place and returns it, like the delegate.
+ */
+public class CachingSolveStrategy implements SolveStrategy {
+    private final SolveStrategy delegate;
+    private final SolutionCache cache;
+    private final boolean canonical;
+
+    public CachingSolveStrategy(SolveStrategy delegate, SolutionCache cache, boolean canonical) {
+        this.delegate = delegate;
+        this.cache = cache;
+        this.canonical = canonical;
+    }
+
+    public CachingSolveStrategy(SolveStrategy delegate) {
+        this(delegate, SolutionCache.shared(),
+            Boolean.parseBoolean(System.getProperty("sudoku.solveCache.canonical", "true")));
+    }
+
+    @Override
+    public int[][] solve(int[][] game) throws Exception {
+        return solve(game, CancellationToken.NONE);
+    }
+
+    /**
+     * Cache hits return at once; misses pass the token on to the delegate.
+     */
+    @Override
+    public int[][] solve(int[][] game, CancellationToken token) throws Exception {
+        BoardCanonicalizer.Canonical form = canonical
+            ? BoardCanonicalizer.canonicalize(game)
+            : BoardCanonicalizer.identity(game);
+        BoardKey key = BoardKey.of(form.cells);
+
+        byte[] cached = cache.get(key);
+        if (cached != null) {
+            form.fromCanonical(cached, game);
+            return game;
+        }
+
+        int[][] solved = delegate.solve(game, token);
+        cache.put(key, form.toCanonical(solved));
+        return solved;
+    }
+}
@@ -0,0 +1,89 @@
+import java.util.concurrent.CancellationException;
+
+/**
+ * Cooperative stop signal for long searches. Solvers call throwIfCancelled every few thousand
+ * nodes; a token is cancelled by cancel(), by passing its deadline, or by cancelling its
+ * parent. Only the flag and the clock are read, so cancellation never interrupts the worker
+ * thread and leaves no interrupt status behind in pooled threads. Thread-safe.
+ */
+public final class CancellationToken {
+    /** A token that is never cancelled. */
+    public static final CancellationToken NONE = new CancellationToken(null, Long.MAX_VALUE);
+
+    private final CancellationToken parent;
+    private final long deadlineNanos;
+    private volatile String reason;
+
+    private CancellationToken(CancellationToken parent, long deadlineNanos) {
+        this.parent = parent;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static CancellationToken create() {
+        return new CancellationToken(null, Long.MAX_VALUE);
+    }
+
+    /**
+     * Token that also counts as cancelled timeoutMillis from now.
+     */
+    public static CancellationToken withTimeout(long timeoutMillis) {
+        return NONE.child(timeoutMillis);
+    }
+
+    /**
+     * Token cancelled together with this one, or on its own, or timeoutMillis from now
+     * (Long.MAX_VALUE for no extra deadline), whichever is first.
+     */
+    public CancellationToken child(long timeoutMillis) {
+        long deadline = timeoutMillis == Long.MAX_VALUE ? deadlineNanos
+            : Math.min(deadlineNanos, System.nanoTime() + timeoutMillis * 1_000_000L);
+        return new CancellationToken(this, deadline);
+    }
+
+    public void cancel() {
+        cancel("cancelled");
+    }
+
+    public void cancel(String why) {
+        if (this == NONE) {
+            throw new IllegalStateException("The NONE token cannot be cancelled");
+        }
+        if (reason == null) {
+            reason = why;
+        }
+    }
+
+    public boolean isCancelled() {
+        return reason != null || isExpired() || (parent != null && parent.isCancelled());
+    }
+
+    /**
+     * Whether the deadline (this token's or a parent's) has passed.
+     */
+    public boolean isExpired() {
+        return deadlineNanos != Long.MAX_VALUE && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * Nanoseconds left until the deadline, 0 once passed, Long.MAX_VALUE without one.
+     */
+    public long remainingNanos() {
+        if (deadlineNanos == Long.MAX_VALUE) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, deadlineNanos - System.nanoTime());
+    }
+
+    public void throwIfCancelled() {
+        if (isCancelled()) {
+            throw new CancellationException(isExpired() ? "deadline passed" : reasonText());
+        }
+    }
+
+    private String reasonText() {
+        if (reason != null) {
+            return reason;
+        }
+        return parent != null ? parent.reasonText() : "cancelled";
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * Pencil-mark state for a 9x9 board: one nine-bit candidate mask per cell
+ * (bit d-1 set = digit d is still legal), maintained incrementally on every set/clear.
+ *
+ * Placing a digit touches the cell's 20 peers; clearing one recomputes at most 21 masks from
+ * the unit summaries. Units keep per-digit counts rather than plain bits so that clearing one
+ * of two conflicting player entries leaves the other's constraint in force.
+ */
+public final class CandidateEngine {
+    public static final int ALL = 0x1FF;
+
+    static final int[] ROW = new int[81];
+    static final int[] COL = new int[81];
+    static final int[] BOX = new int[81];
+    static final int[][] PEERS = new int[81][20];
+
+    static {
+        for (int i = 0; i < 81; i++) {
+            ROW[i] = i / 9;
+            COL[i] = i % 9;
+            BOX[i] = (i / 27) * 3 + (i % 9) / 3;
+        }
+        for (int i = 0; i < 81; i++) {
+            int n = 0;
+            for (int j = 0; j < 81; j++) {
+                if (j != i && (ROW[j] == ROW[i] || COL[j] == COL[i] || BOX[j] == BOX[i])) {
+                    PEERS[i][n++] = j;
+                }
+            }
+        }
+    }
+
+    private final int[] values = new int[81];
+    private final int[] masks = new int[81];
+    private final byte[] rowCount = new byte[9 * 10];
+    private final byte[] colCount = new byte[9 * 10];
+    private final byte[] boxCount = new byte[9 * 10];
+    private final int[] rowUsed = new int[9];
+    private final int[] colUsed = new int[9];
+    private final int[] boxUsed = new int[9];
+    private int emptyCount = 81;
+
+    public CandidateEngine(int[][] board) {
+        for (int i = 0; i < 81; i++) {
+            masks[i] = ALL;
+        }
+        for (int r = 0; r < 9; r++) {
+            for (int c = 0; c < 9; c++) {
+                if (board[r][c] != 0) {
+                    set(r, c, board[r][c]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Set a cell; 0 clears it. Overwriting a filled cell clears the old digit first.
+     */
+    public void set(int row, int col, int value) {
+        if (value < 0 || value > 9) {
+            throw new IllegalArgumentException("Value must be 0-9: " + value);
+        }
+        int cell = row * 9 + col;
+        if (values[cell] == value) {
+            return;
+        }
+        if (values[cell] != 0) {
+            remove(cell);
+        }
+        if (value != 0) {
+            place(cell, value);
+        }
+    }
+
+    private void place(int cell, int digit) {
+        int bit = 1 << (digit - 1);
+        values[cell] = digit;
+        masks[cell] = 0;
+        emptyCount--;
+        boolean newRow = rowCount[ROW[cell] * 10 + digit]++ == 0;
+        boolean newCol = colCount[COL[cell] * 10 + digit]++ == 0;
+        boolean newBox = boxCount[BOX[cell] * 10 + digit]++ == 0;
+        if (newRow | newCol | newBox) {
+            rowUsed[ROW[cell]] |= bit;
+            colUsed[COL[cell]] |= bit;
+            boxUsed[BOX[cell]] |= bit;
+            for (int peer : PEERS[cell]) {
+                masks[peer] &= ~bit;
+            }
+        }
+    }
+
+    private void remove(int cell) {
+        int digit = values[cell];
+        int bit = 1 << (digit - 1);
+        values[cell] = 0;
+        emptyCount++;
+        boolean freedRow = --rowCount[ROW[cell] * 10 + digit] == 0;
+        boolean freedCol = --colCount[COL[cell] * 10 + digit] == 0;
+        boolean freedBox = --boxCount[BOX[cell] * 10 + digit] == 0;
+        if (freedRow) {
+            rowUsed[ROW[cell]] &= ~bit;
+        }
+        if (freedCol) {
+            colUsed[COL[cell]] &= ~bit;
+        }
+        if (freedBox) {
+            boxUsed[BOX[cell]] &= ~bit;
+        }
+        masks[cell] = computeMask(cell);
+        if (freedRow | freedCol | freedBox) {
+            for (int peer : PEERS[cell]) {
+                if (values[peer] == 0) {
+                    masks[peer] = computeMask(peer);
+                }
+            }
+        }
+    }
+
+    private int computeMask(int cell) {
+        return ALL & ~(rowUsed[ROW[cell]] | colUsed[COL[cell]] | boxUsed[BOX[cell]]);
+    }
+
+    public int getValue(int row, int col) {
+        return values[row * 9 + col];
+    }
+
+    /**
+     * Candidate mask of a cell (bit d-1 = digit d); 0 for filled cells.
+     */
+    public int candidates(int row, int col) {
+        return masks[row * 9 + col];
+    }
+
+    public boolean isCandidate(int row, int col, int digit) {
+        return (masks[row * 9 + col] & (1 << (digit - 1))) != 0;
+    }
+
+    public int getEmptyCount() {
+        return emptyCount;
+    }
+
+    /**
+     * Copy all 81 masks (row-major) into out, allocating when out is null.
+     */
+    public int[] copyCandidates(int[] out) {
+        if (out == null) {
+            out = new int[81];
+        }
+        System.arraycopy(masks, 0, out, 0, 81);
+        return out;
+    }
+
+    /**
+     * Mask of digits still placeable somewhere in the unit, for row/column/box index.
+     */
+    public int rowCandidates(int row) {
+        return ALL & ~rowUsed[row];
+    }
+
+    public int colCandidates(int col) {
+        return ALL & ~colUsed[col];
+    }
+
+    public int boxCandidates(int box) {
+        return ALL & ~boxUsed[box];
+    }
+
+    /**
+     * Empty cells with exactly one candidate. Writes cell indexes (row * 9 + col) into cells
+     * and the forced digit into digits; returns how many were found.
+     */
+    public int singles(int[] cells, int[] digits) {
+        int n = 0;
+        for (int i = 0; i < 81; i++) {
+            int m = masks[i];
+            if (values[i] == 0 && m != 0 && (m & (m - 1)) == 0) {
+                cells[n] = i;
+                digits[n] = Integer.numberOfTrailingZeros(m) + 1;
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Empty cells with no candidates left: the board cannot be completed as it stands.
+     */
+    public int deadCells(int[] cells) {
+        int n = 0;
+        for (int i = 0; i < 81; i++) {
+            if (values[i] == 0 && masks[i] == 0) {
+                cells[n++] = i;
+            }
+        }
+        return n;
+    }
+}
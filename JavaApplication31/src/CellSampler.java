@@ -0,0 +1,91 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Draws distinct board cells (0..80, or 0..count-1 for larger boards) without replacement,
+ * one partial Fisher-Yates step per draw over a reusable permutation. Randomness comes from
+ * an inline SplitMix64 generator, so drawing allocates nothing and reseeding is just a field write.
+ *
+ * Not thread-safe: give each thread its own sampler. Instances created without a seed get
+ * distinct seeds even when built in the same millisecond; pass a seed to replay a run.
+ */
+public final class CellSampler {
+    public static final int CELLS = 81;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final AtomicLong SEEDER = new AtomicLong(System.nanoTime() ^ System.currentTimeMillis());
+
+    private final short[] cells;
+    private long seed;
+    private long state;
+    private int drawn;
+
+    public CellSampler() {
+        this(BoardKey.mix(SEEDER.addAndGet(GOLDEN_GAMMA)));
+    }
+
+    public CellSampler(long seed) {
+        this(seed, CELLS);
+    }
+
+    /**
+     * Sampler over cells 0..count-1, e.g. BoardGeometry.getCells() for a 16x16 board.
+     */
+    public CellSampler(long seed, int count) {
+        if (count < 1 || count > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Cell count out of range: " + count);
+        }
+        this.cells = new short[count];
+        reseed(seed);
+    }
+
+    /**
+     * Restart from a seed: the following draws repeat exactly what a new
+     * CellSampler(seed) would produce.
+     */
+    public void reseed(long seed) {
+        this.seed = seed;
+        this.state = seed;
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = (short) i;
+        }
+        drawn = 0;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Start a new sample without reseeding; every cell becomes available again.
+     */
+    public void reset() {
+        drawn = 0;
+    }
+
+    public int remaining() {
+        return cells.length - drawn;
+    }
+
+    /**
+     * Next cell of the current sample, uniformly among those not yet drawn.
+     */
+    public int nextCell() {
+        if (drawn >= cells.length) {
+            throw new IllegalStateException("All " + cells.length + " cells have been drawn");
+        }
+        int j = drawn + nextInt(cells.length - drawn);
+        short picked = cells[j];
+        cells[j] = cells[drawn];
+        cells[drawn] = picked;
+        drawn++;
+        return picked;
+    }
+
+    /**
+     * Uniform int in 0..bound-1 from the same stream.
+     */
+    public int nextInt(int bound) {
+        state += GOLDEN_GAMMA;
+        long z = BoardKey.mix(state);
+        return (int) (((z >>> 32) * bound) >>> 32);
+    }
+}
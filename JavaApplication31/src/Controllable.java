@@ -22,6 +22,8 @@ public interface Controllable {
 
     boolean[][] getIsOriginal();
 
+    BoardView getBoard();
+
     void saveGame() throws IOException;
 
     void loadGame() throws IOException, ClassNotFoundException;
@@ -33,4 +35,18 @@ public interface Controllable {
     int getFaults();
 
     void setFaults(int faults);
+
+    boolean setCellValue(int row, int col, int value);
+
+    boolean undoLastMove();
+
+    boolean redoMove();
+
+    boolean canUndo();
+
+    boolean canRedo();
+
+    int[] getCandidates();
+
+    Hint getHint();
 }
@@ -1,3 +1,7 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -8,24 +12,47 @@ import java.io.Serializable;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Random;
 
 public class Controller implements Controllable, Serializable {
 
-  private static final String BASE_DIR = "sudoku_games";
+  private static final String BASE_DIR = GameStorage.BASE_DIR;
     private static final String INCOMPLETE_DIR = BASE_DIR + File.separator + "incomplete";
-    private static final String INCOMPLETE_SAVE_FILE = INCOMPLETE_DIR + File.separator + "game.txt";
-    private static final String INCOMPLETE_LOG_FILE = INCOMPLETE_DIR + File.separator + "log.txt";
+    private static final String SESSIONS_DIR = BASE_DIR + File.separator + "sessions";
+    private static final String SAVE_NAME = "game.txt";
+    private static final String LOG_NAME = "log.txt";
+    private static final String HISTORY_NAME = "history.bin";
     private static final long serialVersionUID = 1L;
-    private int[][] currentGame;
-    private int[][] solution;
-    private boolean[][] isOriginal;
+    private static final int MAX_DEDUP_ATTEMPTS = 8;
+    // Givens and solution are interned and shared; only the player's entries are per session
+    private Puzzle puzzle;
+    private SessionBoard board;
     private int faults;
-    private transient Random random = new Random();
+    private transient CellSampler sampler = new CellSampler();
     private transient GameLogger logger = new GameLogger();
     private String currentGameSourcePath;
 
-    private transient SolveStrategy solveStrategy = new PermutationSolveStrategy();
+    private transient SolveStrategy solveStrategy = new MeteredSolveStrategy(new CachingSolveStrategy(PortfolioSolveStrategy.standard()));
+    // Branching undo/redo history of the player's entries, saved alongside the game
+    private transient MoveHistory history;
+    private transient CandidateEngine candidates;
+    private transient HintEngine hints = new HintEngine();
+    // Where this session's incomplete game is saved: the GUI's shared slot, or one per session
+    private final String incompleteDir;
+
+    public Controller() {
+        this.incompleteDir = INCOMPLETE_DIR;
+    }
+
+    /**
+     * Controller whose incomplete game is saved under sudoku_games/sessions/&lt;session&gt;,
+     * so concurrent sessions never load each other's game.
+     */
+    public Controller(String session) {
+        if (session == null || !session.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalArgumentException("Invalid session id: " + session);
+        }
+        this.incompleteDir = SESSIONS_DIR + File.separator + session;
+    }
 
     private static class SaveState implements Serializable {
         private static final long serialVersionUID = 1L;
@@ -48,37 +75,38 @@ public class Controller implements Controllable, Serializable {
         Files.createDirectories(Paths.get(BASE_DIR, "easy"));
         Files.createDirectories(Paths.get(BASE_DIR, "medium"));
         Files.createDirectories(Paths.get(BASE_DIR, "hard"));
-        Files.createDirectories(Paths.get(INCOMPLETE_DIR));
+        Files.createDirectories(Paths.get(incompleteDir));
+    }
+
+    private Path incompleteFile(String name) {
+        return Paths.get(incompleteDir, name);
     }
 
     private void enforceIncompleteFolderState() throws IOException {
         ensureGameDirs();
-        Path dir = Paths.get(INCOMPLETE_DIR);
+        Path dir = Paths.get(incompleteDir);
 
         try (java.nio.file.DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
             for (Path p : stream) {
                 String name = p.getFileName().toString();
-                if (!name.equals("game.txt") && !name.equals("log.txt")) {
+                if (!name.equals(SAVE_NAME) && !name.equals(LOG_NAME) && !name.equals(HISTORY_NAME)) {
                     Files.deleteIfExists(p);
                 }
             }
         }
 
-        Path save = Paths.get(INCOMPLETE_SAVE_FILE);
-        Path log = Paths.get(INCOMPLETE_LOG_FILE);
+        Path save = incompleteFile(SAVE_NAME);
+        Path log = incompleteFile(LOG_NAME);
 
-        if (Files.exists(save)) {
-            if (!Files.exists(log)) {
-                Files.writeString(log, "");
-            }
-        } else {
+        if (!Files.exists(save)) {
             Files.deleteIfExists(log);
+            Files.deleteIfExists(incompleteFile(HISTORY_NAME));
         }
     }
 
     private void resetIncompleteLog() throws IOException {
         ensureGameDirs();
-        Files.writeString(Paths.get(INCOMPLETE_LOG_FILE), "");
+        Files.deleteIfExists(incompleteFile(LOG_NAME));
     }
 
     private static String boardToString(int[][] board) {
@@ -140,16 +168,12 @@ public class Controller implements Controllable, Serializable {
         }
     }
 
-    private static void writeBoard(Path file, int[][] board) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < 9; i++) {
-            for (int j = 0; j < 9; j++) {
-                if (j > 0) sb.append(' ');
-                sb.append(board[i][j]);
-            }
-            sb.append('\n');
-        }
-        Files.writeString(file, sb.toString());
+    /**
+     * Append a generated game to its difficulty's archive and return the "path#index" reference.
+     */
+    private static String archiveGame(char level, int[][] game, int[][] solved) throws IOException {
+        PuzzleArchive archive = PuzzleArchive.open(Paths.get(BASE_DIR, difficultyFolder(level), PuzzleArchive.DEFAULT_NAME));
+        return archive.reference(archive.append(game, solved));
     }
 
     private static int[][] readBoard(Path file) throws IOException {
@@ -194,54 +218,60 @@ public class Controller implements Controllable, Serializable {
             throw new IllegalStateException("No source file found. Please provide a source.txt file with a valid Sudoku solution.");
         }
 
-        long ts = System.currentTimeMillis();
-        int[][] easy = copyBoard(solved);
-        int[][] medium = copyBoard(solved);
-        int[][] hard = copyBoard(solved);
+        int[][] easy = digUnique(solved, 10);
+        int[][] medium = digUnique(solved, 20);
+        int[][] hard = digUnique(solved, 25);
 
-        removeNumbers(easy, 10);
-        removeNumbers(medium, 20);
-        removeNumbers(hard, 25);
-
-        Path easyFile = Paths.get(BASE_DIR, difficultyFolder('E'), "game_" + ts + "_E.txt");
-        Path mediumFile = Paths.get(BASE_DIR, difficultyFolder('M'), "game_" + ts + "_M.txt");
-        Path hardFile = Paths.get(BASE_DIR, difficultyFolder('H'), "game_" + ts + "_H.txt");
-        writeBoard(easyFile, easy);
-        writeBoard(mediumFile, medium);
-        writeBoard(hardFile, hard);
+        String easyRef = archiveGame('E', easy, solved);
+        String mediumRef = archiveGame('M', medium, solved);
+        String hardRef = archiveGame('H', hard, solved);
+        // Indexed only once archived, so a failed append leaves no phantom fingerprint behind
+        if (PuzzleIndex.enabled()) {
+            PuzzleIndex index = PuzzleIndex.shared();
+            index.add(easy);
+            index.add(medium);
+            index.add(hard);
+        }
 
-        
-        this.solution = copyBoard(solved);
         int[][] selected;
-        Path selectedFile;
+        String selectedRef;
         switch (requested) {
             case 'E':
                 selected = easy;
-                selectedFile = easyFile;
+                selectedRef = easyRef;
                 break;
             case 'M':
                 selected = medium;
-                selectedFile = mediumFile;
+                selectedRef = mediumRef;
                 break;
             default:
                 selected = hard;
-                selectedFile = hardFile;
+                selectedRef = hardRef;
                 break;
         }
 
-        this.currentGame = selected;
-        this.isOriginal = new boolean[9][9];
-        for (int i = 0; i < 9; i++) {
-            for (int j = 0; j < 9; j++) {
-                this.isOriginal[i][j] = selected[i][j] != 0;
-            }
-        }
-
+        startSession(Puzzle.intern(selected, solved), null);
         this.faults = 0;
-        this.currentGameSourcePath = selectedFile.toString();
+        this.currentGameSourcePath = selectedRef;
         saveGame();
         resetIncompleteLog();
-        return selected;
+        return board.toArray();
+    }
+
+    /**
+     * Dig a puzzle that is not in the shared puzzle index yet; getGame records it there once
+     * it is archived. Gives up after a few attempts and returns the last (duplicate) puzzle
+     * rather than failing.
+     */
+    private int[][] digUnique(int[][] solved, int holes) throws IOException {
+        PuzzleIndex index = PuzzleIndex.enabled() ? PuzzleIndex.shared() : null;
+        int[][] board = copyBoard(solved);
+        removeNumbers(board, holes);
+        for (int attempt = 1; index != null && index.contains(board) && attempt < MAX_DEDUP_ATTEMPTS; attempt++) {
+            board = copyBoard(solved);
+            removeNumbers(board, holes);
+        }
+        return board;
     }
 
     private static int[][] copyBoard(int[][] src) {
@@ -252,19 +282,34 @@ public class Controller implements Controllable, Serializable {
         return dst;
     }
 
+    /**
+     * Copy of the solution; the shared puzzle itself is never handed out mutably.
+     */
     @Override
     public int[][] getSolution() {
-        return solution;
+        return puzzle == null ? null : puzzle.solutionArray();
     }
 
+    /**
+     * Copy of the current board. Prefer getBoard() to read cells without copying.
+     */
     @Override
     public int[][] getCurrentGame() {
-        return currentGame;
+        return board == null ? null : board.toArray();
     }
 
     @Override
     public boolean[][] getIsOriginal() {
-        return isOriginal;
+        return puzzle == null ? null : puzzle.givenMask();
+    }
+
+    @Override
+    public BoardView getBoard() {
+        return board;
+    }
+
+    public Puzzle getPuzzle() {
+        return puzzle;
     }
 
     @Override
@@ -284,16 +329,6 @@ public class Controller implements Controllable, Serializable {
     }
 
     private void generateFromSolvedBoard(int[][] solvedBoard, char level) throws Exception {
-        int[][] newGame = new int[9][9];
-        for (int i = 0; i < 9; i++) {
-            System.arraycopy(solvedBoard[i], 0, newGame[i], 0, 9);
-        }
-
-        solution = new int[9][9];
-        for (int i = 0; i < 9; i++) {
-            System.arraycopy(solvedBoard[i], 0, solution[i], 0, 9);
-        }
-
         int cellsToRemove;
         switch (Character.toUpperCase(level)) {
             case 'E':
@@ -309,30 +344,21 @@ public class Controller implements Controllable, Serializable {
                 throw new IllegalArgumentException("Invalid difficulty level. Use E, M, or H.");
         }
 
-        removeNumbers(newGame, cellsToRemove);
+        int[][] newGame = digUnique(solvedBoard, cellsToRemove);
 
-        isOriginal = new boolean[9][9];
-        for (int i = 0; i < 9; i++) {
-            for (int j = 0; j < 9; j++) {
-                isOriginal[i][j] = newGame[i][j] != 0;
-            }
-        }
-
-        currentGame = newGame;
+        startSession(Puzzle.intern(newGame, solvedBoard), null);
         ensureGameDirs();
-        String folder = difficultyFolder(level);
-        Path gameFile = Paths.get(BASE_DIR, folder, "game_" + System.currentTimeMillis() + ".txt");
-        writeBoard(gameFile, currentGame);
-        currentGameSourcePath = gameFile.toString();
+        currentGameSourcePath = archiveGame(level, newGame, solvedBoard);
         saveGame();
         resetIncompleteLog();
     }
 
     @Override
     public boolean[][] verifyGame(int[][] game) {
-        boolean[][] isValid = new boolean[9][9];
-        for (int i = 0; i < 9; i++) {
-            for (int j = 0; j < 9; j++) {
+        int side = game.length;
+        boolean[][] isValid = new boolean[side][side];
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
                 if (game[i][j] != 0) {
                     int temp = game[i][j];
                     game[i][j] = 0;
@@ -348,76 +374,13 @@ public class Controller implements Controllable, Serializable {
 
     @Override
     public GameState verifyState(int[][] game) {
-        boolean hasZero = false;
-
-        
-        for (int r = 0; r < 9; r++) {
-            boolean[] seen = new boolean[10];
-            for (int c = 0; c < 9; c++) {
-                int v = game[r][c];
-                if (v == 0) {
-                    hasZero = true;
-                    continue;
-                }
-                if (v < 1 || v > 9) {
-                    return GameState.INVALID;
-                }
-                if (seen[v]) {
-                    return GameState.INVALID;
-                }
-                seen[v] = true;
-            }
-        }
-
-        
-        for (int c = 0; c < 9; c++) {
-            boolean[] seen = new boolean[10];
-            for (int r = 0; r < 9; r++) {
-                int v = game[r][c];
-                if (v == 0) {
-                    hasZero = true;
-                    continue;
-                }
-                if (v < 1 || v > 9) {
-                    return GameState.INVALID;
-                }
-                if (seen[v]) {
-                    return GameState.INVALID;
-                }
-                seen[v] = true;
-            }
-        }
-
-        
-        for (int br = 0; br < 3; br++) {
-            for (int bc = 0; bc < 3; bc++) {
-                boolean[] seen = new boolean[10];
-                for (int r = br * 3; r < br * 3 + 3; r++) {
-                    for (int c = bc * 3; c < bc * 3 + 3; c++) {
-                        int v = game[r][c];
-                        if (v == 0) {
-                            hasZero = true;
-                            continue;
-                        }
-                        if (v < 1 || v > 9) {
-                            return GameState.INVALID;
-                        }
-                        if (seen[v]) {
-                            return GameState.INVALID;
-                        }
-                        seen[v] = true;
-                    }
-                }
-            }
-        }
-
-        return hasZero ? GameState.INCOMPLETE : GameState.VALID;
+        return new Verifier().verifyState(game);
     }
 
     @Override
     public int[][] solveGame(int[][] game) throws Exception {
         if (solveStrategy == null) {
-            solveStrategy = new PermutationSolveStrategy();
+            solveStrategy = new MeteredSolveStrategy(new CachingSolveStrategy(PortfolioSolveStrategy.standard()));
         }
         return solveStrategy.solve(game);
     }
@@ -427,45 +390,24 @@ public class Controller implements Controllable, Serializable {
         logger.logAction(userAction);
     }
 
-    
-    
-    private boolean solveSudoku(int[][] grid) {
-        for (int row = 0; row < 9; row++) {
-            for (int col = 0; col < 9; col++) {
-                if (grid[row][col] == 0) {
-                    for (int num = 1; num <= 9; num++) {
-                        if (isValid(grid, row, col, num)) {
-                            grid[row][col] = num;
-                            if (solveSudoku(grid)) {
-                                return true;
-                            }
-                            grid[row][col] = 0;
-                        }
-                    }
-                    return false;
-                }
-            }
-        }
-        return true;
-    }
-
     private boolean isValid(int[][] grid, int row, int col, int num) {
-        
-        for (int x = 0; x < 9; x++) {
+        int side = grid.length;
+        int box = BoardGeometry.forSide(side).getBox();
+        for (int x = 0; x < side; x++) {
             if (grid[row][x] == num) return false;
         }
         
         
-        for (int x = 0; x < 9; x++) {
+        for (int x = 0; x < side; x++) {
             if (grid[x][col] == num) return false;
         }
         
         
-        int boxRowStart = row - row % 3;
-        int boxColStart = col - col % 3;
+        int boxRowStart = row - row % box;
+        int boxColStart = col - col % box;
         
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
+        for (int i = 0; i < box; i++) {
+            for (int j = 0; j < box; j++) {
                 if (grid[boxRowStart + i][boxColStart + j] == num) {
                     return false;
                 }
@@ -474,123 +416,129 @@ public class Controller implements Controllable, Serializable {
         return true;
     }
 
-    private int countSolutions(int[][] grid, int row, int col, int limit) {
-        
-        while (row < 9 && grid[row][col] != 0) {
-            col++;
-            if (col == 9) {
-                col = 0;
-                row++;
-            }
+    void removeNumbers(int[][] grid, int count) {
+        long start = Metrics.start();
+        try {
+            digNumbers(grid, count);
+        } finally {
+            Metrics.stop(Metrics.GENERATE, start);
         }
-        
-        
-        if (row >= 9) {
-            return 1;
+    }
+
+    /**
+     * Same as removeNumbers, but replays the cell order drawn from the given seed.
+     */
+    void removeNumbers(int[][] grid, int count, long seed) {
+        if (sampler == null) {
+            sampler = new CellSampler(seed);
+        } else {
+            sampler.reseed(seed);
         }
-        
-        int count = 0;
-        
-        for (int num = 1; num <= 9 && count < limit; num++) {
-            if (isValid(grid, row, col, num)) {
-                grid[row][col] = num;
-                
-                
-                int nextRow = row;
-                int nextCol = col + 1;
-                if (nextCol == 9) {
-                    nextCol = 0;
-                    nextRow++;
-                }
-                
-                count += countSolutions(grid, nextRow, nextCol, limit - count);
-                
-                
-                grid[row][col] = 0;
-            }
+        removeNumbers(grid, count);
+    }
+
+    /**
+     * Dig until no given can be removed without losing uniqueness, in the cell order drawn
+     * from seed, and return the number of holes (typically 53 to 60, i.e. 21 to 28 clues).
+     * One pass over the cells is enough: removing givens only adds solutions, so a cell that
+     * could not be dug earlier cannot be dug later either. That is 81 uniqueness tests, about
+     * half a millisecond per puzzle.
+     */
+    int removeToMinimal(int[][] grid, long seed) {
+        if (sampler == null) {
+            sampler = new CellSampler(seed);
+        } else {
+            sampler.reseed(seed);
+        }
+        long start = Metrics.start();
+        try {
+            return dig(grid, CellSampler.CELLS);
+        } finally {
+            Metrics.stop(Metrics.GENERATE, start);
+        }
+    }
+
+    private void digNumbers(int[][] grid, int count) {
+        int removed = dig(grid, count);
+        if (removed < count) {
+            throw new IllegalStateException("Only " + removed + " cells could be removed, " + count + " requested");
         }
-        
-        return count;
     }
 
-    private void removeNumbers(int[][] grid, int count) {
-        RandomPairs pairs = new RandomPairs();
-        java.util.List<int[]> coords = pairs.generateDistinctPairs(count);
+    /**
+     * Remove up to count givens, keeping the solution unique; returns how many were removed.
+     */
+    private int dig(int[][] grid, int count) {
+        if (sampler == null) {
+            sampler = new CellSampler();
+        }
+        sampler.reset();
+        // Masks persist across digs; each test is one search with the removed digit forbidden
+        UniquenessChecker checker = new UniquenessChecker(grid);
 
+        // Walk a random permutation of all cells, so every cell is tried at most once
         int removed = 0;
-        for (int[] cell : coords) {
-            int row = cell[0];
-            int col = cell[1];
+        while (removed < count && sampler.remaining() > 0) {
+            int cell = sampler.nextCell();
+            int row = cell / 9;
+            int col = cell % 9;
 
             if (grid[row][col] == 0) {
                 continue;
             }
 
-            int temp = grid[row][col];
-            grid[row][col] = 0;
-
-            int[][] testGrid = new int[9][9];
-            for (int i = 0; i < 9; i++) {
-                System.arraycopy(grid[i], 0, testGrid[i], 0, 9);
-            }
-
-            if (countSolutions(testGrid, 0, 0, 2) == 1) {
-                removed++;
-            } else {
-                grid[row][col] = temp;
-            }
-        }
-
-        
-        while (removed < count) {
-            java.util.List<int[]> retry = pairs.generateDistinctPairs(count - removed);
-            for (int[] cell : retry) {
-                if (removed >= count) break;
-                int row = cell[0];
-                int col = cell[1];
-                if (grid[row][col] == 0) continue;
-
-                int temp = grid[row][col];
+            if (checker.tryDig(cell)) {
                 grid[row][col] = 0;
-
-                int[][] testGrid = new int[9][9];
-                for (int i = 0; i < 9; i++) {
-                    System.arraycopy(grid[i], 0, testGrid[i], 0, 9);
-                }
-
-                if (countSolutions(testGrid, 0, 0, 2) == 1) {
-                    removed++;
-                } else {
-                    grid[row][col] = temp;
-                }
+                removed++;
             }
         }
+        return removed;
     }
+
     @Override
     public void saveGame() throws IOException {
+        long start = Metrics.start();
+        try {
+            writeSaveFile();
+        } finally {
+            Metrics.stop(Metrics.SAVE, start);
+        }
+    }
+
+    private void writeSaveFile() throws IOException {
         ensureGameDirs();
         
-        // Don't save if currentGame is null (game completed and deleted)
-        if (currentGame == null) {
+        // Don't save if board is null (game completed and deleted)
+        if (board == null) {
             return;
         }
         
         StringBuilder sb = new StringBuilder();
         sb.append("faults ").append(faults).append('\n');
         sb.append("source ").append(currentGameSourcePath == null ? "" : currentGameSourcePath).append('\n');
-        sb.append("current\n").append(boardToString(currentGame));
-        sb.append("solution\n").append(boardToString(solution));
-        sb.append("original\n").append(originalToString(isOriginal));
+        sb.append("current\n").append(boardToString(board.toArray()));
+        sb.append("solution\n").append(boardToString(puzzle.solutionView().toArray()));
+        sb.append("original\n").append(originalToString(puzzle.givenMask()));
 
-        Files.writeString(Paths.get(INCOMPLETE_SAVE_FILE), sb.toString());
+        Files.writeString(incompleteFile(SAVE_NAME), sb.toString());
+        writeHistory();
         enforceIncompleteFolderState();
     }
 
     @Override
     public void loadGame() throws IOException, ClassNotFoundException {
+        long start = Metrics.start();
+        try {
+            readSaveFile();
+        } finally {
+            Metrics.stop(Metrics.LOAD, start);
+        }
+    }
+
+    private void readSaveFile() throws IOException {
         ensureGameDirs();
         enforceIncompleteFolderState();
-        java.util.List<String> lines = Files.readAllLines(Paths.get(INCOMPLETE_SAVE_FILE));
+        java.util.List<String> lines = Files.readAllLines(incompleteFile(SAVE_NAME));
         if (lines.size() < 1) {
             throw new IOException("Invalid save file");
         }
@@ -613,62 +561,163 @@ public class Controller implements Controllable, Serializable {
             throw new IOException("Invalid save file");
         }
         idx++;
-        this.currentGame = parseBoard(lines, idx);
+        int[][] current = parseBoard(lines, idx);
         idx += 9;
 
         if (!lines.get(idx).trim().equals("solution")) {
             throw new IOException("Invalid save file");
         }
         idx++;
-        this.solution = parseBoard(lines, idx);
+        int[][] solved = parseBoard(lines, idx);
         idx += 9;
 
         if (!lines.get(idx).trim().equals("original")) {
             throw new IOException("Invalid save file");
         }
         idx++;
-        this.isOriginal = parseOriginal(lines, idx);
+        boolean[][] original = parseOriginal(lines, idx);
+        int[][] givens = new int[9][9];
+        for (int i = 0; i < 9; i++) {
+            for (int j = 0; j < 9; j++) {
+                givens[i][j] = original[i][j] ? current[i][j] : 0;
+            }
+        }
 
-        this.random = new Random();
         this.logger = new GameLogger();
-        this.solveStrategy = new PermutationSolveStrategy();
+        this.solveStrategy = new MeteredSolveStrategy(new CachingSolveStrategy(PortfolioSolveStrategy.standard()));
+        startSession(Puzzle.intern(givens, solved), current);
+        if (!readHistory()) {
+            replayLoggedMoves();
+        }
         enforceIncompleteFolderState();
     }
 
+    /**
+     * Switch to a new puzzle, with the player's entries taken from current (or none).
+     */
+    private void startSession(Puzzle puzzle, int[][] current) {
+        this.puzzle = puzzle;
+        this.board = current == null ? new SessionBoard(puzzle) : new SessionBoard(puzzle, current);
+        history = new MoveHistory(board);
+        candidates = new CandidateEngine(board.toArray());
+    }
+
+    private void writeHistory() throws IOException {
+        Path file = incompleteFile(HISTORY_NAME);
+        if (history == null) {
+            Files.deleteIfExists(file);
+            return;
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            history.write(out);
+        }
+    }
+
+    /**
+     * Restore the saved history if its current version matches the loaded board.
+     * Returns false if there is none or it belongs to another game.
+     */
+    private boolean readHistory() throws IOException {
+        Path file = incompleteFile(HISTORY_NAME);
+        if (!Files.exists(file)) {
+            return false;
+        }
+        MoveHistory saved;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            saved = MoveHistory.read(in);
+        } catch (IOException e) {
+            return false;
+        }
+        int version = saved.getCurrent();
+        for (int r = 0; r < 9; r++) {
+            for (int c = 0; c < 9; c++) {
+                int expected = puzzle.isGiven(r, c) ? 0 : board.get(r, c);
+                if (saved.get(version, r, c) != expected) {
+                    return false;
+                }
+            }
+        }
+        history = saved;
+        return true;
+    }
+
+    /**
+     * Rebuild the history from a legacy "(row, col, value, previous)" log written by older
+     * versions of the GUI: the root is the loaded board with every logged move taken back.
+     */
+    private void replayLoggedMoves() throws IOException {
+        Path log = incompleteFile(LOG_NAME);
+        if (!Files.exists(log)) {
+            return;
+        }
+        java.util.List<int[]> logged = new java.util.ArrayList<>();
+        for (String line : Files.readAllLines(log)) {
+            String cleaned = line.trim().replace("(", "").replace(")", "");
+            if (cleaned.isEmpty()) {
+                continue;
+            }
+            String[] parts = cleaned.split(",");
+            if (parts.length < 4) {
+                throw new IOException("Invalid log entry: " + line);
+            }
+            int[] move = new int[4];
+            for (int i = 0; i < 4; i++) {
+                move[i] = Integer.parseInt(parts[i].trim());
+            }
+            if (!puzzle.isGiven(move[0], move[1])) {
+                logged.add(move);
+            }
+        }
+        SessionBoard root = new SessionBoard(puzzle, board.toArray());
+        for (int i = logged.size() - 1; i >= 0; i--) {
+            int[] move = logged.get(i);
+            root.set(move[0], move[1], move[3]);
+        }
+        history = new MoveHistory(root);
+        for (int[] move : logged) {
+            history.record(move[0], move[1], move[2]);
+        }
+    }
+
     @Override
     public void deleteCurrentGame() throws IOException {
         ensureGameDirs();
 
-        Files.deleteIfExists(Paths.get(INCOMPLETE_SAVE_FILE));
-        Files.deleteIfExists(Paths.get(INCOMPLETE_LOG_FILE));
-        if (currentGameSourcePath != null && !currentGameSourcePath.isBlank()) {
+        Files.deleteIfExists(incompleteFile(SAVE_NAME));
+        Files.deleteIfExists(incompleteFile(LOG_NAME));
+        Files.deleteIfExists(incompleteFile(HISTORY_NAME));
+        // Archived games stay in the archive; only legacy per-game files are removed
+        if (currentGameSourcePath != null && !currentGameSourcePath.isBlank()
+                && !PuzzleArchive.isReference(currentGameSourcePath)) {
             Files.deleteIfExists(Paths.get(currentGameSourcePath));
         }
 
         enforceIncompleteFolderState();
 
-        currentGame = null;
-        solution = null;
-        isOriginal = null;
+        puzzle = null;
+        board = null;
+        candidates = null;
+        history = null;
         faults = 0;
         currentGameSourcePath = null;
     }
 
-    @Override
-    public int getRemainingCells() {
-        if (currentGame == null) {
-            return 0;
+    /**
+     * Remove a per-session save directory once its session is over; the shared slot stays.
+     */
+    void discardSessionFiles() throws IOException {
+        if (incompleteDir.equals(INCOMPLETE_DIR)) {
+            return;
         }
+        Files.deleteIfExists(incompleteFile(SAVE_NAME));
+        Files.deleteIfExists(incompleteFile(LOG_NAME));
+        Files.deleteIfExists(incompleteFile(HISTORY_NAME));
+        Files.deleteIfExists(Paths.get(incompleteDir));
+    }
 
-        int count = 0;
-        for (int i = 0; i < 9; i++) {
-            for (int j = 0; j < 9; j++) {
-                if (currentGame[i][j] == 0) {
-                    count++;
-                }
-            }
-        }
-        return count;
+    @Override
+    public int getRemainingCells() {
+        return board == null ? 0 : board.getEmptyCount();
     }
 
     @Override
@@ -681,13 +730,17 @@ public class Controller implements Controllable, Serializable {
         this.faults = Math.max(0, faults);
     }
 
+    @Override
     public boolean setCellValue(int row, int col, int value) {
-        if (isOriginal[row][col]) {
+        if (puzzle.isGiven(row, col)) {
             return false;
         }
 
-        currentGame[row][col] = value;
-        if (value != 0 && value != solution[row][col]) {
+        board.set(row, col, value);
+        history.record(row, col, value);
+        candidates.set(row, col, value);
+        // Without a stored solution (a resumed or loaded game) there is nothing to check against
+        if (value != 0 && puzzle.hasSolution() && value != puzzle.getSolution(row, col)) {
             faults++;
             if (faults >= 3) {
 
@@ -697,4 +750,81 @@ public class Controller implements Controllable, Serializable {
         return true;
     }
 
+    @Override
+    public boolean undoLastMove() {
+        if (history == null || !history.canUndo()) {
+            return false;
+        }
+        restoreCell(history.undo());
+        return true;
+    }
+
+    @Override
+    public boolean redoMove() {
+        if (history == null || !history.canRedo()) {
+            return false;
+        }
+        restoreCell(history.redo());
+        return true;
+    }
+
+    @Override
+    public boolean canUndo() {
+        return history != null && history.canUndo();
+    }
+
+    @Override
+    public boolean canRedo() {
+        return history != null && history.canRedo();
+    }
+
+    /**
+     * Move the board to any recorded version of the history, e.g. back to an earlier branch.
+     */
+    public void jumpTo(int version) {
+        int[] changed = history.diff(history.getCurrent(), version);
+        history.jumpTo(version);
+        for (int cell : changed) {
+            restoreCell(cell);
+        }
+    }
+
+    /**
+     * History of the current game, or null when no game is loaded.
+     */
+    public MoveHistory getHistory() {
+        return history;
+    }
+
+    private void restoreCell(int cell) {
+        int row = cell / 9;
+        int col = cell % 9;
+        int value = history.get(history.getCurrent(), row, col);
+        board.set(row, col, value);
+        candidates.set(row, col, value);
+    }
+
+    /**
+     * Live candidate state of the current game, updated on every move and undo.
+     */
+    public CandidateEngine getCandidateEngine() {
+        return candidates;
+    }
+
+    @Override
+    public int[] getCandidates() {
+        return candidates == null ? null : candidates.copyCandidates(null);
+    }
+
+    @Override
+    public Hint getHint() {
+        if (candidates == null) {
+            return null;
+        }
+        if (hints == null) {
+            hints = new HintEngine();
+        }
+        return hints.nextHint(candidates, puzzle.hasSolution() ? puzzle.solutionView() : null);
+    }
+
     }
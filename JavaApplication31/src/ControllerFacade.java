@@ -12,14 +12,14 @@ public class ControllerFacade {
     private final Verifier verifier;
     private final SolveStrategy solver;
     private final GameLogger logger;
-    private int[][] currentBoard;
-    private boolean[][] isOriginal;
+    private Puzzle puzzle;
     
     public ControllerFacade() {
         this.storage = new GameStorage();
         this.generator = new GameGenerator();
         this.verifier = new Verifier();
-        this.solver = new PermutationSolveStrategy();
+        // Same pipeline as Controller: the portfolio also solves boards that are not 5-hole deals
+        this.solver = new MeteredSolveStrategy(new CachingSolveStrategy(PortfolioSolveStrategy.standard()));
         this.logger = new GameLogger();
     }
     
@@ -32,12 +32,11 @@ public class ControllerFacade {
     public Game getGame(DifficultyEnum level) throws Exception {
         try {
             if (level == DifficultyEnum.INCOMPLETE) {
-                currentBoard = storage.loadCurrentGame();
+                puzzle = Puzzle.intern(storage.loadCurrentGame(), null);
             } else {
-                currentBoard = storage.loadGame(level);
+                puzzle = storage.loadPuzzle(level);
             }
-            isOriginal = createOriginalMask(currentBoard);
-            return new Game(currentBoard);
+            return new Game(puzzle.toArray());
         } catch (IOException e) {
             throw new Exception("Game not found for difficulty: " + level);
         }
@@ -104,12 +103,11 @@ public class ControllerFacade {
         
         try {
             if (difficulty == DifficultyEnum.INCOMPLETE) {
-                currentBoard = storage.loadCurrentGame();
+                puzzle = Puzzle.intern(storage.loadCurrentGame(), null);
             } else {
-                currentBoard = storage.loadGame(difficulty);
+                puzzle = storage.loadPuzzle(difficulty);
             }
-            isOriginal = createOriginalMask(currentBoard);
-            return deepCopyBoard(currentBoard);
+            return puzzle.toArray();
         } catch (IOException e) {
             throw new Exception("Game not found for difficulty: " + level);
         }
@@ -164,45 +162,58 @@ public class ControllerFacade {
         logger.logAction(userAction);
     }
     
+    /**
+     * Solved board for the current puzzle. Solved once, then kept on the interned puzzle
+     * so every facade on the same puzzle shares it. Null if there is no puzzle, or if it
+     * has no solution.
+     */
     public int[][] getSolution() {
-        return currentBoard != null ? deepCopyBoard(currentBoard) : null;
+        if (puzzle == null) {
+            return null;
+        }
+        if (!puzzle.hasSolution()) {
+            try {
+                puzzle = puzzle.withSolution(solver.solve(puzzle.toArray()));
+            } catch (Exception e) {
+                return null;
+            }
+        }
+        return puzzle.solutionArray();
     }
     
     public int[][] getCurrentGame() {
-        return currentBoard != null ? deepCopyBoard(currentBoard) : null;
+        return puzzle != null ? puzzle.toArray() : null;
+    }
+    
+    /**
+     * Read-only view of the current board; no copy is made.
+     */
+    public BoardView getBoard() {
+        return puzzle;
     }
     
     public boolean[][] getIsOriginal() {
-        return isOriginal != null ? deepCopyBooleanArray(isOriginal) : null;
+        return puzzle != null ? puzzle.givenMask() : null;
     }
     
     public void saveGame() throws IOException {
-        if (currentBoard != null) {
-            storage.saveCurrentGame(currentBoard);
+        if (puzzle != null) {
+            storage.saveCurrentGame(puzzle.toArray());
         }
     }
     
     public void loadGame() throws IOException, ClassNotFoundException {
-        currentBoard = storage.loadCurrentGame();
-        isOriginal = createOriginalMask(currentBoard);
+        puzzle = Puzzle.intern(storage.loadCurrentGame(), null);
     }
     
     public void deleteCurrentGame() throws IOException {
         storage.deleteCurrentGame();
-        currentBoard = null;
-        isOriginal = null;
+        puzzle = null;
         logger.clearLog();
     }
     
     public int getRemainingCells() {
-        if (currentBoard == null) return 0;
-        int count = 0;
-        for (int i = 0; i < 9; i++) {
-            for (int j = 0; j < 9; j++) {
-                if (currentBoard[i][j] == 0) count++;
-            }
-        }
-        return count;
+        return puzzle == null ? 0 : puzzle.getEmptyCount();
     }
     
     public int getFaults() {
@@ -223,24 +234,6 @@ public class ControllerFacade {
         return copy;
     }
     
-    private boolean[][] deepCopyBooleanArray(boolean[][] original) {
-        boolean[][] copy = new boolean[9][9];
-        for (int i = 0; i < 9; i++) {
-            System.arraycopy(original[i], 0, copy[i], 0, 9);
-        }
-        return copy;
-    }
-    
-    private boolean[][] createOriginalMask(int[][] board) {
-        boolean[][] mask = new boolean[9][9];
-        for (int i = 0; i < 9; i++) {
-            for (int j = 0; j < 9; j++) {
-                mask[i][j] = board[i][j] != 0;
-            }
-        }
-        return mask;
-    }
-    
     private int[] extractSolution(int[][] original, int[][] solved) {
         List<Integer> solution = new ArrayList<>();
         for (int i = 0; i < 9; i++) {
@@ -254,6 +247,6 @@ public class ControllerFacade {
     }
     
     private int[][] loadBoardFromFile(String filePath) throws IOException {
-        return new int[9][9]; // Placeholder
+        return BatchTool.readSourceBoard(java.nio.file.Paths.get(filePath));
     }
 }
@@ -0,0 +1,90 @@
+/**
+ * Open-addressed set of 64-bit fingerprints with linear probing.
+ *
+ * The top 32 bits of a fingerprint pick its home slot and only the low 32 bits are stored,
+ * so an entry costs 4 bytes instead of 8. A false match needs a different fingerprint with
+ * the same low half inside the probed run, roughly (run length / 2^32) per lookup.
+ * Slots cannot be rehashed without the full fingerprints, so growing is left to the owner
+ * (see PuzzleIndex). Not thread-safe.
+ */
+public class FingerprintSet {
+    private static final double LOAD_FACTOR = 0.8;
+
+    private final int[] tags;
+    private final int capacity;
+    private final int maxSize;
+    private int size;
+
+    public FingerprintSet(long expectedEntries) {
+        long slots = Math.max(16L, (long) Math.ceil(expectedEntries / LOAD_FACTOR));
+        if (slots > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Fingerprint set too large for " + expectedEntries + " entries");
+        }
+        this.capacity = (int) slots;
+        this.tags = new int[capacity];
+        this.maxSize = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int tag(long fingerprint) {
+        int t = (int) fingerprint;
+        return t == 0 ? 1 : t; // 0 marks an empty slot
+    }
+
+    private int home(long fingerprint) {
+        return (int) (((fingerprint >>> 32) * capacity) >>> 32);
+    }
+
+    public boolean contains(long fingerprint) {
+        int t = tag(fingerprint);
+        int i = home(fingerprint);
+        while (true) {
+            int slot = tags[i];
+            if (slot == 0) {
+                return false;
+            }
+            if (slot == t) {
+                return true;
+            }
+            if (++i == capacity) {
+                i = 0;
+            }
+        }
+    }
+
+    /**
+     * Insert; returns false if the fingerprint was already present.
+     */
+    public boolean add(long fingerprint) {
+        if (size >= maxSize) {
+            throw new IllegalStateException("Fingerprint set is full (" + size + " entries)");
+        }
+        int t = tag(fingerprint);
+        int i = home(fingerprint);
+        while (true) {
+            int slot = tags[i];
+            if (slot == 0) {
+                tags[i] = t;
+                size++;
+                return true;
+            }
+            if (slot == t) {
+                return false;
+            }
+            if (++i == capacity) {
+                i = 0;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size >= maxSize;
+    }
+
+    public long sizeInBytes() {
+        return (long) capacity * Integer.BYTES;
+    }
+}
@@ -1,16 +1,16 @@
-import java.util.List;
-
 /**
  * Generates Sudoku games of different difficulty levels from a solved board
  */
 public class GameGenerator {
+    private static final int MAX_ATTEMPTS = 8;
+    
     private final Verifier verifier;
-    private final RandomPairs randomPairs;
+    private final CellSampler sampler;
     private final GameStorage storage;
     
     public GameGenerator() {
         this.verifier = new Verifier();
-        this.randomPairs = new RandomPairs();
+        this.sampler = new CellSampler();
         this.storage = new GameStorage();
     }
     
@@ -24,17 +24,22 @@ public class GameGenerator {
             throw new Exception("Source solution is not valid: " + state);
         }
         
-        // Generate Easy level (remove 10 cells)
-        int[][] easyBoard = createDifficultyBoard(solvedBoard, 10);
-        storage.saveGame(DifficultyEnum.EASY, easyBoard);
-        
-        // Generate Medium level (remove 20 cells)
-        int[][] mediumBoard = createDifficultyBoard(solvedBoard, 20);
-        storage.saveGame(DifficultyEnum.MEDIUM, mediumBoard);
-        
-        // Generate Hard level (remove 25 cells)
-        int[][] hardBoard = createDifficultyBoard(solvedBoard, 25);
-        storage.saveGame(DifficultyEnum.HARD, hardBoard);
+        // Easy removes 10 cells, medium 20, hard 25
+        saveNewGame(DifficultyEnum.EASY, solvedBoard, 10);
+        saveNewGame(DifficultyEnum.MEDIUM, solvedBoard, 20);
+        saveNewGame(DifficultyEnum.HARD, solvedBoard, 25);
+    }
+    
+    /**
+     * Dig and store one game, redrawing when storage rejects it as a duplicate
+     */
+    private void saveNewGame(DifficultyEnum difficulty, int[][] solvedBoard, int cellsToRemove) throws Exception {
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            if (storage.saveGame(difficulty, createDifficultyBoard(solvedBoard, cellsToRemove), solvedBoard)) {
+                return;
+            }
+        }
+        throw new Exception("Could not generate a new " + difficulty + " game; every attempt was a duplicate");
     }
     
     /**
@@ -42,12 +47,11 @@ public class GameGenerator {
      */
     private int[][] createDifficultyBoard(int[][] solvedBoard, int cellsToRemove) {
         int[][] board = deepCopyBoard(solvedBoard);
-        List<int[]> positionsToRemove = randomPairs.generateDistinctPairs(cellsToRemove);
+        sampler.reset();
         
-        for (int[] pos : positionsToRemove) {
-            int row = pos[0];
-            int col = pos[1];
-            board[row][col] = 0; // Set to empty
+        for (int i = 0; i < cellsToRemove; i++) {
+            int cell = sampler.nextCell();
+            board[cell / 9][cell % 9] = 0; // Set to empty
         }
         
         return board;
@@ -7,8 +7,9 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 
 public class GameLauncherGUI extends JFrame {
-    private static final String CURRENT_SAVE_FILE = "sudoku_games" + File.separator + "incomplete" + File.separator + "game.txt";
-    private static final String SOURCE_FILE = "sudoku_games" + File.separator + "source.txt";
+    private static final long serialVersionUID = 1L;
+    private static final String CURRENT_SAVE_FILE = GameStorage.BASE_DIR + File.separator + "incomplete" + File.separator + "game.txt";
+    private static final String SOURCE_FILE = GameStorage.BASE_DIR + File.separator + "source.txt";
     private JLabel statusLabel;
     private JLabel sourceLabel;
     private JButton continueButton;
@@ -94,7 +95,20 @@ public class GameLauncherGUI extends JFrame {
         
         
         checkForSavedGame();
-        refreshSourceStatus();
+        if (Startup.LAZY) {
+            // Open first; reading and verifying source.txt happens off the event thread
+            sourceLabel.setText("Source: checking...");
+            sourceLabel.setForeground(new Color(90, 90, 90));
+            refreshSourceStatusInBackground();
+        } else {
+            refreshSourceStatus();
+        }
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowOpened(java.awt.event.WindowEvent e) {
+                Startup.mark("first-frame");
+            }
+        });
         
         add(mainPanel);
     }
@@ -174,27 +188,62 @@ public class GameLauncherGUI extends JFrame {
     }
 
     private void refreshSourceStatus() {
+        showSourceStatus(checkSource());
+    }
+
+    private void refreshSourceStatusInBackground() {
+        new SwingWorker<Object, Void>() {
+            @Override
+            protected Object doInBackground() {
+                return checkSource();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    showSourceStatus(get());
+                } catch (Exception e) {
+                    showSourceStatus(e);
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * State of source.txt: null if it does not exist, its GameState, or the exception that
+     * reading it raised. Touches no Swing state, so it can run on any thread.
+     */
+    private static Object checkSource() {
         try {
             Path source = Paths.get(SOURCE_FILE);
             if (!Files.exists(source)) {
-                sourceLabel.setText("Source: (none) — Please provide a source file");
-                sourceLabel.setForeground(new Color(90, 90, 90));
-                return;
-            }
-
-            int[][] board = readBoard(source);
-            GameState state = new Verifier().verifyState(board);
-            sourceLabel.setText("Source: " + SOURCE_FILE + " — " + state);
-            if (state == GameState.VALID) {
-                sourceLabel.setForeground(new Color(34, 139, 34));
-            } else if (state == GameState.INCOMPLETE) {
-                sourceLabel.setForeground(new Color(255, 140, 0));
-            } else {
-                sourceLabel.setForeground(new Color(178, 34, 34));
+                return null;
             }
+            return new Verifier().verifyState(readBoard(source));
         } catch (Exception e) {
+            return e;
+        }
+    }
+
+    private void showSourceStatus(Object status) {
+        if (status == null) {
+            sourceLabel.setText("Source: (none) — Please provide a source file");
+            sourceLabel.setForeground(new Color(90, 90, 90));
+            return;
+        }
+        if (status instanceof Exception) {
             sourceLabel.setText("Source: " + SOURCE_FILE + " — ERROR");
             sourceLabel.setForeground(new Color(178, 34, 34));
+            return;
+        }
+        GameState state = (GameState) status;
+        sourceLabel.setText("Source: " + SOURCE_FILE + " — " + state);
+        if (state == GameState.VALID) {
+            sourceLabel.setForeground(new Color(34, 139, 34));
+        } else if (state == GameState.INCOMPLETE) {
+            sourceLabel.setForeground(new Color(255, 140, 0));
+        } else {
+            sourceLabel.setForeground(new Color(178, 34, 34));
         }
     }
 
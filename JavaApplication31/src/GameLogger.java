@@ -1,31 +1,130 @@
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+/**
+ * Writes user actions to the shared RollingLog (sudoku_game.log plus compressed segments).
+ *
+ * Each logger has a random session id that is appended to its lines ("#" + hex) and
+ * recorded in the log's sparse index, so findActions and findSession read only the blocks
+ * that can match instead of the whole log. Lines written before sessions existed
+ * (second-precision time, no session) are still parsed.
+ */
 public class GameLogger {
-    private static final String LOG_FILE = "sudoku_game.log";
-    private SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    private static final Pattern LINE = Pattern.compile(
+        "\\[([0-9-]+ [0-9:]+(?:\\.\\d{3})?)\\] (\\w+): Cell\\[(\\d+)\\]\\[(\\d+)\\] = (\\d+)(?: #([0-9a-f]+))?");
+
+    // Created on first use: loading the locale data costs tens of milliseconds at startup
+    private SimpleDateFormat dateFormat;
+    private final long session;
+
+    public GameLogger() {
+        long id = 0;
+        while (id == 0) {
+            id = ThreadLocalRandom.current().nextLong();
+        }
+        this.session = id;
+    }
+
+    /**
+     * Id tagged onto every action this logger writes; never 0.
+     */
+    public long getSession() {
+        return session;
+    }
 
     public void logAction(UserAction action) throws IOException {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(LOG_FILE, true))) {
-            String timestamp = dateFormat.format(new Date(action.getTimestamp()));
-            String logEntry = String.format("[%s] %s: Cell[%d][%d] = %d%n", 
-                timestamp, 
-                action.getActionType(), 
-                action.getRow(), 
-                action.getCol(), 
-                action.getValue());
-            writer.write(logEntry);
+        long start = Metrics.start();
+        try {
+            appendEntry(action);
+        } finally {
+            Metrics.stop(Metrics.LOG_WRITE, start);
+        }
+    }
+
+    private void appendEntry(UserAction action) throws IOException {
+        String timestamp = dateFormat().format(new Date(action.getTimestamp()));
+        String logEntry = String.format("[%s] %s: Cell[%d][%d] = %d #%s%n", 
+            timestamp, 
+            action.getActionType(), 
+            action.getRow(), 
+            action.getCol(), 
+            action.getValue(),
+            Long.toHexString(session));
+        RollingLog.shared().append(logEntry, action.getTimestamp(), session);
+    }
+
+    private SimpleDateFormat dateFormat() {
+        if (dateFormat == null) {
+            dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        }
+        return dateFormat;
+    }
+
+    /**
+     * Logged actions with from <= timestamp <= to (epoch millis), oldest segment first.
+     */
+    public List<UserAction> findActions(long from, long to) throws IOException {
+        return find(from, to, 0);
+    }
+
+    /**
+     * Every logged action of one session (see getSession).
+     */
+    public List<UserAction> findSession(long session) throws IOException {
+        if (session == 0) {
+            throw new IllegalArgumentException("Session id must not be 0");
+        }
+        return find(Long.MIN_VALUE, Long.MAX_VALUE, session);
+    }
+
+    private List<UserAction> find(long from, long to, long session) throws IOException {
+        List<UserAction> actions = new ArrayList<>();
+        String tag = " #" + Long.toHexString(session);
+        for (String line : RollingLog.shared().read(from, to, session)) {
+            // Blocks shared with other sessions: skip their lines before the costly parse
+            if (session != 0 && !line.endsWith(tag)) {
+                continue;
+            }
+            UserAction action = parse(line);
+            if (action != null && action.getTimestamp() >= from && action.getTimestamp() <= to
+                    && (session == 0 || action.getSession() == session)) {
+                actions.add(action);
+            }
+        }
+        return actions;
+    }
+
+    /**
+     * The action written on line, or null if the line is not an action entry.
+     */
+    UserAction parse(String line) {
+        Matcher m = LINE.matcher(line);
+        if (!m.matches()) {
+            return null;
+        }
+        String time = m.group(1);
+        long timestamp;
+        try {
+            timestamp = (time.length() > 19 ? dateFormat() : new SimpleDateFormat("yyyy-MM-dd HH:mm:ss")).parse(time).getTime();
+        } catch (ParseException e) {
+            return null;
         }
+        long id = m.group(6) == null ? 0 : Long.parseUnsignedLong(m.group(6), 16);
+        return new UserAction(m.group(2), Integer.parseInt(m.group(3)), Integer.parseInt(m.group(4)),
+            Integer.parseInt(m.group(5)), timestamp, id);
     }
     
+    /**
+     * Delete the active log and every archived segment.
+     */
     public void clearLog() throws IOException {
-        Path logPath = Paths.get(LOG_FILE);
-        Files.deleteIfExists(logPath);
+        RollingLog.shared().clear();
     }
-}
\ No newline at end of file
+}
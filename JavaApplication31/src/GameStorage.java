@@ -3,17 +3,43 @@ import java.nio.file.*;
 import java.util.Arrays;
 
 /**
- * Handles storage and retrieval of Sudoku games with different difficulty levels
+ * Handles storage and retrieval of Sudoku games with different difficulty levels.
+ * Games saved together with their solution go to a per-difficulty PuzzleArchive;
+ * games saved without one are written as individual .dat files as before.
  */
 public class GameStorage {
-    private static final String BASE_DIR = "sudoku_games";
+    /** Root of every game file, "sudoku_games" unless -Dsudoku.dir says otherwise. */
+    public static final String BASE_DIR = System.getProperty("sudoku.dir", "sudoku_games");
     private static final String EASY_DIR = BASE_DIR + "/easy";
     private static final String MEDIUM_DIR = BASE_DIR + "/medium";
     private static final String HARD_DIR = BASE_DIR + "/hard";
     private static final String CURRENT_DIR = BASE_DIR + "/current";
     
+    private final PuzzleIndex index;
+    
     public GameStorage() {
         createDirectories();
+        this.index = openSharedIndex();
+    }
+    
+    /**
+     * Storage that checks new games against the given index; null disables duplicate checks.
+     */
+    public GameStorage(PuzzleIndex index) {
+        createDirectories();
+        this.index = index;
+    }
+    
+    private static PuzzleIndex openSharedIndex() {
+        if (!PuzzleIndex.enabled()) {
+            return null;
+        }
+        try {
+            return PuzzleIndex.shared();
+        } catch (IOException e) {
+            System.err.println("Error opening puzzle index: " + e.getMessage());
+            return null;
+        }
     }
     
     private void createDirectories() {
@@ -27,10 +53,67 @@ public class GameStorage {
         }
     }
     
-    public void saveGame(DifficultyEnum difficulty, int[][] board) throws IOException {
-        String dir = getDirectoryForDifficulty(difficulty);
-        String filename = dir + "/game_" + System.currentTimeMillis() + ".dat";
-        saveBoardToFile(board, filename);
+    /**
+     * Store a new game. Returns false without writing anything if the puzzle is already indexed.
+     * The puzzle is indexed only once it is written, so a failed write leaves no phantom entry.
+     */
+    public boolean saveGame(DifficultyEnum difficulty, int[][] board) throws IOException {
+        if (index != null && index.contains(board)) {
+            return false;
+        }
+        Path file = createGameFile(getDirectoryForDifficulty(difficulty));
+        saveBoardToFile(board, file.toString());
+        if (index != null) {
+            index.add(board);
+        }
+        return true;
+    }
+    
+    /**
+     * Create game_<millis>.dat, moving on to the next millisecond value while the name is
+     * taken, so games saved in the same millisecond (or by two processes) never overwrite
+     * each other and the names still sort oldest first.
+     */
+    private static Path createGameFile(String dir) throws IOException {
+        for (long stamp = System.currentTimeMillis(); ; stamp++) {
+            try {
+                return Files.createFile(Paths.get(dir, "game_" + stamp + ".dat"));
+            } catch (FileAlreadyExistsException e) {
+                // Taken; try the next name
+            }
+        }
+    }
+    
+    /**
+     * Store a new game in the difficulty's archive (14 bytes per puzzle, the solution grid once).
+     * Returns false without writing anything if the puzzle is already indexed; as above, it is
+     * indexed only after the append succeeds.
+     */
+    public boolean saveGame(DifficultyEnum difficulty, int[][] board, int[][] solution) throws IOException {
+        if (index != null && index.contains(board)) {
+            return false;
+        }
+        archiveFor(difficulty).append(board, solution);
+        if (index != null) {
+            index.add(board);
+        }
+        return true;
+    }
+    
+    /**
+     * The difficulty's archive, created if missing.
+     */
+    PuzzleArchive archiveFor(DifficultyEnum difficulty) throws IOException {
+        return PuzzleArchive.open(archivePath(difficulty));
+    }
+    
+    private Path archivePath(DifficultyEnum difficulty) {
+        return Paths.get(getDirectoryForDifficulty(difficulty), PuzzleArchive.DEFAULT_NAME);
+    }
+    
+    private PuzzleArchive existingArchive(DifficultyEnum difficulty) throws IOException {
+        Path path = archivePath(difficulty);
+        return PuzzleArchive.exists(path) ? PuzzleArchive.open(path) : null;
     }
     
     public void saveCurrentGame(int[][] board) throws IOException {
@@ -40,6 +123,10 @@ public class GameStorage {
     }
     
     public int[][] loadGame(DifficultyEnum difficulty) throws IOException {
+        PuzzleArchive archive = existingArchive(difficulty);
+        if (archive != null && archive.size() > 0) {
+            return archive.getPuzzle(0);
+        }
         String dir = getDirectoryForDifficulty(difficulty);
         File[] games = new File(dir).listFiles((d, name) -> name.endsWith(".dat"));
         if (games == null || games.length == 0) {
@@ -49,6 +136,43 @@ public class GameStorage {
         return loadBoardFromFile(games[0].getPath());
     }
     
+    /**
+     * Same game loadGame returns, as an interned Puzzle; the solution is included when the
+     * game comes from the archive.
+     */
+    public Puzzle loadPuzzle(DifficultyEnum difficulty) throws IOException {
+        PuzzleArchive archive = existingArchive(difficulty);
+        if (archive != null && archive.size() > 0) {
+            return archive.getInterned(0);
+        }
+        return Puzzle.intern(loadGame(difficulty), null);
+    }
+    
+    /**
+     * Load every stored game for a difficulty: archived games in order, then .dat files
+     * oldest file name first
+     */
+    public java.util.List<int[][]> loadAllGames(DifficultyEnum difficulty) throws IOException {
+        String dir = getDirectoryForDifficulty(difficulty);
+        File[] games = new File(dir).listFiles((d, name) -> name.endsWith(".dat"));
+        java.util.List<int[][]> boards = new java.util.ArrayList<>();
+        PuzzleArchive archive = existingArchive(difficulty);
+        if (archive != null) {
+            long size = archive.size();
+            for (long i = 0; i < size; i++) {
+                boards.add(archive.getPuzzle(i));
+            }
+        }
+        if (games == null) {
+            return boards;
+        }
+        Arrays.sort(games);
+        for (File game : games) {
+            boards.add(loadBoardFromFile(game.getPath()));
+        }
+        return boards;
+    }
+    
     public int[][] loadCurrentGame() throws IOException {
         String filename = CURRENT_DIR + "/current_game.dat";
         File file = new File(filename);
@@ -93,6 +217,15 @@ public class GameStorage {
     private boolean hasGamesInDirectory(String dir) {
         File directory = new File(dir);
         if (!directory.exists()) return false;
+        if (PuzzleArchive.exists(Paths.get(dir, PuzzleArchive.DEFAULT_NAME))) {
+            try {
+                if (PuzzleArchive.open(Paths.get(dir, PuzzleArchive.DEFAULT_NAME)).size() > 0) {
+                    return true;
+                }
+            } catch (IOException e) {
+                System.err.println("Error reading archive in " + dir + ": " + e.getMessage());
+            }
+        }
         File[] games = directory.listFiles((d, name) -> name.endsWith(".dat"));
         return games != null && games.length > 0;
     }
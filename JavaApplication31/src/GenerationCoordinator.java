@@ -0,0 +1,384 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Coordinator for sharded generation. It hands out leases (a difficulty plus a range of
+ * puzzle indexes) to GenerationWorker processes over loopback TCP, and merges the packed
+ * puzzles they return into the output file and/or the store.
+ *
+ *   coordinator --source FILE --count N [--difficulty E|M|H|all] [--seed S] [--lease L]
+ *               [--port P] [--spawn K] [--timeout SECONDS] [--out FILE] [--store] [--dedup [FILE]] [--minimal]
+ *
+ * --minimal digs irreducible puzzles as in batch generate (difficulty H unless given).
+ * Puzzle i of a difficulty uses the same seed as in batch generate, so a given --seed yields
+ * the same set of puzzles however the work is split; only the output order varies.
+ * If a worker disconnects or exceeds --timeout, its lease goes back to the front of the queue.
+ * Results for a lease that has already completed are ignored. A merge that fails part way
+ * (a full disk, say) requeues the lease too; workers are deterministic, so the retry returns
+ * the same puzzles and merging resumes at the row and step where it stopped, without
+ * dropping puzzles as duplicates of themselves or writing a row twice. --spawn starts K
+ * local workers with this JVM's classpath.
+ */
+public class GenerationCoordinator implements AutoCloseable {
+    static final int MAGIC = 0x5344_4743; // "SDGC"
+    static final int VERSION = 1;
+    static final int MSG_LEASE = 1;
+    static final int MSG_DONE = 2;
+    static final int MSG_RESULT = 3;
+
+    static final class Lease {
+        final long id;
+        final DifficultyEnum difficulty;
+        final long first;
+        final int count;
+
+        Lease(long id, DifficultyEnum difficulty, long first, int count) {
+            this.id = id;
+            this.difficulty = difficulty;
+            this.first = first;
+            this.count = count;
+        }
+    }
+
+    /**
+     * How far a failed merge of one lease got: rows before row are done, and for row itself
+     * whether it passed the duplicate check and has been written to --out and to the store.
+     */
+    private static final class MergeProgress {
+        int row;
+        boolean checked;
+        boolean written;
+        boolean stored;
+
+        void nextRow() {
+            row++;
+            checked = false;
+            written = false;
+            stored = false;
+        }
+    }
+
+    private final Map<String, String> options;
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final byte[] source = new byte[BoardCodec.PACKED_BYTES];
+    private final int[][] solution;
+    private final long seed;
+    private final int timeoutMillis;
+    private final boolean minimal;
+
+    // Lease bookkeeping, guarded by lock
+    private final Object lock = new Object();
+    private final ArrayDeque<Lease> pending = new ArrayDeque<>();
+    private final Set<Long> completed = new HashSet<>();
+    private int outstanding;
+    private long reassigned;
+
+    // Merge side, guarded by mergeLock
+    private final Object mergeLock = new Object();
+    private PuzzleFileWriter out;
+    private GameStorage storage;
+    private PuzzleIndex dedup;
+    private long merged;
+    private long duplicates;
+    private final Map<Long, MergeProgress> partial = new HashMap<>();
+
+    GenerationCoordinator(Map<String, String> options) throws IOException {
+        this.options = options;
+        int[][] board = BatchTool.readSourceBoard(Paths.get(required("source")));
+        GameState state = new Verifier().verifyState(board);
+        if (state != GameState.VALID) {
+            throw new IllegalArgumentException("Source solution must be VALID. Found: " + state);
+        }
+        BoardCodec.pack(board, source, 0);
+        this.solution = board;
+        this.seed = options.containsKey("seed") ? Long.parseLong(options.get("seed")) : new CellSampler().getSeed();
+        this.timeoutMillis = Integer.parseInt(options.getOrDefault("timeout", "60")) * 1000;
+        this.minimal = options.containsKey("minimal");
+
+        int count = Integer.parseInt(required("count"));
+        int leaseSize = Integer.parseInt(options.getOrDefault("lease", "1000"));
+        long id = 0;
+        for (DifficultyEnum difficulty : BatchTool.difficulties(options.getOrDefault("difficulty", minimal ? "H" : "all"))) {
+            for (long first = 0; first < count; first += leaseSize) {
+                pending.add(new Lease(id++, difficulty, first, (int) Math.min(leaseSize, count - first)));
+            }
+        }
+        outstanding = pending.size();
+
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+            Integer.parseInt(options.getOrDefault("port", "0"))), 256);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = BatchTool.parseOptions(args, 0);
+        try (GenerationCoordinator coordinator = new GenerationCoordinator(options)) {
+            coordinator.run();
+        }
+    }
+
+    private String required(String key) {
+        String value = options.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing --" + key);
+        }
+        return value;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    void run() throws Exception {
+        boolean store = options.containsKey("store");
+        String outPath = options.get("out");
+        out = outPath == null ? null : new PuzzleFileWriter(Paths.get(outPath));
+        storage = store ? new GameStorage(null) : null;
+        dedup = openIndex(store);
+        System.out.println("coordinator: port " + getPort() + ", seed " + seed + ", " + outstanding + " leases");
+
+        long start = System.nanoTime();
+        Thread acceptor = Thread.ofVirtual().start(this::acceptLoop);
+        List<Process> workers = spawnWorkers(Integer.parseInt(options.getOrDefault("spawn", "0")));
+
+        synchronized (lock) {
+            while (outstanding > 0) {
+                lock.wait();
+            }
+        }
+        serverSocket.close();
+        acceptor.join();
+        for (Process worker : workers) {
+            worker.waitFor();
+        }
+
+        synchronized (mergeLock) {
+            if (out != null) {
+                out.close();
+            }
+            if (dedup != null) {
+                if (isPrivateIndex()) {
+                    dedup.close();
+                } else {
+                    dedup.flush();
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("coordinator: %d puzzles, %d duplicates, %d leases reassigned, %.2fs, %.0f puzzles/s%n",
+            merged, duplicates, reassigned, seconds, merged / seconds);
+    }
+
+    private boolean isPrivateIndex() {
+        String value = options.get("dedup");
+        return value != null && !value.equals("true");
+    }
+
+    private PuzzleIndex openIndex(boolean store) throws IOException {
+        String value = options.get("dedup");
+        if (value == null) {
+            return store && PuzzleIndex.enabled() ? PuzzleIndex.shared() : null;
+        }
+        if (value.equals("true")) {
+            return PuzzleIndex.shared();
+        }
+        return new PuzzleIndex(Paths.get(value), 3L * Integer.parseInt(required("count")),
+            Boolean.parseBoolean(System.getProperty("sudoku.dedup.canonical", "true")));
+    }
+
+    private List<Process> spawnWorkers(int count) throws IOException {
+        List<Process> workers = new ArrayList<>();
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        for (int i = 0; i < count; i++) {
+            workers.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                "Main", "worker", "--port", String.valueOf(getPort()), "--name", "local-" + i)
+                .inheritIO()
+                .start());
+        }
+        return workers;
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                executor.submit(() -> serve(socket));
+            } catch (IOException e) {
+                // Closed once every lease has completed
+            }
+        }
+    }
+
+    /**
+     * One worker connection: lease, wait for the result, repeat. Any failure puts the
+     * current lease back in the queue and drops the connection.
+     */
+    private void serve(Socket socket) {
+        Lease lease = null;
+        String name = "?";
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream outStream = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(timeoutMillis);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("bad handshake");
+            }
+            name = in.readUTF();
+            boolean fingerprints = dedup != null;
+
+            while ((lease = nextLease()) != null) {
+                outStream.writeByte(MSG_LEASE);
+                outStream.writeLong(lease.id);
+                outStream.writeByte(lease.difficulty.ordinal());
+                outStream.writeInt(minimal ? BatchTool.MINIMAL : BatchTool.holesFor(lease.difficulty));
+                outStream.writeLong(BatchTool.difficultySeed(seed, lease.difficulty));
+                outStream.writeLong(lease.first);
+                outStream.writeInt(lease.count);
+                outStream.writeByte(fingerprints ? (dedup.isCanonical() ? 2 : 1) : 0);
+                outStream.write(source);
+                outStream.flush();
+
+                if (in.readByte() != MSG_RESULT || in.readLong() != lease.id || in.readInt() != lease.count) {
+                    throw new IOException("unexpected result for lease " + lease.id);
+                }
+                byte[] packed = new byte[lease.count * BoardCodec.PACKED_BYTES];
+                in.readFully(packed);
+                long[] keys = null;
+                if (fingerprints) {
+                    keys = new long[lease.count];
+                    for (int i = 0; i < keys.length; i++) {
+                        keys[i] = in.readLong();
+                    }
+                }
+                if (claim(lease)) {
+                    try {
+                        merge(lease, packed, keys);
+                    } catch (IOException e) {
+                        unclaim(lease);
+                        throw e;
+                    }
+                    finish();
+                }
+                lease = null;
+            }
+            outStream.writeByte(MSG_DONE);
+            outStream.flush();
+        } catch (Exception e) {
+            if (lease != null) {
+                String reason = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+                System.err.println("coordinator: worker " + name + " lost (" + reason + "), reassigning lease " + lease.id);
+                requeue(lease);
+            }
+        }
+    }
+
+    /**
+     * Next lease to hand out, waiting while others are still in flight; null once all are done.
+     */
+    private Lease nextLease() throws InterruptedException {
+        synchronized (lock) {
+            while (pending.isEmpty() && outstanding > 0) {
+                lock.wait();
+            }
+            return outstanding == 0 ? null : pending.poll();
+        }
+    }
+
+    private void requeue(Lease lease) {
+        synchronized (lock) {
+            if (!completed.contains(lease.id)) {
+                pending.addFirst(lease);
+                reassigned++;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Claim a delivered lease for merging; false if another worker already delivered it.
+     */
+    private boolean claim(Lease lease) {
+        synchronized (lock) {
+            if (!completed.add(lease.id)) {
+                return false;
+            }
+            pending.remove(lease);
+            return true;
+        }
+    }
+
+    private void unclaim(Lease lease) {
+        synchronized (lock) {
+            completed.remove(lease.id);
+        }
+    }
+
+    /**
+     * Count a claimed lease as merged; the last one releases run().
+     */
+    private void finish() {
+        synchronized (lock) {
+            outstanding--;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Merge a claimed lease row by row. A row's fingerprint goes into the index only after
+     * the row is written, and progress is kept until the whole lease is in, so a retry after
+     * an IOException carries on from the first step that did not complete.
+     */
+    private void merge(Lease lease, byte[] packed, long[] keys) throws IOException {
+        synchronized (mergeLock) {
+            MergeProgress progress = partial.computeIfAbsent(lease.id, id -> new MergeProgress());
+            for (; progress.row < lease.count; progress.nextRow()) {
+                int i = progress.row;
+                if (dedup != null && !progress.checked && dedup.contains(keys[i])) {
+                    duplicates++;
+                    continue;
+                }
+                progress.checked = true;
+                int[][] board = BoardCodec.unpack(packed, i * BoardCodec.PACKED_BYTES);
+                if (out != null && !progress.written) {
+                    out.write(board);
+                    progress.written = true;
+                }
+                if (storage != null && !progress.stored) {
+                    storage.saveGame(lease.difficulty, board, solution);
+                    progress.stored = true;
+                }
+                if (dedup != null) {
+                    dedup.add(keys[i]);
+                }
+                merged++;
+            }
+            partial.remove(lease.id);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,103 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Map;
+
+/**
+ * Worker side of sharded generation. It connects to a GenerationCoordinator, digs every
+ * puzzle of each lease with Controller.removeNumbers (removeToMinimal for minimal leases), and streams the results back packed.
+ * Runs until the coordinator says it is done or goes away.
+ *
+ *   worker [--host H] --port P [--name NAME]
+ */
+public class GenerationWorker {
+    private final Controller generator = new Controller();
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = BatchTool.parseOptions(args, 0);
+        String host = options.getOrDefault("host", "127.0.0.1");
+        String port = options.get("port");
+        if (port == null) {
+            throw new IllegalArgumentException("Missing --port");
+        }
+        String name = options.getOrDefault("name", String.valueOf(ProcessHandle.current().pid()));
+        long leases = new GenerationWorker().run(host, Integer.parseInt(port), name);
+        System.out.println("worker " + name + ": " + leases + " leases");
+    }
+
+    /**
+     * Serve leases until told to stop; returns how many were completed.
+     */
+    long run(String host, int port, String name) throws IOException {
+        long leases = 0;
+        try (Socket socket = new Socket(host, port);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16))) {
+            socket.setTcpNoDelay(true);
+            out.writeInt(GenerationCoordinator.MAGIC);
+            out.writeInt(GenerationCoordinator.VERSION);
+            out.writeUTF(name);
+            out.flush();
+
+            byte[] source = new byte[BoardCodec.PACKED_BYTES];
+            while (true) {
+                int type;
+                try {
+                    type = in.readByte();
+                } catch (EOFException e) {
+                    return leases;
+                }
+                if (type == GenerationCoordinator.MSG_DONE) {
+                    return leases;
+                }
+                if (type != GenerationCoordinator.MSG_LEASE) {
+                    throw new IOException("Unexpected message type " + type);
+                }
+                long id = in.readLong();
+                in.readByte(); // difficulty, informational
+                int holes = in.readInt();
+                long difficultySeed = in.readLong();
+                long first = in.readLong();
+                int count = in.readInt();
+                int fingerprintMode = in.readByte();
+                in.readFully(source);
+
+                int[][] solved = BoardCodec.unpack(source, 0);
+                byte[] packed = new byte[count * BoardCodec.PACKED_BYTES];
+                long[] keys = new long[count];
+                int[][] board = new int[9][9];
+                for (int i = 0; i < count; i++) {
+                    for (int r = 0; r < 9; r++) {
+                        System.arraycopy(solved[r], 0, board[r], 0, 9);
+                    }
+                    long seed = BatchTool.puzzleSeed(difficultySeed, first + i);
+                    if (holes == BatchTool.MINIMAL) {
+                        generator.removeToMinimal(board, seed);
+                    } else {
+                        generator.removeNumbers(board, holes, seed);
+                    }
+                    BoardCodec.pack(board, packed, i * BoardCodec.PACKED_BYTES);
+                    if (fingerprintMode != 0) {
+                        keys[i] = PuzzleIndex.fingerprint(board, fingerprintMode == 2);
+                    }
+                }
+
+                out.writeByte(GenerationCoordinator.MSG_RESULT);
+                out.writeLong(id);
+                out.writeInt(count);
+                out.write(packed);
+                if (fingerprintMode != 0) {
+                    for (long key : keys) {
+                        out.writeLong(key);
+                    }
+                }
+                out.flush();
+                leases++;
+            }
+        }
+    }
+}
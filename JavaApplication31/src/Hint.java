@@ -0,0 +1,39 @@
+/**
+ * One hint for the live game: the cell to fill (or fix) and the technique that justifies it.
+ */
+public class Hint {
+    public enum Technique {
+        /** A player entry disagrees with the solution; value is the correct digit. */
+        MISTAKE,
+        NAKED_SINGLE,
+        HIDDEN_SINGLE,
+        /** A single that appears only after pointing/claiming eliminations. */
+        LOCKED_CANDIDATES,
+        /** A single that appears only after naked-pair eliminations. */
+        NAKED_PAIR,
+        /** No logical step found within the supported techniques; taken from the solution. */
+        SOLUTION
+    }
+
+    private final int row;
+    private final int col;
+    private final int value;
+    private final Technique technique;
+
+    public Hint(int row, int col, int value, Technique technique) {
+        this.row = row;
+        this.col = col;
+        this.value = value;
+        this.technique = technique;
+    }
+
+    public int getRow() { return row; }
+    public int getCol() { return col; }
+    public int getValue() { return value; }
+    public Technique getTechnique() { return technique; }
+
+    @Override
+    public String toString() {
+        return String.format("%s: Cell[%d][%d] = %d", technique, row, col, value);
+    }
+}
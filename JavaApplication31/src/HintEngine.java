@@ -0,0 +1,202 @@
+/**
+ * Finds the next logically deducible placement from the live candidate state.
+ *
+ * Works on a scratch copy of CandidateEngine's 81 masks, so a hint never runs a full solve:
+ * naked and hidden singles first, then pointing/claiming and naked-pair eliminations until a
+ * single appears or nothing changes. Each pass is a handful of scans over 27 units, well under
+ * a millisecond on any board. Not thread-safe; keep one per game session.
+ */
+public class HintEngine {
+    private static final int[][] UNITS = new int[27][9]; // rows 0-8, columns 9-17, boxes 18-26
+
+    static {
+        for (int i = 0; i < 81; i++) {
+            int r = CandidateEngine.ROW[i];
+            int c = CandidateEngine.COL[i];
+            int b = CandidateEngine.BOX[i];
+            UNITS[r][c] = i;
+            UNITS[9 + c][r] = i;
+            UNITS[18 + b][(r % 3) * 3 + c % 3] = i;
+        }
+    }
+
+    private final int[] masks = new int[81];
+
+    /**
+     * Next hint, or null when the board is full. A wrong player entry is reported first
+     * (as MISTAKE) when the solution is known, since every deduction after it is unsound.
+     */
+    public Hint nextHint(CandidateEngine engine, BoardView solution) {
+        if (engine.getEmptyCount() == 0 && solution == null) {
+            return null;
+        }
+        if (solution != null) {
+            for (int i = 0; i < 81; i++) {
+                int v = engine.getValue(i / 9, i % 9);
+                if (v != 0 && v != solution.get(i / 9, i % 9)) {
+                    return new Hint(i / 9, i % 9, solution.get(i / 9, i % 9), Hint.Technique.MISTAKE);
+                }
+            }
+        }
+        if (engine.getEmptyCount() == 0) {
+            return null;
+        }
+
+        engine.copyCandidates(masks);
+        Hint.Technique level = null;
+        while (true) {
+            Hint hint = findSingle(level);
+            if (hint != null) {
+                return hint;
+            }
+            if (lockedCandidates()) {
+                level = raise(level, Hint.Technique.LOCKED_CANDIDATES);
+            } else if (nakedPairs()) {
+                level = raise(level, Hint.Technique.NAKED_PAIR);
+            } else {
+                break;
+            }
+        }
+
+        if (solution == null) {
+            return null;
+        }
+        // Beyond the supported techniques: reveal the most constrained empty cell
+        int best = -1;
+        int bestCount = 10;
+        for (int i = 0; i < 81; i++) {
+            if (engine.getValue(i / 9, i % 9) == 0) {
+                int count = Integer.bitCount(engine.candidates(i / 9, i % 9));
+                if (count < bestCount) {
+                    best = i;
+                    bestCount = count;
+                }
+            }
+        }
+        return new Hint(best / 9, best % 9, solution.get(best / 9, best % 9), Hint.Technique.SOLUTION);
+    }
+
+    private static Hint.Technique raise(Hint.Technique current, Hint.Technique next) {
+        return current == null || next.ordinal() > current.ordinal() ? next : current;
+    }
+
+    private Hint findSingle(Hint.Technique level) {
+        for (int i = 0; i < 81; i++) {
+            int m = masks[i];
+            if (m != 0 && (m & (m - 1)) == 0) {
+                return new Hint(i / 9, i % 9, Integer.numberOfTrailingZeros(m) + 1,
+                    level == null ? Hint.Technique.NAKED_SINGLE : level);
+            }
+        }
+        for (int[] unit : UNITS) {
+            int once = 0;
+            int twice = 0;
+            for (int cell : unit) {
+                int m = masks[cell];
+                twice |= once & m;
+                once |= m;
+            }
+            int exactlyOnce = once & ~twice;
+            if (exactlyOnce == 0) {
+                continue;
+            }
+            int bit = exactlyOnce & -exactlyOnce;
+            for (int cell : unit) {
+                if ((masks[cell] & bit) != 0) {
+                    return new Hint(cell / 9, cell % 9, Integer.numberOfTrailingZeros(bit) + 1,
+                        level == null ? Hint.Technique.HIDDEN_SINGLE : level);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Pointing (a digit confined to one line within a box) and claiming (a digit confined
+     * to one box within a line). Returns true if any candidate was eliminated.
+     */
+    private boolean lockedCandidates() {
+        boolean changed = false;
+        for (int box = 0; box < 9; box++) {
+            for (int bit = 1; bit <= CandidateEngine.ALL; bit <<= 1) {
+                int rowsSeen = 0;
+                int colsSeen = 0;
+                for (int cell : UNITS[18 + box]) {
+                    if ((masks[cell] & bit) != 0) {
+                        rowsSeen |= 1 << CandidateEngine.ROW[cell];
+                        colsSeen |= 1 << CandidateEngine.COL[cell];
+                    }
+                }
+                if (rowsSeen != 0 && (rowsSeen & (rowsSeen - 1)) == 0) {
+                    changed |= eliminateOutsideBox(UNITS[Integer.numberOfTrailingZeros(rowsSeen)], box, bit);
+                }
+                if (colsSeen != 0 && (colsSeen & (colsSeen - 1)) == 0) {
+                    changed |= eliminateOutsideBox(UNITS[9 + Integer.numberOfTrailingZeros(colsSeen)], box, bit);
+                }
+            }
+        }
+        for (int line = 0; line < 18; line++) {
+            for (int bit = 1; bit <= CandidateEngine.ALL; bit <<= 1) {
+                int boxesSeen = 0;
+                for (int cell : UNITS[line]) {
+                    if ((masks[cell] & bit) != 0) {
+                        boxesSeen |= 1 << CandidateEngine.BOX[cell];
+                    }
+                }
+                if (boxesSeen != 0 && (boxesSeen & (boxesSeen - 1)) == 0) {
+                    int box = Integer.numberOfTrailingZeros(boxesSeen);
+                    for (int cell : UNITS[18 + box]) {
+                        if (!inLine(cell, line) && (masks[cell] & bit) != 0) {
+                            masks[cell] &= ~bit;
+                            changed = true;
+                        }
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+
+    private boolean eliminateOutsideBox(int[] line, int box, int bit) {
+        boolean changed = false;
+        for (int cell : line) {
+            if (CandidateEngine.BOX[cell] != box && (masks[cell] & bit) != 0) {
+                masks[cell] &= ~bit;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private static boolean inLine(int cell, int line) {
+        return line < 9 ? CandidateEngine.ROW[cell] == line : CandidateEngine.COL[cell] == line - 9;
+    }
+
+    /**
+     * Two cells of a unit sharing the same two candidates remove those digits from the rest.
+     */
+    private boolean nakedPairs() {
+        boolean changed = false;
+        for (int[] unit : UNITS) {
+            for (int i = 0; i < 9; i++) {
+                int pair = masks[unit[i]];
+                if (Integer.bitCount(pair) != 2) {
+                    continue;
+                }
+                for (int j = i + 1; j < 9; j++) {
+                    if (masks[unit[j]] != pair) {
+                        continue;
+                    }
+                    for (int k = 0; k < 9; k++) {
+                        int cell = unit[k];
+                        if (k != i && k != j && (masks[cell] & pair) != 0) {
+                            masks[cell] &= ~pair;
+                            changed = true;
+                        }
+                    }
+                }
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,130 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free log-linear latency histogram (HDR style): exact below 32ns, then 16 linear
+ * sub-buckets per power of two, so every reported value is within ~6% of the recorded one.
+ * Recording is one array increment plus two adders; values are nanoseconds.
+ */
+public class LatencyHistogram implements LatencyHistogramMBean {
+    private static final int LINEAR_LIMIT = 32;
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int FIRST_EXPONENT = 5;
+    private static final int BUCKETS = LINEAR_LIMIT + (63 - FIRST_EXPONENT) * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(indexOf(nanos));
+        count.increment();
+        sum.add(nanos);
+        if (nanos > max.get()) {
+            max.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int mantissa = (int) (value >>> (msb - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (msb - FIRST_EXPONENT) * SUB_BUCKETS + mantissa;
+    }
+
+    /**
+     * Highest value that falls into the given bucket.
+     */
+    static long upperBoundOf(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int offset = index - LINEAR_LIMIT;
+        int msb = offset / SUB_BUCKETS + FIRST_EXPONENT;
+        long mantissa = offset % SUB_BUCKETS;
+        return ((SUB_BUCKETS + mantissa + 1) << (msb - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * Value at the given percentile (0-100) in nanoseconds; 0 when empty.
+     */
+    public long percentile(double percentile) {
+        long total = count.sum();
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : sum.sum() / 1e3 / n;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return percentile(50) / 1e3;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return percentile(99) / 1e3;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return percentile(99.9) / 1e3;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return max.get() / 1e3;
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-14s count=%d mean=%.1fus p50=%.1fus p99=%.1fus p999=%.1fus max=%.1fus",
+            name, getCount(), getMeanMicros(), getP50Micros(), getP99Micros(), getP999Micros(), getMaxMicros());
+    }
+}
@@ -0,0 +1,162 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load-generator client for SudokuServer. Opens N connections (one virtual thread each),
+ * replays a fixed request mix against a bundled board until the deadline and reports
+ * requests per second.
+ *
+ * Usage: LoadGenerator [host] [port] [connections] [seconds] [--embedded] [--games]
+ *   --embedded  start a server in-process on an ephemeral port
+ *   --games     include NEW/MOVE/UNDO in the mix (needs sudoku_games/source.txt)
+ * Every NEW archives three new puzzles on the server. With --embedded --games the server
+ * plays in a temporary copy of sudoku_games with the puzzle index off, as PlayerSimulator
+ * does (-Dsudoku.dir and -Dsudoku.dedup override that). A separate server should be started
+ * with -Dsudoku.dir=SCRATCH -Dsudoku.dedup=false for a --games run.
+ */
+public class LoadGenerator {
+    static final String SOLVED =
+        "534678912672195348198342567859761423426853791713924856961537284287419635345286179";
+    private static final int[] HOLES = {0, 13, 40, 57, 80};
+
+    private final String host;
+    private final int port;
+    private final AtomicLong ok = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong latencyNanos = new AtomicLong();
+
+    public LoadGenerator(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    static String fiveHoleBoard() {
+        char[] chars = SOLVED.toCharArray();
+        for (int hole : HOLES) {
+            chars[hole] = '0';
+        }
+        return new String(chars);
+    }
+
+    private List<String> requestMix(boolean games) {
+        String puzzle = fiveHoleBoard();
+        List<String> mix = new ArrayList<>();
+        mix.add("PING");
+        mix.add("STATE " + SOLVED);
+        mix.add("VERIFY " + puzzle);
+        mix.add("SOLVE " + puzzle);
+        if (games) {
+            mix.add("MOVE 0 0 5");
+            mix.add("UNDO");
+            mix.add("BOARD");
+        }
+        return mix;
+    }
+
+    private void runConnection(long deadline, boolean games) throws IOException {
+        List<String> mix = requestMix(games);
+        try (Socket socket = new Socket(host, port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII))) {
+            socket.setTcpNoDelay(true);
+            if (games) {
+                send(in, out, "NEW E");
+            }
+            int i = 0;
+            while (System.nanoTime() < deadline) {
+                send(in, out, mix.get(i++ % mix.size()));
+            }
+            send(in, out, "QUIT");
+        }
+    }
+
+    private void send(BufferedReader in, BufferedWriter out, String request) throws IOException {
+        long start = System.nanoTime();
+        out.write(request);
+        out.write('\n');
+        out.flush();
+        String reply = in.readLine();
+        latencyNanos.addAndGet(System.nanoTime() - start);
+        if (reply != null && reply.startsWith("OK")) {
+            ok.incrementAndGet();
+        } else {
+            errors.incrementAndGet();
+        }
+    }
+
+    public void run(int connections, int seconds, boolean games) throws Exception {
+        long start = System.nanoTime();
+        long deadline = start + seconds * 1_000_000_000L;
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < connections; i++) {
+                futures.add(executor.submit(() -> {
+                    runConnection(deadline, games);
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long total = ok.get() + errors.get();
+        System.out.printf("connections=%d elapsed=%.2fs requests=%d errors=%d throughput=%.0f req/s mean=%.1f us%n",
+            connections, elapsed, total, errors.get(), total / elapsed,
+            total == 0 ? 0.0 : latencyNanos.get() / 1e3 / total);
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> positional = new ArrayList<>();
+        boolean embedded = false;
+        boolean games = false;
+        for (String arg : args) {
+            if (arg.equals("--embedded")) {
+                embedded = true;
+            } else if (arg.equals("--games")) {
+                games = true;
+            } else {
+                positional.add(arg);
+            }
+        }
+        String host = positional.size() > 0 ? positional.get(0) : "127.0.0.1";
+        int port = positional.size() > 1 ? Integer.parseInt(positional.get(1)) : SudokuServer.DEFAULT_PORT;
+        int connections = positional.size() > 2 ? Integer.parseInt(positional.get(2)) : 64;
+        int seconds = positional.size() > 3 ? Integer.parseInt(positional.get(3)) : 10;
+
+        if (!embedded) {
+            new LoadGenerator(host, port).run(connections, seconds, games);
+            return;
+        }
+        if (games) {
+            Path scratch = PlayerSimulator.useScratchGames();
+            if (scratch != null) {
+                System.out.println("games in " + scratch + " (deleted at exit)");
+            }
+        }
+        Thread acceptor;
+        try (SudokuServer server = new SudokuServer(0)) {
+            acceptor = Thread.ofVirtual().start(() -> {
+                try {
+                    server.serve();
+                } catch (IOException e) {
+                    System.err.println("Server stopped: " + e.getMessage());
+                }
+            });
+            new LoadGenerator("127.0.0.1", server.getPort()).run(connections, seconds, games);
+        }
+        acceptor.join();
+    }
+}
@@ -0,0 +1,292 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sparse index over a RollingLog segment, stored in a sidecar file next to it (name + ".idx").
+ *
+ * Each record covers one block of the segment, about BLOCK_BYTES of whole lines. It holds the
+ * block's byte range and its min and max timestamps. It also holds up to MAX_SESSIONS session
+ * ids, or ANY_SESSION when the block has more. A time or session query reads only the
+ * records, which are a few bytes per block, and seeks straight to the matching blocks. In a
+ * compressed segment each block is its own gzip member, and the offsets refer to the .gz file.
+ * The sidecar of a plain segment starts with a header holding the time the segment was
+ * opened, which decides when it is sealed for age; older sidecars without it are still read.
+ * A torn trailing record from an interrupted append is ignored.
+ */
+final class LogIndex {
+    static final int BLOCK_BYTES = 16 * 1024;
+    static final int MAX_SESSIONS = 32;
+    static final short ANY_SESSION = -1;
+    // A record starts with its block offset, and the first block is at 0, so this cannot be one
+    private static final long HEADER_MAGIC = 0x5344_4C49_0000_0001L; // "SDLI", version 1
+    private static final int HEADER_BYTES = 16;
+
+    private LogIndex() {
+    }
+
+    static final class Block {
+        final long offset;
+        final int length;
+        final long minTime;
+        final long maxTime;
+        final long[] sessions; // null means any session may appear
+
+        Block(long offset, int length, long minTime, long maxTime, long[] sessions) {
+            this.offset = offset;
+            this.length = length;
+            this.minTime = minTime;
+            this.maxTime = maxTime;
+            this.sessions = sessions;
+        }
+
+        /**
+         * Block whose contents are unknown (no index, or lines written before a crash);
+         * it matches every query.
+         */
+        static Block unknown(long offset, int length) {
+            return new Block(offset, length, Long.MIN_VALUE, Long.MAX_VALUE, null);
+        }
+
+        long end() {
+            return offset + length;
+        }
+
+        Block moved(long newOffset, int newLength) {
+            return new Block(newOffset, newLength, minTime, maxTime, sessions);
+        }
+
+        boolean matches(long from, long to, long session) {
+            if (maxTime < from || minTime > to) {
+                return false;
+            }
+            return session == 0 || sessions == null || Arrays.binarySearch(sessions, session) >= 0;
+        }
+
+        byte[] encode() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(40 + 8 * (sessions == null ? 0 : sessions.length));
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(offset);
+            out.writeInt(length);
+            out.writeLong(minTime);
+            out.writeLong(maxTime);
+            if (sessions == null) {
+                out.writeShort(ANY_SESSION);
+            } else {
+                out.writeShort(sessions.length);
+                for (long session : sessions) {
+                    out.writeLong(session);
+                }
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    /**
+     * Collects one block's statistics as lines are appended.
+     */
+    static final class Builder {
+        private long offset;
+        private long length;
+        private long minTime = Long.MAX_VALUE;
+        private long maxTime = Long.MIN_VALUE;
+        private long[] sessions = new long[MAX_SESSIONS];
+        private int sessionCount;
+        private boolean anySession;
+
+        void start(long offset) {
+            this.offset = offset;
+            length = 0;
+            minTime = Long.MAX_VALUE;
+            maxTime = Long.MIN_VALUE;
+            sessionCount = 0;
+            anySession = false;
+        }
+
+        void add(int bytes, long time, long session) {
+            length += bytes;
+            minTime = Math.min(minTime, time);
+            maxTime = Math.max(maxTime, time);
+            if (session == 0 || anySession) {
+                return;
+            }
+            for (int i = 0; i < sessionCount; i++) {
+                if (sessions[i] == session) {
+                    return;
+                }
+            }
+            if (sessionCount == MAX_SESSIONS) {
+                anySession = true;
+            } else {
+                sessions[sessionCount++] = session;
+            }
+        }
+
+        boolean isEmpty() {
+            return length == 0;
+        }
+
+        long getOffset() {
+            return offset;
+        }
+
+        long getLength() {
+            return length;
+        }
+
+        Block build() {
+            long[] ids = null;
+            if (!anySession) {
+                ids = Arrays.copyOf(sessions, sessionCount);
+                Arrays.sort(ids);
+            }
+            return new Block(offset, (int) length, minTime, maxTime, ids);
+        }
+    }
+
+    static Path sidecar(Path segment) {
+        return segment.resolveSibling(segment.getFileName() + ".idx");
+    }
+
+    /**
+     * Blocks of the index file, in file order; empty if there is no index.
+     */
+    static List<Block> read(Path index) throws IOException {
+        List<Block> blocks = new ArrayList<>();
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(index);
+        } catch (NoSuchFileException e) {
+            return blocks;
+        }
+        int start = hasHeader(bytes) ? HEADER_BYTES : 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new ByteArrayInputStream(bytes, start, bytes.length - start)))) {
+            while (true) {
+                long offset = in.readLong();
+                int length = in.readInt();
+                long minTime = in.readLong();
+                long maxTime = in.readLong();
+                short count = in.readShort();
+                long[] sessions = null;
+                if (count != ANY_SESSION) {
+                    sessions = new long[count];
+                    for (int i = 0; i < count; i++) {
+                        sessions[i] = in.readLong();
+                    }
+                }
+                blocks.add(new Block(offset, length, minTime, maxTime, sessions));
+            }
+        } catch (EOFException e) {
+            // End of file, or a torn last record
+        }
+        return blocks;
+    }
+
+    private static boolean hasHeader(byte[] bytes) {
+        return bytes.length >= HEADER_BYTES && ByteBuffer.wrap(bytes).getLong(0) == HEADER_MAGIC;
+    }
+
+    /**
+     * Time the index's segment was opened, or -1 if the index is missing or has no header.
+     */
+    static long openedAt(Path index) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        try (FileChannel in = FileChannel.open(index, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && in.read(header) >= 0) {
+                // read the whole header
+            }
+        } catch (NoSuchFileException e) {
+            return -1;
+        }
+        return hasHeader(header.array()) ? header.getLong(8) : -1;
+    }
+
+    /**
+     * Start a fresh index, before any record is written.
+     */
+    static void writeHeader(FileChannel channel, long openedAt) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES).putLong(HEADER_MAGIC).putLong(openedAt).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Index of a segment, covering any bytes past the last record (or the whole segment
+     * when there is no index) with unknown blocks. In a plain segment those are cut at line
+     * boundaries into blocks of at most BLOCK_BYTES, so a legacy log of any size can be read
+     * and compressed block by block; a gzip stream cannot be cut and stays one block.
+     */
+    static List<Block> readCovering(Path segment, long segmentSize) throws IOException {
+        List<Block> blocks = read(sidecar(segment));
+        long end = 0;
+        List<Block> valid = new ArrayList<>(blocks.size() + 1);
+        for (Block block : blocks) {
+            if (block.offset == end && block.end() <= segmentSize) {
+                valid.add(block);
+                end = block.end();
+            }
+        }
+        if (end < segmentSize) {
+            if (!segment.getFileName().toString().endsWith(".gz")) {
+                addUnknown(segment, end, segmentSize, valid);
+            } else if (segmentSize - end > Integer.MAX_VALUE) {
+                throw new IOException("Compressed log segment too large to read without its index: " + segment);
+            } else {
+                valid.add(Block.unknown(end, (int) (segmentSize - end)));
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Cover [offset, end) of a plain segment with unknown blocks that end just after a line
+     * separator. A single line longer than BLOCK_BYTES is cut at BLOCK_BYTES.
+     */
+    private static void addUnknown(Path segment, long offset, long end, List<Block> blocks) throws IOException {
+        ByteBuffer window = ByteBuffer.allocate(BLOCK_BYTES);
+        try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+            while (offset < end) {
+                int length = (int) Math.min(BLOCK_BYTES, end - offset);
+                if (offset + length < end) {
+                    window.clear().limit(length);
+                    while (window.hasRemaining()) {
+                        if (in.read(window, offset + window.position()) < 0) {
+                            throw new IOException("Log segment shorter than its size: " + segment);
+                        }
+                    }
+                    int cut = length;
+                    while (cut > 0 && window.get(cut - 1) != '\n') {
+                        cut--;
+                    }
+                    if (cut > 0) {
+                        length = cut;
+                    }
+                }
+                blocks.add(Block.unknown(offset, length));
+                offset += length;
+            }
+        }
+    }
+
+    static void write(FileChannel channel, Block block) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(block.encode());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
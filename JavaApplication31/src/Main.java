@@ -1,7 +1,35 @@
 
 public class Main {
-    public static void main(String[] args) {
-        
+    public static void main(String[] args) throws Exception {
+        Startup.warmUpIfEnabled();
+        if (args.length > 0) {
+            String[] rest = java.util.Arrays.copyOfRange(args, 1, args.length);
+            switch (args[0]) {
+                case "server":
+                    SudokuServer.main(rest);
+                    return;
+                case "loadgen":
+                    LoadGenerator.main(rest);
+                    return;
+                case "simulate":
+                    PlayerSimulator.main(rest);
+                    return;
+                case "train":
+                    Startup.main(rest);
+                    return;
+                case "batch":
+                    BatchTool.main(rest);
+                    return;
+                case "coordinator":
+                    GenerationCoordinator.main(rest);
+                    return;
+                case "worker":
+                    GenerationWorker.main(rest);
+                    return;
+                default:
+                    break;
+            }
+        }
         GameLauncherGUI.main(args);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,35 @@
+/**
+ * Decorator that records every solve into Metrics.SOLVE, successful or not, and marks the
+ * first successful one for Startup.
+ */
+public class MeteredSolveStrategy implements SolveStrategy {
+    private final SolveStrategy delegate;
+
+    public MeteredSolveStrategy(SolveStrategy delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public int[][] solve(int[][] game) throws Exception {
+        long start = Metrics.start();
+        try {
+            int[][] solved = delegate.solve(game);
+            Startup.mark("first-solve");
+            return solved;
+        } finally {
+            Metrics.stop(Metrics.SOLVE, start);
+        }
+    }
+
+    @Override
+    public int[][] solve(int[][] game, CancellationToken token) throws Exception {
+        long start = Metrics.start();
+        try {
+            int[][] solved = delegate.solve(game, token);
+            Startup.mark("first-solve");
+            return solved;
+        } finally {
+            Metrics.stop(Metrics.SOLVE, start);
+        }
+    }
+}
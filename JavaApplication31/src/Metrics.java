@@ -0,0 +1,127 @@
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * Process-wide latency histograms and solver counters.
+ *
+ * Disabled unless started with -Dsudoku.metrics=true. ENABLED is a static final constant, so
+ * with metrics off the JIT folds every guarded call site away. When enabled the histograms
+ * are registered as MBeans under "sudoku:*" and, if -Dsudoku.metrics.dumpSeconds=N is set,
+ * a text report is printed to stderr every N seconds.
+ */
+public final class Metrics {
+    public static final boolean ENABLED = Boolean.getBoolean("sudoku.metrics");
+
+    public static final LatencyHistogram SOLVE = new LatencyHistogram("solve");
+    public static final LatencyHistogram GENERATE = new LatencyHistogram("removeNumbers");
+    public static final LatencyHistogram SAVE = new LatencyHistogram("saveGame");
+    public static final LatencyHistogram LOAD = new LatencyHistogram("loadGame");
+    public static final LatencyHistogram LOG_WRITE = new LatencyHistogram("logAction");
+    public static final SolverCounters SOLVER = new SolverCounters();
+
+    private static final LatencyHistogram[] HISTOGRAMS = {SOLVE, GENERATE, SAVE, LOAD, LOG_WRITE};
+    private static ScheduledExecutorService dumper;
+
+    static {
+        if (ENABLED) {
+            registerMBeans();
+            long dumpSeconds = Long.getLong("sudoku.metrics.dumpSeconds", 0L);
+            if (dumpSeconds > 0) {
+                startDump(dumpSeconds, System.err);
+            }
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Start timestamp for a timed section, or 0 when metrics are disabled.
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    public static void stop(LatencyHistogram histogram, long start) {
+        if (ENABLED) {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    public static void nodeVisited() {
+        if (ENABLED) {
+            SOLVER.nodes.increment();
+        }
+    }
+
+    public static void candidatesRejected(long n) {
+        if (ENABLED) {
+            SOLVER.rejected.add(n);
+        }
+    }
+
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        for (LatencyHistogram h : HISTOGRAMS) {
+            sb.append(h).append('\n');
+        }
+        sb.append(String.format("%-14s nodes=%d rejected=%d%n", "solver",
+            SOLVER.getNodesVisited(), SOLVER.getCandidatesRejected()));
+        sb.append(SolutionCache.shared()).append('\n');
+        return sb.toString();
+    }
+
+    public static synchronized void startDump(long periodSeconds, PrintStream out) {
+        if (dumper != null) {
+            return;
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleAtFixedRate(() -> out.print(report()), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    private static void registerMBeans() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            for (LatencyHistogram h : HISTOGRAMS) {
+                server.registerMBean(new StandardMBean(h, LatencyHistogramMBean.class),
+                    new ObjectName("sudoku:type=Latency,name=" + h.getName()));
+            }
+            server.registerMBean(new StandardMBean(SOLVER, SolverCountersMBean.class),
+                new ObjectName("sudoku:type=Solver,name=counters"));
+        } catch (Exception e) {
+            System.err.println("Error registering metrics MBeans: " + e.getMessage());
+        }
+    }
+
+    public static final class SolverCounters implements SolverCountersMBean {
+        private final LongAdder nodes = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+
+        @Override
+        public long getNodesVisited() {
+            return nodes.sum();
+        }
+
+        @Override
+        public long getCandidatesRejected() {
+            return rejected.sum();
+        }
+
+        @Override
+        public void reset() {
+            nodes.reset();
+            rejected.reset();
+        }
+    }
+}
@@ -0,0 +1,249 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Persistent, branching history of a session's player entries.
+ *
+ * Every version is an immutable board held as nine row arrays. A move copies only the root
+ * (nine references) and the one row it changes and shares the rest with its parent, so
+ * recording a move is O(1) time and space. Each version also has an id, and any version
+ * can be read or made current in O(1) by that id.
+ * Undo moves to the parent version. Making a move after an undo starts a new branch and
+ * keeps the old one, and redo follows the child that was visited last.
+ * Serialized form: the root entries, then about 3 bytes per move. Not thread-safe.
+ */
+public class MoveHistory {
+    private static final int FORMAT = 1;
+
+    private static final class Version {
+        final int id;
+        final Version parent;
+        final byte[][] rows;
+        final int cell;
+        final int value;
+        final int depth;
+        Version redo;
+
+        Version(int id, Version parent, byte[][] rows, int cell, int value) {
+            this.id = id;
+            this.parent = parent;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+            this.rows = rows;
+            this.cell = cell;
+            this.value = value;
+        }
+    }
+
+    private final List<Version> versions = new ArrayList<>();
+    private Version current;
+
+    /**
+     * History whose root version holds the player's entries of board (givens are not tracked).
+     */
+    public MoveHistory(BoardView board) {
+        byte[][] rows = new byte[9][9];
+        if (board != null) {
+            for (int r = 0; r < 9; r++) {
+                for (int c = 0; c < 9; c++) {
+                    rows[r][c] = board.isGiven(r, c) ? 0 : (byte) board.get(r, c);
+                }
+            }
+        }
+        current = new Version(0, null, rows, -1, 0);
+        versions.add(current);
+    }
+
+    /**
+     * Record a move from the current version and make the new version current. Returns its id.
+     */
+    public int record(int row, int col, int value) {
+        if (value < 0 || value > 9) {
+            throw new IllegalArgumentException("Value must be 0-9: " + value);
+        }
+        byte[][] rows = current.rows.clone();
+        rows[row] = rows[row].clone();
+        rows[row][col] = (byte) value;
+        Version next = new Version(versions.size(), current, rows, row * 9 + col, value);
+        current.redo = next;
+        versions.add(next);
+        current = next;
+        return next.id;
+    }
+
+    public int getCurrent() {
+        return current.id;
+    }
+
+    /** Number of versions, including the root. */
+    public int size() {
+        return versions.size();
+    }
+
+    /** Number of moves from the root to the current version. */
+    public int getDepth() {
+        return current.depth;
+    }
+
+    public boolean canUndo() {
+        return current.parent != null;
+    }
+
+    public boolean canRedo() {
+        return current.redo != null;
+    }
+
+    /**
+     * Step back to the parent version; returns the cell (row * 9 + col) that changed, or -1.
+     */
+    public int undo() {
+        if (current.parent == null) {
+            return -1;
+        }
+        int cell = current.cell;
+        current.parent.redo = current;
+        current = current.parent;
+        return cell;
+    }
+
+    /**
+     * Step forward along the most recently visited branch; returns the changed cell, or -1.
+     */
+    public int redo() {
+        if (current.redo == null) {
+            return -1;
+        }
+        current = current.redo;
+        return current.cell;
+    }
+
+    /**
+     * Make version id current in O(1). Undo from there walks back towards the root, and redo
+     * follows each version's last visited child.
+     */
+    public void jumpTo(int id) {
+        current = version(id);
+    }
+
+    /** Entry of a cell at version id; 0 for empty cells and givens. */
+    public int get(int id, int row, int col) {
+        return version(id).rows[row][col];
+    }
+
+    public int getParent(int id) {
+        Version parent = version(id).parent;
+        return parent == null ? -1 : parent.id;
+    }
+
+    /** Ids of the versions recorded directly after version id, oldest branch first. */
+    public List<Integer> getChildren(int id) {
+        Version version = version(id);
+        List<Integer> children = new ArrayList<>();
+        for (int i = id + 1; i < versions.size(); i++) {
+            if (versions.get(i).parent == version) {
+                children.add(i);
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Cells whose entries differ between two versions, as row * 9 + col. Rows the two versions
+     * share are skipped without being compared.
+     */
+    public int[] diff(int from, int to) {
+        byte[][] a = version(from).rows;
+        byte[][] b = version(to).rows;
+        int[] cells = new int[81];
+        int count = 0;
+        for (int r = 0; r < 9; r++) {
+            if (a[r] == b[r]) {
+                continue;
+            }
+            for (int c = 0; c < 9; c++) {
+                if (a[r][c] != b[r][c]) {
+                    cells[count++] = r * 9 + c;
+                }
+            }
+        }
+        return Arrays.copyOf(cells, count);
+    }
+
+    private Version version(int id) {
+        if (id < 0 || id >= versions.size()) {
+            throw new IllegalArgumentException("No version " + id + " of " + versions.size());
+        }
+        return versions.get(id);
+    }
+
+    /**
+     * Write the whole tree: root entries, then per move the distance back to its parent
+     * (var-length, usually 1 byte), the cell and the value; then the current version.
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeByte(FORMAT);
+        Version root = versions.get(0);
+        for (int r = 0; r < 9; r++) {
+            out.write(root.rows[r]);
+        }
+        writeVarInt(out, versions.size() - 1);
+        for (int i = 1; i < versions.size(); i++) {
+            Version v = versions.get(i);
+            writeVarInt(out, v.id - v.parent.id);
+            out.writeByte(v.cell);
+            out.writeByte(v.value);
+        }
+        writeVarInt(out, current.id);
+    }
+
+    public static MoveHistory read(DataInput in) throws IOException {
+        int format = in.readUnsignedByte();
+        if (format != FORMAT) {
+            throw new IOException("Unsupported history format " + format);
+        }
+        MoveHistory history = new MoveHistory(null);
+        for (int r = 0; r < 9; r++) {
+            in.readFully(history.current.rows[r]);
+        }
+        int moves = readVarInt(in);
+        for (int i = 1; i <= moves; i++) {
+            int back = readVarInt(in);
+            int cell = in.readUnsignedByte();
+            int value = in.readUnsignedByte();
+            if (back < 1 || back > i || cell > 80 || value > 9) {
+                throw new IOException("Corrupt history entry " + i);
+            }
+            history.current = history.versions.get(i - back);
+            history.record(cell / 9, cell % 9, value);
+        }
+        int current = readVarInt(in);
+        if (current >= history.versions.size()) {
+            throw new IOException("Corrupt history: no version " + current);
+        }
+        history.jumpTo(current);
+        return history;
+    }
+
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed var-length int");
+    }
+}
@@ -1,18 +1,34 @@
 import java.util.Iterator;
 
 public class PermutationIterator implements Iterator<int[]> {
-    private final int[] current = {1, 1, 1, 1, 1};
+    private final int[] current;
+    private final int maxDigit;
     private boolean hasNext = true;
 
+    /** Every assignment of digits 1..9 to 5 cells. */
+    public PermutationIterator() {
+        this(5, 9);
+    }
+
+    /** Every assignment of digits 1..maxDigit to slots cells, e.g. maxDigit 16 for 16x16. */
+    public PermutationIterator(int slots, int maxDigit) {
+        if (slots < 1 || maxDigit < 1) {
+            throw new IllegalArgumentException("slots and maxDigit must be positive");
+        }
+        this.current = new int[slots];
+        this.maxDigit = maxDigit;
+        java.util.Arrays.fill(current, 1);
+    }
+
     @Override
     public boolean hasNext() { return hasNext; }
 
     @Override
     public int[] next() {
         int[] result = current.clone();
-        int i = 4;
+        int i = current.length - 1;
         while (i >= 0) {
-            if (current[i] < 9) {
+            if (current[i] < maxDigit) {
                 current[i]++;
                 break;
             }
@@ -4,8 +4,19 @@ import java.util.List;
 
 public class PermutationSolveStrategy implements SolveStrategy {
 
+    private static final int CHECK_INTERVAL = 256;
+
     @Override
     public int[][] solve(int[][] game) throws Exception {
+        return solve(game, CancellationToken.NONE);
+    }
+
+    /**
+     * Polls token every CHECK_INTERVAL candidates.
+     */
+    @Override
+    public int[][] solve(int[][] game, CancellationToken token) throws Exception {
+        token.throwIfCancelled();
         List<int[]> emptyCells = new ArrayList<>();
         
         // Find all empty cells
@@ -26,9 +37,15 @@ public class PermutationSolveStrategy implements SolveStrategy {
         PermutationIterator iterator = new PermutationIterator();
 
         // Single-threaded sequential verification
+        long rejected = 0;
         while (iterator.hasNext()) {
             int[] candidate = iterator.next();
+            Metrics.nodeVisited();
+            if (rejected % CHECK_INTERVAL == CHECK_INTERVAL - 1) {
+                token.throwIfCancelled();
+            }
             if (flyweightBoard.isValid(candidate)) {
+                Metrics.candidatesRejected(rejected);
                 // Apply the solution to the original board
                 for (int i = 0; i < emptyCells.size(); i++) {
                     int[] cell = emptyCells.get(i);
@@ -36,7 +53,9 @@ public class PermutationSolveStrategy implements SolveStrategy {
                 }
                 return game;
             }
+            rejected++;
         }
+        Metrics.candidatesRejected(rejected);
 
         throw new Exception("No solution exists");
     }
@@ -0,0 +1,307 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Offline capacity test: N synthetic players, one virtual thread and one Controller each,
+ * play real games in-process through the Controllable API until the deadline.
+ *
+ * Each step a player waits an exponentially distributed think time, then picks an operation:
+ * a move (setCellValue plus logUserAction, wrong with probability errorRate), undo (always
+ * right after a wrong move), verifyState, saveGame or solveGame (on the solution with five of
+ * the player's empty cells blanked, the shape PermutationSolveStrategy takes). A game ends
+ * when the board is full or the player has 3 faults, and the next one starts with getGame.
+ * Each player saves to its own session directory, like a SudokuServer connection, so no
+ * call is serialized across players.
+ * Reports throughput and per-operation p50/p99/p999 from LatencyHistogram.
+ *
+ * Usage: PlayerSimulator [players] [seconds] [thinkMillis] [errorRate] [--level E|M|H] [--seed n]
+ * Needs sudoku_games/source.txt, like any new game. Every getGame archives three new puzzles,
+ * so unless -Dsudoku.dir is given the run plays in a temporary copy of sudoku_games holding
+ * only source.txt, deleted at exit, and the puzzle index is off unless -Dsudoku.dedup=true.
+ */
+public class PlayerSimulator {
+    static final String GET_GAME = "getGame";
+    static final String MOVE = "setCellValue";
+    static final String LOG = "logUserAction";
+    static final String UNDO = "undo";
+    static final String VERIFY = "verifyState";
+    static final String SAVE = "saveGame";
+    static final String SOLVE = "solveGame";
+    private static final String[] OPERATIONS = {GET_GAME, MOVE, LOG, UNDO, VERIFY, SAVE, SOLVE};
+
+    // Out of 100 steps; the rest are moves
+    private static final int UNDO_WEIGHT = 5;
+    private static final int VERIFY_WEIGHT = 10;
+    private static final int SAVE_WEIGHT = 5;
+    private static final int SOLVE_WEIGHT = 2;
+    private static final int SOLVE_HOLES = 5;
+
+    private final long thinkMillis;
+    private final double errorRate;
+    private final char level;
+    private final long seed;
+    private final Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+    private final Map<String, AtomicLong> failures = new LinkedHashMap<>();
+    private final AtomicLong games = new AtomicLong();
+
+    public PlayerSimulator(long thinkMillis, double errorRate, char level, long seed) {
+        if (thinkMillis < 0) {
+            throw new IllegalArgumentException("Think time must not be negative");
+        }
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("Error rate must be between 0 and 1");
+        }
+        this.thinkMillis = thinkMillis;
+        this.errorRate = errorRate;
+        this.level = level;
+        this.seed = seed;
+        for (String operation : OPERATIONS) {
+            latencies.put(operation, new LatencyHistogram(operation));
+            failures.put(operation, new AtomicLong());
+        }
+    }
+
+    public LatencyHistogram getLatency(String operation) {
+        return latencies.get(operation);
+    }
+
+    public long getFailures(String operation) {
+        return failures.get(operation).get();
+    }
+
+    public long getGames() {
+        return games.get();
+    }
+
+    private interface Operation<T> {
+        T run() throws Exception;
+    }
+
+    /**
+     * Run and time one call. An exception counts as a failure of that operation and yields null.
+     */
+    private <T> T timed(String operation, Operation<T> body) {
+        long start = System.nanoTime();
+        try {
+            return body.run();
+        } catch (Exception e) {
+            failures.get(operation).incrementAndGet();
+            return null;
+        } finally {
+            latencies.get(operation).record(System.nanoTime() - start);
+        }
+    }
+
+    private void think(Random random) throws InterruptedException {
+        if (thinkMillis > 0) {
+            Thread.sleep((long) (-thinkMillis * Math.log(1 - random.nextDouble())));
+        }
+    }
+
+    private boolean newGame(Controllable player) {
+        int[][] game = timed(GET_GAME, () -> player.getGame(level));
+        if (game != null) {
+            games.incrementAndGet();
+        }
+        return game != null;
+    }
+
+    private void play(int id, long deadline) throws Exception {
+        Controller player = new Controller("player-" + ProcessHandle.current().pid() + "-" + id);
+        try {
+            play(player, new Random(seed + id), deadline);
+        } finally {
+            player.discardSessionFiles();
+        }
+    }
+
+    private void play(Controllable player, Random random, long deadline) throws InterruptedException {
+        boolean wrongLast = false;
+        if (!newGame(player)) {
+            return;
+        }
+        while (System.nanoTime() < deadline) {
+            think(random);
+            BoardView board = player.getBoard();
+            if (board.getEmptyCount() == 0 || player.getFaults() >= 3) {
+                if (!newGame(player)) {
+                    return;
+                }
+                wrongLast = false;
+                continue;
+            }
+            int pick = random.nextInt(100);
+            if (wrongLast || pick < UNDO_WEIGHT) {
+                timed(UNDO, player::undoLastMove);
+                wrongLast = false;
+            } else if ((pick -= UNDO_WEIGHT) < VERIFY_WEIGHT) {
+                timed(VERIFY, () -> player.verifyState(player.getCurrentGame()));
+            } else if ((pick -= VERIFY_WEIGHT) < SAVE_WEIGHT) {
+                timed(SAVE, () -> {
+                    player.saveGame();
+                    return null;
+                });
+            } else if ((pick -= SAVE_WEIGHT) < SOLVE_WEIGHT) {
+                int[][] puzzle = solvable(player, random);
+                timed(SOLVE, () -> player.solveGame(puzzle));
+            } else {
+                wrongLast = move(player, board, random);
+            }
+        }
+    }
+
+    /**
+     * Fill a random empty cell, with a wrong digit with probability errorRate.
+     * Returns whether the digit was wrong.
+     */
+    private boolean move(Controllable player, BoardView board, Random random) {
+        int cell = random.nextInt(81);
+        while (board.get(cell / 9, cell % 9) != 0) {
+            cell = (cell + 1) % 81;
+        }
+        int row = cell / 9;
+        int col = cell % 9;
+        int correct = player.getSolution()[row][col];
+        boolean wrong = random.nextDouble() < errorRate;
+        int value = wrong ? 1 + (correct + random.nextInt(8)) % 9 : correct;
+        timed(MOVE, () -> player.setCellValue(row, col, value));
+        timed(LOG, () -> {
+            player.logUserAction(new UserAction("PLACE", row, col, value));
+            return null;
+        });
+        return wrong;
+    }
+
+    /**
+     * The solution with SOLVE_HOLES cells blanked, preferring the player's empty cells:
+     * the configured solver only accepts boards with exactly that many holes.
+     */
+    private static int[][] solvable(Controllable player, Random random) {
+        int[][] board = player.getSolution();
+        BoardView current = player.getBoard();
+        int start = random.nextInt(81);
+        int holes = 0;
+        for (int pass = 0; pass < 2 && holes < SOLVE_HOLES; pass++) {
+            for (int i = 0; i < 81 && holes < SOLVE_HOLES; i++) {
+                int cell = (start + i) % 81;
+                int r = cell / 9;
+                int c = cell % 9;
+                if (board[r][c] != 0 && (pass == 1 || current.get(r, c) == 0)) {
+                    board[r][c] = 0;
+                    holes++;
+                }
+            }
+        }
+        return board;
+    }
+
+    public void run(int players, int seconds) throws Exception {
+        long start = System.nanoTime();
+        long deadline = start + seconds * 1_000_000_000L;
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < players; i++) {
+                int id = i;
+                futures.add(executor.submit(() -> {
+                    play(id, deadline);
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long total = 0;
+        long failed = 0;
+        for (String operation : OPERATIONS) {
+            total += latencies.get(operation).getCount();
+            failed += failures.get(operation).get();
+        }
+        System.out.printf("players=%d think=%dms errorRate=%.2f elapsed=%.2fs games=%d operations=%d failures=%d throughput=%.0f ops/s%n",
+            players, thinkMillis, errorRate, elapsed, games.get(), total, failed, total / elapsed);
+        for (String operation : OPERATIONS) {
+            LatencyHistogram latency = latencies.get(operation);
+            if (latency.getCount() > 0) {
+                System.out.printf("  %s failures=%d%n", latency, failures.get(operation).get());
+            }
+        }
+    }
+
+    /**
+     * Keep synthetic games out of the real sudoku_games: turn the puzzle index off unless
+     * -Dsudoku.dedup is set and, unless -Dsudoku.dir is set, point it at a temporary directory
+     * holding a copy of sudoku_games/source.txt, deleted at exit. Must run before GameStorage,
+     * Controller or PuzzleIndex are first used, since they read the properties once.
+     * Returns the temporary directory, or null if -Dsudoku.dir was given.
+     */
+    static Path useScratchGames() throws IOException {
+        if (System.getProperty("sudoku.dedup") == null) {
+            System.setProperty("sudoku.dedup", "false");
+        }
+        if (System.getProperty("sudoku.dir") != null) {
+            return null;
+        }
+        Path dir = Files.createTempDirectory("sudoku-games-");
+        // GameStorage.BASE_DIR cannot be read here without fixing it to the default
+        Path source = Paths.get("sudoku_games", "source.txt");
+        if (Files.exists(source)) {
+            Files.copy(source, dir.resolve("source.txt"));
+        }
+        System.setProperty("sudoku.dir", dir.toString());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try (Stream<Path> files = Files.walk(dir)) {
+                List<Path> paths = files.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+                for (Path p : paths) {
+                    Files.deleteIfExists(p);
+                }
+            } catch (IOException e) {
+                System.err.println("Error deleting " + dir + ": " + e.getMessage());
+            }
+        }));
+        return dir;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path scratch = useScratchGames();
+        if (scratch != null) {
+            System.out.println("games in " + scratch + " (deleted at exit), puzzle index "
+                + (Boolean.parseBoolean(System.getProperty("sudoku.dedup")) ? "on" : "off"));
+        }
+        List<String> positional = new ArrayList<>();
+        char level = 'E';
+        long seed = 1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--level":
+                    level = args[++i].charAt(0);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    positional.add(args[i]);
+                    break;
+            }
+        }
+        int players = positional.size() > 0 ? Integer.parseInt(positional.get(0)) : 100;
+        int seconds = positional.size() > 1 ? Integer.parseInt(positional.get(1)) : 10;
+        long thinkMillis = positional.size() > 2 ? Long.parseLong(positional.get(2)) : 50;
+        double errorRate = positional.size() > 3 ? Double.parseDouble(positional.get(3)) : 0.1;
+        new PlayerSimulator(thinkMillis, errorRate, level, seed).run(players, seconds);
+    }
+}
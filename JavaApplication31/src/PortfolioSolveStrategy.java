@@ -0,0 +1,264 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Races several strategies on copies of the same board. The first solution wins. The others
+ * are then stopped through a CancellationToken that they poll, so no pool thread is
+ * interrupted or left running. A call also stops at its deadline (timeoutMillis, or the
+ * caller's token if that is sooner). race() reports the outcome as a Result; solve() turns
+ * anything but SOLVED into an exception.
+ *
+ * Strategies run on a shared pool of daemon threads, one per processor. A race takes one pool
+ * slot per strategy before it submits anything, and each strategy gives its slot back when it
+ * returns, so races never queue behind each other and the deadline is all solving time. When
+ * the slots are taken (more concurrent races than the pool can run), the race does not wait:
+ * it runs the strategies one after another on the caller's thread, within the same deadline,
+ * and the first solution wins. A portfolio on a caller-supplied executor is not limited.
+ * Strategies must poll the token (see SolveStrategy.solve(int[][], CancellationToken)), or a
+ * pathological board keeps its thread busy after the race has returned.
+ * The default timeout is -Dsudoku.solve.timeoutMillis (2000). Thread-safe.
+ */
+public class PortfolioSolveStrategy implements SolveStrategy {
+    public static final long DEFAULT_TIMEOUT_MILLIS = Long.getLong("sudoku.solve.timeoutMillis", 2000);
+
+    private static final AtomicInteger THREADS = new AtomicInteger();
+    private static final int POOL_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final Semaphore SHARED_SLOTS = new Semaphore(POOL_THREADS);
+    private static final ExecutorService SHARED_POOL = Executors.newFixedThreadPool(POOL_THREADS, r -> {
+            Thread thread = new Thread(r, "solver-portfolio-" + THREADS.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    private final SolveStrategy[] strategies;
+    private final long timeoutMillis;
+    private final ExecutorService executor;
+    // Free threads of SHARED_POOL, or null for an executor this class does not manage
+    private final Semaphore slots;
+
+    public PortfolioSolveStrategy(long timeoutMillis, ExecutorService executor, SolveStrategy... strategies) {
+        if (strategies.length == 0) {
+            throw new IllegalArgumentException("A portfolio needs at least one strategy");
+        }
+        if (timeoutMillis <= 0) {
+            throw new IllegalArgumentException("Timeout must be positive");
+        }
+        this.strategies = strategies.clone();
+        this.timeoutMillis = timeoutMillis;
+        this.executor = executor;
+        this.slots = executor == SHARED_POOL ? SHARED_SLOTS : null;
+    }
+
+    public PortfolioSolveStrategy(long timeoutMillis, SolveStrategy... strategies) {
+        this(timeoutMillis, SHARED_POOL, strategies);
+    }
+
+    /**
+     * PermutationSolveStrategy (fast on the 5-hole boards the game deals) against
+     * BacktrackingSolveStrategy (any board), with the default timeout.
+     */
+    public static PortfolioSolveStrategy standard() {
+        return new PortfolioSolveStrategy(DEFAULT_TIMEOUT_MILLIS,
+            new PermutationSolveStrategy(), new BacktrackingSolveStrategy());
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public enum Status { SOLVED, TIMEOUT, CANCELLED, FAILED }
+
+    /**
+     * Outcome of one race.
+     */
+    public static final class Result {
+        private final Status status;
+        private final int[][] board;
+        private final SolveStrategy winner;
+        private final long elapsedNanos;
+        private final List<String> failures;
+
+        Result(Status status, int[][] board, SolveStrategy winner, long elapsedNanos, List<String> failures) {
+            this.status = status;
+            this.board = board;
+            this.winner = winner;
+            this.elapsedNanos = elapsedNanos;
+            this.failures = failures;
+        }
+
+        public Status getStatus() { return status; }
+        /** The caller's board, filled in if SOLVED. */
+        public int[][] getBoard() { return board; }
+        /** The strategy that finished first, or null. */
+        public SolveStrategy getWinner() { return winner; }
+        public long getElapsedNanos() { return elapsedNanos; }
+        /** One message per strategy that failed before the race ended. */
+        public List<String> getFailures() { return failures; }
+
+        @Override
+        public String toString() {
+            return String.format("%s in %.2f ms%s%s", status, elapsedNanos / 1e6,
+                winner == null ? "" : " by " + winner.getClass().getSimpleName(),
+                failures.isEmpty() ? "" : ", failures " + failures);
+        }
+    }
+
+    private static final class Attempt {
+        final int index;
+        final int[][] solution;
+        final Exception error;
+
+        Attempt(int index, int[][] solution, Exception error) {
+            this.index = index;
+            this.solution = solution;
+            this.error = error;
+        }
+    }
+
+    public Result race(int[][] game) {
+        return race(game, CancellationToken.NONE);
+    }
+
+    /**
+     * Run every strategy on a copy of game and wait for the first solution, the deadline,
+     * or for token to be cancelled. On SOLVED the solution is copied into game.
+     */
+    public Result race(int[][] game, CancellationToken token) {
+        long start = System.nanoTime();
+        if (slots != null && !slots.tryAcquire(strategies.length)) {
+            return raceInline(game, token, start);
+        }
+        CancellationToken race = token.child(timeoutMillis);
+        CompletionService<Attempt> completion = new ExecutorCompletionService<>(executor);
+        List<String> failures = new ArrayList<>();
+        AtomicReference<Attempt> winner = new AtomicReference<>();
+        try {
+            for (int i = 0; i < strategies.length; i++) {
+                int index = i;
+                int[][] copy = copy(game);
+                completion.submit(() -> {
+                    try {
+                        Attempt attempt = new Attempt(index, strategies[index].solve(copy, race), null);
+                        // Stop the losers from the winning thread, without waiting for the caller to wake up
+                        if (winner.compareAndSet(null, attempt)) {
+                            race.cancel("solved");
+                        }
+                        return attempt;
+                    } catch (Exception e) {
+                        return new Attempt(index, null, e);
+                    } finally {
+                        if (slots != null) {
+                            slots.release();
+                        }
+                    }
+                });
+            }
+            for (int pending = strategies.length; pending > 0 && winner.get() == null; pending--) {
+                Future<Attempt> done = completion.poll(race.remainingNanos(), TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    break;
+                }
+                Attempt attempt = done.get();
+                if (attempt.error != null && !(attempt.error instanceof CancellationException)) {
+                    failures.add(strategies[attempt.index].getClass().getSimpleName() + ": " + attempt.error.getMessage());
+                }
+                if (race.isCancelled()) {
+                    break;
+                }
+            }
+            Attempt won = winner.get();
+            if (won != null) {
+                for (int r = 0; r < game.length; r++) {
+                    System.arraycopy(won.solution[r], 0, game[r], 0, game[r].length);
+                }
+                return new Result(Status.SOLVED, game, strategies[won.index], System.nanoTime() - start, failures);
+            }
+            Status status = race.isExpired() ? Status.TIMEOUT
+                : token.isCancelled() ? Status.CANCELLED : Status.FAILED;
+            return new Result(status, game, null, System.nanoTime() - start, failures);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Result(Status.CANCELLED, game, null, System.nanoTime() - start, failures);
+        } catch (ExecutionException e) {
+            // Attempts catch their own exceptions; only an Error gets here
+            throw new IllegalStateException("Strategy crashed", e.getCause());
+        } finally {
+            race.cancel("race finished");
+        }
+    }
+
+    /**
+     * The race when the pool is busy: each strategy in turn on the caller's thread, until one
+     * solves the board or the deadline passes.
+     */
+    private Result raceInline(int[][] game, CancellationToken token, long start) {
+        CancellationToken race = token.child(timeoutMillis);
+        List<String> failures = new ArrayList<>();
+        try {
+            for (SolveStrategy strategy : strategies) {
+                if (race.isCancelled()) {
+                    break;
+                }
+                int[][] solution;
+                try {
+                    solution = strategy.solve(copy(game), race);
+                } catch (CancellationException e) {
+                    break;
+                } catch (Exception e) {
+                    failures.add(strategy.getClass().getSimpleName() + ": " + e.getMessage());
+                    continue;
+                }
+                for (int r = 0; r < game.length; r++) {
+                    System.arraycopy(solution[r], 0, game[r], 0, game[r].length);
+                }
+                return new Result(Status.SOLVED, game, strategy, System.nanoTime() - start, failures);
+            }
+            Status status = race.isExpired() ? Status.TIMEOUT
+                : token.isCancelled() ? Status.CANCELLED : Status.FAILED;
+            return new Result(status, game, null, System.nanoTime() - start, failures);
+        } finally {
+            race.cancel("race finished");
+        }
+    }
+
+    @Override
+    public int[][] solve(int[][] game) throws Exception {
+        return solve(game, CancellationToken.NONE);
+    }
+
+    @Override
+    public int[][] solve(int[][] game, CancellationToken token) throws Exception {
+        Result result = race(game, token);
+        switch (result.getStatus()) {
+            case SOLVED:
+                return result.getBoard();
+            case TIMEOUT:
+                throw new Exception("Solve timed out after " + timeoutMillis + " ms");
+            case CANCELLED:
+                throw new CancellationException("Solve cancelled");
+            default:
+                throw new Exception(result.getFailures().isEmpty() ? "No solution exists"
+                    : String.join("; ", result.getFailures()));
+        }
+    }
+
+    private static int[][] copy(int[][] board) {
+        int[][] copy = new int[board.length][];
+        for (int r = 0; r < board.length; r++) {
+            copy[r] = Arrays.copyOf(board[r], board[r].length);
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,177 @@
+import java.io.Serializable;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable givens plus solution of one puzzle, interned so every session playing the
+ * same puzzle shares a single instance (two 81-byte arrays) instead of its own int[9][9] copies.
+ *
+ * The intern table holds weak references, so a puzzle nobody plays any more can be collected.
+ * The solution may be unknown (all zeros) for puzzles loaded without one; see withSolution.
+ */
+public final class Puzzle implements BoardView, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final ConcurrentHashMap<BoardKey, Ref> INTERNED = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<Puzzle> CLEARED = new ReferenceQueue<>();
+
+    private final byte[] givens;
+    private final byte[] solution;
+    private final int givenCount;
+    private final transient BoardKey key;
+    private final transient BoardView solutionView = new SolutionView();
+
+    private Puzzle(byte[] givens, byte[] solution, BoardKey key) {
+        this.givens = givens;
+        this.solution = solution;
+        this.key = key;
+        int count = 0;
+        for (byte g : givens) {
+            if (g != 0) {
+                count++;
+            }
+        }
+        this.givenCount = count;
+    }
+
+    private static final class Ref extends WeakReference<Puzzle> {
+        private final BoardKey key;
+
+        private Ref(Puzzle puzzle) {
+            super(puzzle, CLEARED);
+            this.key = puzzle.key;
+        }
+    }
+
+    /**
+     * Shared instance for these givens and solution. Cells of givens that are 0 are empty;
+     * solution may be null when it is not known yet. Neither array is retained.
+     */
+    public static Puzzle intern(int[][] givens, int[][] solution) {
+        return intern(pack(givens), solution == null ? new byte[81] : pack(solution));
+    }
+
+    private static Puzzle intern(byte[] givens, byte[] solution) {
+        expungeCleared();
+        byte[] both = new byte[162];
+        System.arraycopy(givens, 0, both, 0, 81);
+        System.arraycopy(solution, 0, both, 81, 81);
+        BoardKey key = BoardKey.of(both);
+        while (true) {
+            Ref ref = INTERNED.get(key);
+            Puzzle existing = ref == null ? null : ref.get();
+            if (existing != null) {
+                if (Arrays.equals(existing.givens, givens) && Arrays.equals(existing.solution, solution)) {
+                    return existing;
+                }
+                // 128-bit key collision: leave the interned one alone and keep this one unshared
+                return new Puzzle(givens, solution, key);
+            }
+            Puzzle created = new Puzzle(givens, solution, key);
+            boolean stored = ref == null
+                ? INTERNED.putIfAbsent(key, new Ref(created)) == null
+                : INTERNED.replace(key, ref, new Ref(created));
+            if (stored) {
+                return created;
+            }
+        }
+    }
+
+    private static void expungeCleared() {
+        Ref ref;
+        while ((ref = (Ref) CLEARED.poll()) != null) {
+            INTERNED.remove(ref.key, ref);
+        }
+    }
+
+    /** Number of live interned puzzles (for diagnostics). */
+    static int internedCount() {
+        expungeCleared();
+        return INTERNED.size();
+    }
+
+    private static byte[] pack(int[][] board) {
+        byte[] cells = new byte[81];
+        for (int r = 0; r < 9; r++) {
+            for (int c = 0; c < 9; c++) {
+                int v = board[r][c];
+                if (v < 0 || v > 9) {
+                    throw new IllegalArgumentException("Value must be 0-9: " + v);
+                }
+                cells[r * 9 + c] = (byte) v;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Same givens with the solution filled in, interned.
+     */
+    public Puzzle withSolution(int[][] solved) {
+        return intern(givens, pack(solved));
+    }
+
+    public boolean hasSolution() {
+        return solution[0] != 0;
+    }
+
+    @Override
+    public int get(int row, int col) {
+        return givens[row * 9 + col];
+    }
+
+    @Override
+    public boolean isGiven(int row, int col) {
+        return givens[row * 9 + col] != 0;
+    }
+
+    @Override
+    public int getEmptyCount() {
+        return 81 - givenCount;
+    }
+
+    /** Solution digit of a cell, or 0 when the solution is unknown. */
+    public int getSolution(int row, int col) {
+        return solution[row * 9 + col];
+    }
+
+    /** View of the solution board; isGiven still reports the puzzle's givens. */
+    public BoardView solutionView() {
+        return solutionView;
+    }
+
+    private final class SolutionView implements BoardView {
+        @Override
+        public int get(int row, int col) {
+            return solution[row * 9 + col];
+        }
+
+        @Override
+        public boolean isGiven(int row, int col) {
+            return Puzzle.this.isGiven(row, col);
+        }
+
+        @Override
+        public int getEmptyCount() {
+            return hasSolution() ? 0 : 81;
+        }
+    }
+
+    public int[][] solutionArray() {
+        return hasSolution() ? solutionView().toArray() : null;
+    }
+
+    public boolean[][] givenMask() {
+        boolean[][] mask = new boolean[9][9];
+        for (int i = 0; i < 81; i++) {
+            mask[i / 9][i % 9] = givens[i] != 0;
+        }
+        return mask;
+    }
+
+    private Object readResolve() {
+        return intern(givens, solution);
+    }
+}
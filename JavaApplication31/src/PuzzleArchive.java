@@ -0,0 +1,350 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only puzzle archive that stores each distinct solution grid once.
+ *
+ * "base.grids" holds packed solution grids (41 bytes each, id = position). "base.puzzles" holds
+ * fixed 14-byte records: a 3-byte grid id plus an 81-bit givens mask, whose last byte carries
+ * 7 more id bits, so ids go up to 2^31. Since every puzzle in a run is dug from the same grid,
+ * a puzzle costs 14 bytes instead of 41 packed or ~170 as text; an imported puzzle brings its
+ * own grid and costs 55. Puzzle i is read with one positional read for the record and one for
+ * its grid. Grids are not kept on the heap: only the CACHED_GRIDS most recently used are
+ * cached, for decoding and for reusing an id when a grid is appended again. A grid that has
+ * dropped out of the cache is simply stored again. Both files start with a 16-byte header;
+ * a torn trailing record from an interrupted append is ignored and overwritten by the next one.
+ *
+ * Several processes may append to one archive: each append holds an exclusive FileLock on the
+ * puzzle file and takes the grid and record positions from the file sizes under that lock, so
+ * no append overwrites another's. Appends are written through, not buffered, so a crash loses
+ * only what the OS had not yet written; the lock and the extra write cost about 3 us a puzzle.
+ * Within a process use open(base), since a second instance on the same files cannot take the
+ * lock. Thread-safe.
+ */
+public class PuzzleArchive implements AutoCloseable {
+    public static final String DEFAULT_NAME = "archive";
+    public static final int RECORD_BYTES = 14;
+
+    private static final int GRID_MAGIC = 0x5344_4147; // "SDAG"
+    private static final int PUZZLE_MAGIC = 0x5344_4150; // "SDAP"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int MASK_BYTES = 11;
+    private static final int MAX_GRIDS = Integer.MAX_VALUE;
+    private static final int HIGH_ID_MASK = 0x7F; // id bits 24..30, in the mask's unused low bits
+    private static final int CACHED_GRIDS = 4096;
+
+    private static final Map<Path, PuzzleArchive> OPEN = new ConcurrentHashMap<>();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (PuzzleArchive archive : OPEN.values()) {
+                try {
+                    archive.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing puzzle archive: " + e.getMessage());
+                }
+            }
+        }));
+    }
+
+    private final Path base;
+    private final FileChannel grids;
+    private final FileChannel puzzles;
+    private int gridCount;
+    private final Map<BoardKey, Integer> gridIds = lru();
+    private final Map<Integer, byte[]> gridCache = lru();
+
+    public PuzzleArchive(Path base) throws IOException {
+        this.base = base;
+        if (base.getParent() != null) {
+            Files.createDirectories(base.getParent());
+        }
+        this.grids = open(Paths.get(base + ".grids"), GRID_MAGIC);
+        this.puzzles = open(Paths.get(base + ".puzzles"), PUZZLE_MAGIC);
+        loadGrids();
+    }
+
+    /**
+     * Shared archive for a base path, so every caller in the process appends through one instance.
+     * Closed at shutdown.
+     */
+    public static PuzzleArchive open(Path base) throws IOException {
+        Path key = base.toAbsolutePath().normalize();
+        PuzzleArchive archive = OPEN.get(key);
+        if (archive != null) {
+            return archive;
+        }
+        synchronized (OPEN) {
+            archive = OPEN.get(key);
+            if (archive == null) {
+                archive = new PuzzleArchive(key);
+                OPEN.put(key, archive);
+            }
+            return archive;
+        }
+    }
+
+    /**
+     * Whether base.grids exists, without opening (and so creating) the archive.
+     */
+    public static boolean exists(Path base) {
+        return Files.exists(Paths.get(base + ".grids")) || OPEN.containsKey(base.toAbsolutePath().normalize());
+    }
+
+    private static FileChannel open(Path file, int magic) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        if (channel.size() == 0) {
+            header.putInt(magic).putInt(VERSION).putLong(0).flip();
+            channel.write(header, 0);
+        } else {
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != magic || header.getInt() != VERSION) {
+                channel.close();
+                throw new IOException("Not a puzzle archive file: " + file);
+            }
+        }
+        return channel;
+    }
+
+    private static <K, V> Map<K, V> lru() {
+        return new LinkedHashMap<K, V>(2 * CACHED_GRIDS, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > CACHED_GRIDS;
+            }
+        };
+    }
+
+    /**
+     * Catch up with the grids on disk, which other processes may have appended, and cache the
+     * most recent ones, which are the most likely to be reused.
+     */
+    private synchronized void loadGrids() throws IOException {
+        long count = Math.min((grids.size() - HEADER_BYTES) / BoardCodec.PACKED_BYTES, MAX_GRIDS);
+        for (int id = (int) Math.max(gridCount, count - CACHED_GRIDS); id < count; id++) {
+            byte[] grid = readGrid(id);
+            gridIds.put(BoardKey.of(grid), id);
+            gridCache.put(id, grid);
+        }
+        gridCount = (int) Math.max(gridCount, count);
+    }
+
+    /**
+     * Exclusive lock on the archive against other processes, held for one append.
+     */
+    private FileLock lock() throws IOException {
+        try {
+            return puzzles.lock();
+        } catch (OverlappingFileLockException e) {
+            throw new IOException("Archive " + base + " is open twice in this process; use PuzzleArchive.open", e);
+        }
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private byte[] readGrid(int id) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BoardCodec.PACKED_BYTES);
+        long position = HEADER_BYTES + (long) id * BoardCodec.PACKED_BYTES;
+        while (buffer.hasRemaining()) {
+            if (grids.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated archive grid " + id);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Id of a solution grid, appending it to the grid file the first time it is seen.
+     */
+    public synchronized int gridId(int[][] solution) throws IOException {
+        FileLock lock = lock();
+        try {
+            return gridIdLocked(solution);
+        } finally {
+            lock.release();
+        }
+    }
+
+    private int gridIdLocked(int[][] solution) throws IOException {
+        byte[] packed = new byte[BoardCodec.PACKED_BYTES];
+        BoardCodec.pack(solution, packed, 0);
+        BoardKey key = BoardKey.of(packed);
+        Integer id = gridIds.get(key);
+        if (id != null) {
+            return id;
+        }
+        loadGrids();
+        id = gridIds.get(key);
+        if (id != null) {
+            return id;
+        }
+        if (gridCount >= MAX_GRIDS) {
+            throw new IOException("Archive " + base + " is full: " + MAX_GRIDS + " grids");
+        }
+        // Written before any record that uses it, so no record can reference a grid not on disk
+        write(grids, ByteBuffer.wrap(packed), HEADER_BYTES + (long) gridCount * BoardCodec.PACKED_BYTES);
+        id = gridCount++;
+        gridIds.put(key, id);
+        gridCache.put(id, packed);
+        return id;
+    }
+
+    /**
+     * Append a puzzle dug from solution and return its index. Every given must match the solution.
+     */
+    public synchronized long append(int[][] puzzle, int[][] solution) throws IOException {
+        byte[] mask = new byte[MASK_BYTES];
+        for (int i = 0; i < BoardCodec.CELLS; i++) {
+            int v = puzzle[i / 9][i % 9];
+            if (v == 0) {
+                continue;
+            }
+            if (v != solution[i / 9][i % 9]) {
+                throw new IllegalArgumentException("Given at [" + i / 9 + "][" + i % 9 + "] does not match the solution");
+            }
+            mask[i >>> 3] |= (byte) (0x80 >>> (i & 7));
+        }
+        FileLock lock = lock();
+        try {
+            int id = gridIdLocked(solution);
+            mask[MASK_BYTES - 1] |= (byte) ((id >>> 24) & HIGH_ID_MASK);
+            ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+            record.put((byte) (id >>> 16)).put((byte) (id >>> 8)).put((byte) id).put(mask).flip();
+            long index = size();
+            write(puzzles, record, HEADER_BYTES + index * RECORD_BYTES);
+            return index;
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Number of whole records on disk, including those other processes have appended.
+     */
+    public long size() throws IOException {
+        return (puzzles.size() - HEADER_BYTES) / RECORD_BYTES;
+    }
+
+    public synchronized int getGridCount() {
+        return gridCount;
+    }
+
+    /**
+     * Givens of puzzle index, 0 for empty cells.
+     */
+    public int[][] getPuzzle(long index) throws IOException {
+        return decode(index, true);
+    }
+
+    public int[][] getSolution(long index) throws IOException {
+        return decode(index, false);
+    }
+
+    /**
+     * Interned Puzzle for index, solution included.
+     */
+    public Puzzle getInterned(long index) throws IOException {
+        return Puzzle.intern(getPuzzle(index), getSolution(index));
+    }
+
+    private int[][] decode(long index, boolean givensOnly) throws IOException {
+        byte[] record = readRecord(index);
+        int id = ((record[3 + MASK_BYTES - 1] & HIGH_ID_MASK) << 24)
+            | ((record[0] & 0xFF) << 16) | ((record[1] & 0xFF) << 8) | (record[2] & 0xFF);
+        byte[] grid;
+        synchronized (this) {
+            if (id >= gridCount) {
+                loadGrids();
+            }
+            if (id >= gridCount) {
+                throw new IOException("Puzzle " + index + " references unknown grid " + id);
+            }
+            grid = gridCache.get(id);
+        }
+        if (grid == null) {
+            grid = readGrid(id);
+            synchronized (this) {
+                gridCache.put(id, grid);
+            }
+        }
+        int[][] board = BoardCodec.unpack(grid, 0);
+        if (givensOnly) {
+            for (int i = 0; i < BoardCodec.CELLS; i++) {
+                if ((record[3 + (i >>> 3)] & (0x80 >>> (i & 7))) == 0) {
+                    board[i / 9][i % 9] = 0;
+                }
+            }
+        }
+        return board;
+    }
+
+    private byte[] readRecord(long index) throws IOException {
+        long size = size();
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Puzzle " + index + " of " + size);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_BYTES);
+        long position = HEADER_BYTES + index * RECORD_BYTES;
+        while (buffer.hasRemaining()) {
+            if (puzzles.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated archive record " + index);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Force both files to disk.
+     */
+    public synchronized void sync() throws IOException {
+        grids.force(false);
+        puzzles.force(false);
+    }
+
+    /**
+     * The grid and puzzle files, grids first.
+     */
+    public List<Path> files() {
+        return List.of(Paths.get(base + ".grids"), Paths.get(base + ".puzzles"));
+    }
+
+    /**
+     * "base#index", the form Controller records as the source of a game taken from an archive.
+     */
+    public String reference(long index) {
+        return base + "#" + index;
+    }
+
+    public static boolean isReference(String path) {
+        return path != null && path.lastIndexOf('#') > path.lastIndexOf(java.io.File.separatorChar);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (puzzles.isOpen()) {
+            puzzles.close();
+            grids.close();
+        }
+        OPEN.remove(base.toAbsolutePath().normalize(), this);
+    }
+}
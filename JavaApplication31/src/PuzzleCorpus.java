@@ -0,0 +1,436 @@
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Off-heap puzzle corpus: 41-byte packed records (BoardCodec.pack) in direct or memory-mapped
+ * ByteBuffer segments, so a hundred million puzzles cost about 4 GB outside the heap and
+ * nothing for the garbage collector to trace.
+ *
+ * Segments hold SEGMENT_RECORDS records each (about 690 MB) and are allocated on first use.
+ * append() validates the board, maps the slot's segment and only then reserves the slot with
+ * one compareAndSet on the cursor, so nothing after the reservation can fail and leave a hole.
+ * It packs the board straight into the segment and publishes it: the unused low nibble of the
+ * last byte is set to 1 after a release fence. Appends never lock. Readers see a
+ * record only once it is published; committed() is the length of the published prefix, so
+ * scanning 0 to committed() never meets a half-written record.
+ * View is a zero-copy BoardView over one record, for Verifier.verifyState(BoardView) and
+ * BitsetSolver.countSolutions(BoardView, int). moveTo re-points it, so a scan allocates nothing.
+ *
+ * Without a file the segments are direct buffers (size -XX:MaxDirectMemorySize to fit). With a
+ * file they are mapped READ_WRITE from it. The file holds a 32-byte header (magic, version,
+ * capacity, committed count, reserved mark) and is sparse until records are written. Slots are
+ * handed out only below the reserved mark, which is raised RESERVE_BLOCK slots at a time and
+ * forced to disk before any slot above the old mark is used. Reopening resumes after the
+ * published prefix and clears stale flags in exactly [published prefix, reserved mark), so
+ * records reserved by a writer that died are overwritten and nothing past the mark is touched.
+ * openReadOnly maps an existing file without writing to it, for verification.
+ * Thread-safe.
+ */
+public class PuzzleCorpus implements AutoCloseable {
+    public static final int RECORD_BYTES = BoardCodec.PACKED_BYTES;
+    static final int SEGMENT_RECORDS = 1 << 24;
+
+    private static final int MAGIC = 0x5344_5043; // "SDPC"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 32;
+    private static final int LAST = RECORD_BYTES - 1;
+    private static final int PUBLISHED = 1;
+    private static final int RESERVE_BLOCK = 1 << 16;
+    // Version 1 files have no reserved mark; a reopen clears this far past the published prefix
+    private static final int LEGACY_IN_FLIGHT_RECORDS = 1 << 16;
+
+    private final long capacity;
+    private final boolean readOnly;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final AtomicReferenceArray<ByteBuffer> segments;
+    private final AtomicLong cursor;
+    private final AtomicLong committed;
+    private final AtomicLong reserved;
+
+    /**
+     * In-memory corpus for up to capacity puzzles.
+     */
+    public PuzzleCorpus(long capacity) {
+        this.capacity = checkCapacity(capacity);
+        this.readOnly = false;
+        this.channel = null;
+        this.header = null;
+        this.segments = new AtomicReferenceArray<>(segmentCount(capacity));
+        this.cursor = new AtomicLong();
+        this.committed = new AtomicLong();
+        this.reserved = new AtomicLong(this.capacity);
+    }
+
+    /**
+     * Corpus backed by file, created if missing. An existing file keeps its records and grows
+     * to capacity if that is larger than the capacity it was created with.
+     */
+    public PuzzleCorpus(Path file, long capacity) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.readOnly = false;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean fresh = channel.size() == 0;
+            this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            long stored = 0;
+            long storedCapacity = 0;
+            long mark = -1;
+            if (fresh) {
+                header.putInt(0, MAGIC).putInt(4, VERSION);
+            } else if (header.getInt(0) != MAGIC || !isVersion(header.getInt(4))) {
+                throw new IOException("Not a puzzle corpus file: " + file);
+            } else {
+                storedCapacity = header.getLong(8);
+                stored = header.getLong(16);
+                mark = header.getInt(4) == VERSION ? header.getLong(24) : -1;
+            }
+            this.capacity = checkCapacity(Math.max(capacity, storedCapacity));
+            header.putLong(8, this.capacity);
+            this.segments = new AtomicReferenceArray<>(segmentCount(this.capacity));
+            // Records published after the last flush are kept too
+            long end = Math.min(stored, this.capacity);
+            while (end < this.capacity && (segment(end).get(offset(end) + LAST) & 0x0F) == PUBLISHED) {
+                end++;
+            }
+            if (mark < 0) {
+                mark = Math.min(this.capacity, end + LEGACY_IN_FLIGHT_RECORDS);
+            }
+            mark = Math.max(end, Math.min(mark, this.capacity));
+            // Past a hole left by a writer that died, later reserved records may still carry the
+            // flag. They are overwritten from end on, so clear them before anyone can read them.
+            for (long i = end + 1; i < mark; i++) {
+                ByteBuffer segment = segment(i);
+                byte last = segment.get(offset(i) + LAST);
+                if ((last & 0x0F) != 0) {
+                    segment.put(offset(i) + LAST, (byte) (last & 0xF0));
+                }
+            }
+            header.putInt(4, VERSION).putLong(24, mark);
+            this.committed = new AtomicLong(end);
+            this.cursor = new AtomicLong(end);
+            this.reserved = new AtomicLong(mark);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Read-only corpus over an existing file: no header update, no flag clearing, no appends.
+     * Its capacity is the number of records the file actually holds.
+     */
+    private PuzzleCorpus(Path file) throws IOException {
+        this.readOnly = true;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            if (channel.size() < HEADER_BYTES) {
+                throw new IOException("Not a puzzle corpus file: " + file);
+            }
+            this.header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            if (header.getInt(0) != MAGIC || !isVersion(header.getInt(4))) {
+                throw new IOException("Not a puzzle corpus file: " + file);
+            }
+            // A sparse file may end before its capacity, and a read-only map cannot extend it
+            this.capacity = Math.min(header.getLong(8), (channel.size() - HEADER_BYTES) / RECORD_BYTES);
+            this.segments = new AtomicReferenceArray<>(segmentCount(capacity));
+            long end = Math.min(header.getLong(16), capacity);
+            while (end < capacity && (segment(end).get(offset(end) + LAST) & 0x0F) == PUBLISHED) {
+                end++;
+            }
+            this.committed = new AtomicLong(end);
+            this.cursor = new AtomicLong(end);
+            this.reserved = new AtomicLong(end);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static boolean isVersion(int version) {
+        return version == VERSION || version == 1;
+    }
+
+    public static PuzzleCorpus openReadOnly(Path file) throws IOException {
+        return new PuzzleCorpus(file);
+    }
+
+    private static long checkCapacity(long capacity) {
+        if (capacity <= 0 || capacity > (long) Integer.MAX_VALUE * SEGMENT_RECORDS) {
+            throw new IllegalArgumentException("Corpus capacity must be positive, got " + capacity);
+        }
+        return capacity;
+    }
+
+    private static int segmentCount(long capacity) {
+        return (int) ((capacity + SEGMENT_RECORDS - 1) / SEGMENT_RECORDS);
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Number of slots reserved so far, published or not.
+     */
+    public long size() {
+        return Math.min(cursor.get(), capacity);
+    }
+
+    /**
+     * Append a 9x9 board and return its index. Throws IllegalStateException when full.
+     */
+    public long append(int[][] board) {
+        if (!BoardGeometry.STANDARD.fits(board)) {
+            throw new IllegalArgumentException("Board is not " + BoardGeometry.STANDARD);
+        }
+        for (int[] row : board) {
+            for (int v : row) {
+                if (v < 0 || v > 9) {
+                    throw new IllegalArgumentException("Cell value out of range: " + v);
+                }
+            }
+        }
+        long index = reserve();
+        ByteBuffer segment = segment(index);
+        int base = offset(index);
+        int position = base;
+        int high = -1;
+        for (int[] row : board) {
+            for (int v : row) {
+                if (high < 0) {
+                    high = v << 4;
+                } else {
+                    segment.put(position++, (byte) (high | v));
+                    high = -1;
+                }
+            }
+        }
+        // Cell 80 shares the last byte with the (still clear) published flag
+        segment.put(position, (byte) high);
+        publish(segment, base);
+        return index;
+    }
+
+    /**
+     * Append a record already packed by BoardCodec.pack and return its index.
+     */
+    public long appendPacked(byte[] packed, int offset) {
+        if (offset < 0 || offset > packed.length - RECORD_BYTES) {
+            throw new IndexOutOfBoundsException("No packed record at offset " + offset);
+        }
+        for (int i = 0; i < RECORD_BYTES; i++) {
+            int b = packed[offset + i] & 0xFF;
+            if (b >>> 4 > 9 || (i < LAST && (b & 0x0F) > 9)) {
+                throw new IllegalArgumentException("Not a packed board at offset " + offset);
+            }
+        }
+        long index = reserve();
+        ByteBuffer segment = segment(index);
+        int base = offset(index);
+        segment.put(base, packed, offset, LAST);
+        segment.put(base + LAST, (byte) (packed[offset + LAST] & 0xF0));
+        publish(segment, base);
+        return index;
+    }
+
+    /**
+     * Claim the next slot. Its segment is mapped before the claim, so once this returns the
+     * caller only writes to memory and always publishes.
+     */
+    private long reserve() {
+        if (readOnly) {
+            throw new IllegalStateException("Corpus is open read-only");
+        }
+        while (true) {
+            long index = cursor.get();
+            if (index >= capacity) {
+                throw new IllegalStateException("Corpus is full: " + capacity + " puzzles");
+            }
+            segment(index);
+            if (index >= reserved.get()) {
+                extendReservation(index);
+            } else if (cursor.compareAndSet(index, index + 1)) {
+                return index;
+            }
+        }
+    }
+
+    /**
+     * Raise the reserved mark past index and force it to disk, so a reopen after a crash knows
+     * how far slots may have been written.
+     */
+    private synchronized void extendReservation(long index) {
+        if (index < reserved.get()) {
+            return;
+        }
+        long mark = Math.min(capacity, index + RESERVE_BLOCK);
+        header.putLong(24, mark);
+        header.force();
+        reserved.set(mark);
+    }
+
+    private static void publish(ByteBuffer segment, int base) {
+        // The record's bytes must be visible before the flag that says they are there
+        VarHandle.releaseFence();
+        segment.put(base + LAST, (byte) (segment.get(base + LAST) | PUBLISHED));
+    }
+
+    public boolean isPublished(long index) {
+        if (index < 0 || index >= size()) {
+            return false;
+        }
+        if ((segment(index).get(offset(index) + LAST) & 0x0F) != PUBLISHED) {
+            return false;
+        }
+        VarHandle.acquireFence();
+        return true;
+    }
+
+    /**
+     * Length of the prefix of records that are all published.
+     */
+    public long committed() {
+        long count = committed.get();
+        long end = count;
+        while (isPublished(end)) {
+            end++;
+        }
+        if (end > count) {
+            committed.accumulateAndGet(end, Math::max);
+        }
+        return Math.max(end, committed.get());
+    }
+
+    /**
+     * Copy record index out as a fresh board.
+     */
+    public int[][] get(long index) {
+        return view(index).toArray();
+    }
+
+    /**
+     * Zero-copy view of a published record.
+     */
+    public View view(long index) {
+        return new View().moveTo(index);
+    }
+
+    private ByteBuffer segment(long index) {
+        int id = (int) (index / SEGMENT_RECORDS);
+        ByteBuffer segment = segments.get(id);
+        if (segment != null) {
+            return segment;
+        }
+        long first = (long) id * SEGMENT_RECORDS;
+        int bytes = (int) (Math.min(SEGMENT_RECORDS, capacity - first) * RECORD_BYTES);
+        ByteBuffer created;
+        if (channel == null) {
+            created = ByteBuffer.allocateDirect(bytes);
+        } else {
+            try {
+                created = channel.map(readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE,
+                    HEADER_BYTES + first * RECORD_BYTES, bytes);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot map corpus segment " + id, e);
+            }
+        }
+        // Losing the race only wastes the buffer; every thread then uses the winner's
+        return segments.compareAndSet(id, null, created) ? created : segments.get(id);
+    }
+
+    private static int offset(long index) {
+        return (int) (index % SEGMENT_RECORDS) * RECORD_BYTES;
+    }
+
+    /**
+     * Write the committed count to the header and force mapped segments to disk.
+     * Does nothing for an in-memory or read-only corpus.
+     */
+    public void flush() {
+        if (header == null || readOnly) {
+            return;
+        }
+        long count = committed();
+        for (int i = 0; i < segments.length(); i++) {
+            ByteBuffer segment = segments.get(i);
+            if (segment != null) {
+                ((MappedByteBuffer) segment).force();
+            }
+        }
+        header.putLong(16, count);
+        header.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null && channel.isOpen()) {
+            flush();
+            if (!readOnly) {
+                // Nothing is in flight any more, so a clean reopen has nothing to clear
+                header.putLong(24, Math.max(committed(), Math.min(cursor.get(), capacity)));
+                header.force();
+            }
+            channel.close();
+        }
+    }
+
+    /**
+     * Read-only BoardView over one packed record; cells are decoded on each get.
+     */
+    public final class View implements BoardView {
+        private ByteBuffer segment;
+        private int base;
+        private long index = -1;
+
+        /**
+         * Point this view at record index, which must be published.
+         */
+        public View moveTo(long index) {
+            if (!isPublished(index)) {
+                throw new IndexOutOfBoundsException("Puzzle " + index + " is not in the corpus");
+            }
+            this.segment = segment(index);
+            this.base = offset(index);
+            this.index = index;
+            return this;
+        }
+
+        public long getIndex() {
+            return index;
+        }
+
+        @Override
+        public int get(int row, int col) {
+            int i = row * 9 + col;
+            int b = segment.get(base + (i >>> 1));
+            return (i & 1) == 0 ? (b >> 4) & 0xF : b & 0xF;
+        }
+
+        @Override
+        public boolean isGiven(int row, int col) {
+            return get(row, col) != 0;
+        }
+
+        @Override
+        public int getEmptyCount() {
+            int empty = 0;
+            for (int i = 0; i < BoardCodec.CELLS; i++) {
+                if (get(i / 9, i % 9) == 0) {
+                    empty++;
+                }
+            }
+            return empty;
+        }
+    }
+}
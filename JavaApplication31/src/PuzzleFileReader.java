@@ -0,0 +1,101 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Streams puzzles from a file with one 81-character board per line ('0' or '.' for empty).
+ * Reads through a FileChannel with a reusable 64 KB direct buffer; blank lines and lines
+ * starting with '#' are skipped.
+ */
+public class PuzzleFileReader implements AutoCloseable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final byte[] line = new byte[BoardCodec.CELLS];
+    private int lineLength;
+    private boolean comment;
+    private boolean eof;
+    private long lineNumber;
+
+    public PuzzleFileReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        buffer.flip();
+    }
+
+    /**
+     * Next board, or null at end of file.
+     */
+    public int[][] next() throws IOException {
+        while (true) {
+            if (!buffer.hasRemaining()) {
+                if (eof) {
+                    return lineLength > 0 && !comment ? finishLine() : null;
+                }
+                buffer.clear();
+                if (channel.read(buffer) < 0) {
+                    eof = true;
+                }
+                buffer.flip();
+                continue;
+            }
+            byte b = buffer.get();
+            if (b == '\n') {
+                lineNumber++;
+                if (lineLength > 0 && !comment) {
+                    return finishLine();
+                }
+                lineLength = 0;
+                comment = false;
+            } else if (b == '\r' || comment) {
+                continue;
+            } else if (lineLength == 0 && b == '#') {
+                comment = true;
+            } else if (lineLength < line.length) {
+                line[lineLength++] = b;
+            } else if (b != ' ' && b != '\t') {
+                throw new IOException("Line " + (lineNumber + 1) + " is longer than 81 cells");
+            }
+        }
+    }
+
+    /**
+     * Read up to max boards into out; returns the number read (0 at end of file).
+     */
+    public int readBatch(List<int[][]> out, int max) throws IOException {
+        int n = 0;
+        int[][] board;
+        while (n < max && (board = next()) != null) {
+            out.add(board);
+            n++;
+        }
+        return n;
+    }
+
+    private int[][] finishLine() throws IOException {
+        if (lineLength != BoardCodec.CELLS) {
+            throw new IOException("Line " + (lineNumber + (eof ? 1 : 0)) + " has " + lineLength + " cells, expected 81");
+        }
+        int[][] board = new int[9][9];
+        for (int i = 0; i < BoardCodec.CELLS; i++) {
+            byte ch = line[i];
+            if (ch == '.') {
+                continue;
+            }
+            if (ch < '0' || ch > '9') {
+                throw new IOException("Invalid cell '" + (char) ch + "' on line " + (lineNumber + (eof ? 1 : 0)));
+            }
+            board[i / 9][i % 9] = ch - '0';
+        }
+        lineLength = 0;
+        return board;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,86 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes boards as 81-character lines through a FileChannel with a reusable 64 KB buffer.
+ * Counterpart of PuzzleFileReader.
+ */
+public class PuzzleFileWriter implements AutoCloseable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    public PuzzleFileWriter(Path path) throws IOException {
+        this(path, 0);
+    }
+
+    /**
+     * Writer that keeps the first offset bytes of path and appends after them; used to resume
+     * a checkpointed job.
+     */
+    public PuzzleFileWriter(Path path, long offset) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(offset);
+        channel.position(offset);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public void write(int[][] board) throws IOException {
+        ensureCapacity(BoardCodec.CELLS + 1);
+        for (int r = 0; r < 9; r++) {
+            for (int c = 0; c < 9; c++) {
+                buffer.put((byte) ('0' + board[r][c]));
+            }
+        }
+        buffer.put((byte) '\n');
+    }
+
+    /**
+     * Write a '#' comment line; readers skip these.
+     */
+    public void writeComment(String text) throws IOException {
+        byte[] bytes = ("# " + text + "\n").getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        ensureCapacity(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private void ensureCapacity(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Flush and force the written lines to disk.
+     */
+    public void sync() throws IOException {
+        flush();
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
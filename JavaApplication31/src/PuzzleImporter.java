@@ -0,0 +1,289 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Imports external puzzle collections, one 81-cell puzzle per line ('0' or '.' for empty),
+ * into GameStorage.
+ *
+ * The file is memory-mapped in CHUNK_BYTES chunks that are parsed in parallel. A line belongs
+ * to the chunk it starts in, so chunks need no coordination. Workers decode cells straight
+ * from the mapped bytes into a reused board, with no String per line. They reject puzzles
+ * with conflicting givens (Verifier) and puzzles without exactly one solution (BitsetSolver).
+ * They also take the dedup fingerprint. Accepted puzzles come back packed as 162 bytes each
+ * (givens, then solution). The calling thread stores the chunks in file order, so the archive
+ * order matches the file and at most a few chunks are in memory at once.
+ *
+ * Blank lines and lines starting with '#' are skipped. Text after the 81st cell is ignored
+ * if it is separated by whitespace, ',', ';' or ':' (ratings, sources). A puzzle without a
+ * fixed difficulty goes to the level whose hole count is nearest: up to 15 holes EASY, up to
+ * 22 MEDIUM, else HARD. Not thread-safe; one import at a time per instance.
+ */
+public class PuzzleImporter {
+    static final int CHUNK_BYTES = 1 << 20;
+    // Longest line a chunk may finish past its end
+    static final int MAX_LINE_BYTES = 4096;
+    private static final int RECORD_BYTES = 2 * BoardCodec.CELLS;
+    private static final long SOLVE_NODES = 1_000_000;
+
+    enum Rejection { MALFORMED, INVALID, UNSOLVABLE, AMBIGUOUS }
+
+    private final GameStorage storage;
+    private final PuzzleIndex index;
+    private final DifficultyEnum difficulty;
+    private final ThreadLocal<Verifier> verifiers = ThreadLocal.withInitial(Verifier::new);
+    private final ThreadLocal<BitsetSolver> solvers = ThreadLocal.withInitial(() -> {
+        BitsetSolver solver = new BitsetSolver(BoardGeometry.STANDARD);
+        solver.setNodeLimit(SOLVE_NODES);
+        return solver;
+    });
+    private final Map<DifficultyEnum, Long> imported = new EnumMap<>(DifficultyEnum.class);
+    private final Map<Rejection, Long> rejected = new EnumMap<>(Rejection.class);
+    private long lines;
+    private long duplicates;
+    private String firstError;
+
+    /**
+     * storage receives the puzzles (create it without an index; dedup happens here against
+     * index, which may be null). difficulty null means pick one per puzzle from its holes.
+     */
+    public PuzzleImporter(GameStorage storage, PuzzleIndex index, DifficultyEnum difficulty) {
+        this.storage = storage;
+        this.index = index;
+        this.difficulty = difficulty;
+    }
+
+    /** Puzzle lines seen, accepted or not. */
+    public long getLines() {
+        return lines;
+    }
+
+    public long getImported() {
+        long total = 0;
+        for (long n : imported.values()) {
+            total += n;
+        }
+        return total;
+    }
+
+    public Map<DifficultyEnum, Long> getImportedByDifficulty() {
+        return imported;
+    }
+
+    public long getRejected() {
+        long total = 0;
+        for (long n : rejected.values()) {
+            total += n;
+        }
+        return total;
+    }
+
+    public Map<Rejection, Long> getRejections() {
+        return rejected;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /** Description of the first rejected line (with its byte offset), or null. */
+    public String getFirstError() {
+        return firstError;
+    }
+
+    /**
+     * Import every puzzle of file, parsing on executor with up to window chunks in flight.
+     */
+    public void importFile(Path file, ExecutorService executor, int window) throws Exception {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long chunks = (size + CHUNK_BYTES - 1) / CHUNK_BYTES;
+            Deque<Future<Chunk>> inFlight = new ArrayDeque<>();
+            long next = 0;
+            while (next < chunks || !inFlight.isEmpty()) {
+                while (next < chunks && inFlight.size() < window) {
+                    long start = next++ * CHUNK_BYTES;
+                    inFlight.add(executor.submit(() -> parse(channel, size, start)));
+                }
+                store(inFlight.poll().get());
+            }
+        }
+        if (index != null) {
+            index.flush();
+        }
+    }
+
+    /**
+     * Parse the lines that start in [start, start + CHUNK_BYTES).
+     */
+    private Chunk parse(FileChannel channel, long size, long start) throws IOException {
+        long end = Math.min(size, start + CHUNK_BYTES);
+        long mapStart = Math.max(0, start - 1);
+        long mapEnd = Math.min(size, end + MAX_LINE_BYTES);
+        MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+        int limit = bytes.limit();
+        int ownedEnd = (int) (end - mapStart);
+        int pos = 0;
+        if (start > 0) {
+            // The line in progress at start belongs to the previous chunk
+            while (pos < limit && bytes.get(pos) != '\n') {
+                pos++;
+            }
+            pos++;
+        }
+
+        Chunk chunk = new Chunk((int) (end - start) / (BoardCodec.CELLS + 1) + 1);
+        int[][] board = new int[9][9];
+        int[][] solution = new int[9][9];
+        while (pos < ownedEnd) {
+            int lineEnd = pos;
+            while (lineEnd < limit && bytes.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            if (lineEnd == limit && mapEnd < size) {
+                throw new IOException("Line at byte " + (mapStart + pos) + " is longer than " + MAX_LINE_BYTES + " bytes");
+            }
+            int cells = decode(bytes, pos, lineEnd, board);
+            if (cells > 0) {
+                chunk.check(mapStart + pos, cells == BoardCodec.CELLS ? classify(board, solution) : Rejection.MALFORMED, board, solution);
+            }
+            pos = lineEnd + 1;
+        }
+        return chunk;
+    }
+
+    /**
+     * Decode one line into board. Returns 0 for a blank or comment line, BoardCodec.CELLS for
+     * a puzzle, and any other positive number for a malformed line.
+     */
+    private static int decode(MappedByteBuffer bytes, int from, int to, int[][] board) {
+        int cells = 0;
+        for (int i = from; i < to; i++) {
+            byte b = bytes.get(i);
+            if (b >= '0' && b <= '9' || b == '.') {
+                if (cells == BoardCodec.CELLS) {
+                    return cells + 1;
+                }
+                board[cells / 9][cells % 9] = b == '.' ? 0 : b - '0';
+                cells++;
+            } else if (b == '#' && cells == 0) {
+                return 0;
+            } else if (b == '\r') {
+                continue;
+            } else if (cells == BoardCodec.CELLS && (b == ' ' || b == '\t' || b == ',' || b == ';' || b == ':')) {
+                return cells;
+            } else if (cells > 0 || (b != ' ' && b != '\t')) {
+                return cells == BoardCodec.CELLS ? cells + 1 : Math.max(cells, 1);
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Null if board is a proper puzzle (its solution written to solution), else the reason.
+     */
+    private Rejection classify(int[][] board, int[][] solution) {
+        if (verifiers.get().verifyState(board) == GameState.INVALID) {
+            return Rejection.INVALID;
+        }
+        switch (solvers.get().countSolutions(board, 2, solution)) {
+            case 0:
+                return Rejection.UNSOLVABLE;
+            case 1:
+                return solvers.get().isAborted() ? Rejection.UNSOLVABLE : null;
+            default:
+                return Rejection.AMBIGUOUS;
+        }
+    }
+
+    private void store(Chunk chunk) throws IOException {
+        lines += chunk.count + chunk.rejectedCount;
+        for (Map.Entry<Rejection, Long> e : chunk.rejected.entrySet()) {
+            rejected.merge(e.getKey(), e.getValue(), Long::sum);
+        }
+        if (firstError == null) {
+            firstError = chunk.firstError;
+        }
+        int[][] board = new int[9][9];
+        int[][] solution = new int[9][9];
+        for (int p = 0; p < chunk.count; p++) {
+            // Indexed only after the save, so a failed import can simply be run again
+            if (index != null && index.contains(chunk.fingerprints[p])) {
+                duplicates++;
+                continue;
+            }
+            int base = p * RECORD_BYTES;
+            int holes = 0;
+            for (int i = 0; i < BoardCodec.CELLS; i++) {
+                board[i / 9][i % 9] = chunk.records[base + i];
+                solution[i / 9][i % 9] = chunk.records[base + BoardCodec.CELLS + i];
+                if (board[i / 9][i % 9] == 0) {
+                    holes++;
+                }
+            }
+            DifficultyEnum level = difficulty != null ? difficulty : difficultyFor(holes);
+            storage.saveGame(level, board, solution);
+            if (index != null) {
+                index.add(chunk.fingerprints[p]);
+            }
+            imported.merge(level, 1L, Long::sum);
+        }
+    }
+
+    static DifficultyEnum difficultyFor(int holes) {
+        if (holes <= 15) {
+            return DifficultyEnum.EASY;
+        }
+        return holes <= 22 ? DifficultyEnum.MEDIUM : DifficultyEnum.HARD;
+    }
+
+    /**
+     * Accepted puzzles of one chunk, in file order, plus its rejection counts.
+     */
+    private final class Chunk {
+        private byte[] records;
+        private long[] fingerprints;
+        private int count;
+        private int rejectedCount;
+        private final Map<Rejection, Long> rejected = new EnumMap<>(Rejection.class);
+        private String firstError;
+
+        Chunk(int expected) {
+            records = new byte[expected * RECORD_BYTES];
+            fingerprints = new long[expected];
+        }
+
+        void check(long offset, Rejection rejection, int[][] board, int[][] solution) {
+            if (rejection != null) {
+                rejectedCount++;
+                rejected.merge(rejection, 1L, Long::sum);
+                if (firstError == null) {
+                    firstError = rejection + " puzzle at byte " + offset;
+                }
+                return;
+            }
+            if (count == fingerprints.length) {
+                records = Arrays.copyOf(records, 2 * records.length);
+                fingerprints = Arrays.copyOf(fingerprints, 2 * fingerprints.length);
+            }
+            int base = count * RECORD_BYTES;
+            for (int i = 0; i < BoardCodec.CELLS; i++) {
+                records[base + i] = (byte) board[i / 9][i % 9];
+                records[base + BoardCodec.CELLS + i] = (byte) solution[i / 9][i % 9];
+            }
+            if (index != null) {
+                fingerprints[count] = index.fingerprint(board);
+            }
+            count++;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Persistent duplicate-puzzle index: one 64-bit fingerprint per stored puzzle, held in a
+ * BloomFilter in front of a FingerprintSet and appended to an index file.
+ *
+ * Fingerprints are taken from the BoardCanonicalizer form by default, so puzzles that differ
+ * only by symmetry or relabeling count as duplicates (-Dsudoku.dedup.canonical=false for exact
+ * matches). Memory is about 6 bytes per entry (4 in the set at 0.8 load, 1 in the Bloom filter),
+ * so 100M puzzles fit in roughly 600 MB. The file holds full fingerprints and is replayed
+ * when the index is opened, and again whenever the set has to grow.
+ * Appends are buffered; up to BUFFER_ENTRIES fingerprints are lost if the process dies before
+ * flush or close, which only means those puzzles may be stored again. Thread-safe.
+ */
+public class PuzzleIndex implements AutoCloseable {
+    public static final String DEFAULT_FILE = GameStorage.BASE_DIR + java.io.File.separator + "puzzles.idx";
+
+    private static final int MAGIC = 0x5344_5849; // "SDXI"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int BUFFER_ENTRIES = 1024;
+    private static final int BLOOM_BITS_PER_ENTRY = 8;
+    private static final long MIN_CAPACITY = 1 << 16;
+
+    private static PuzzleIndex shared;
+
+    private final Path file;
+    private final boolean canonical;
+    private final FileChannel channel;
+    private final ByteBuffer pending = ByteBuffer.allocate(BUFFER_ENTRIES * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private BloomFilter bloom;
+    private FingerprintSet set;
+    private long capacity;
+    private long duplicates;
+
+    public PuzzleIndex(Path file, long expectedEntries, boolean canonical) throws IOException {
+        this.file = file;
+        this.canonical = canonical;
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long stored = openHeader();
+        this.capacity = Math.max(MIN_CAPACITY, Math.max(expectedEntries, stored + stored / 4));
+        rebuild();
+    }
+
+    /**
+     * Process-wide index at DEFAULT_FILE, opened on first use and closed at shutdown.
+     * Sized by -Dsudoku.dedup.capacity (default 1M, grows as needed).
+     */
+    public static synchronized PuzzleIndex shared() throws IOException {
+        if (shared == null) {
+            PuzzleIndex index = new PuzzleIndex(Paths.get(DEFAULT_FILE),
+                Long.getLong("sudoku.dedup.capacity", 1_000_000L),
+                Boolean.parseBoolean(System.getProperty("sudoku.dedup.canonical", "true")));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    index.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing puzzle index: " + e.getMessage());
+                }
+            }));
+            shared = index;
+        }
+        return shared;
+    }
+
+    /**
+     * Whether the shared index is used by GameStorage and Controller (-Dsudoku.dedup, default true).
+     */
+    public static boolean enabled() {
+        return Boolean.parseBoolean(System.getProperty("sudoku.dedup", "true"));
+    }
+
+    private long openHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        if (channel.size() == 0) {
+            header.putInt(MAGIC).putInt(VERSION).putInt(canonical ? 1 : 0).putInt(0).flip();
+            channel.write(header, 0);
+            return 0;
+        }
+        channel.read(header, 0);
+        header.flip();
+        if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Not a puzzle index file: " + file);
+        }
+        boolean fileCanonical = header.getInt() != 0;
+        if (fileCanonical != canonical) {
+            throw new IOException("Puzzle index " + file + " was built with canonical=" + fileCanonical);
+        }
+        return (channel.size() - HEADER_BYTES) / Long.BYTES;
+    }
+
+    /**
+     * Reload every fingerprint from the file into fresh structures sized for capacity.
+     * A torn trailing entry from an interrupted append is ignored.
+     */
+    private void rebuild() throws IOException {
+        bloom = new BloomFilter(capacity, BLOOM_BITS_PER_ENTRY);
+        set = new FingerprintSet(capacity);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        long position = HEADER_BYTES;
+        long end = HEADER_BYTES + (channel.size() - HEADER_BYTES) / Long.BYTES * Long.BYTES;
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - position));
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            position += read;
+            buffer.flip();
+            while (buffer.remaining() >= Long.BYTES) {
+                insert(buffer.getLong());
+            }
+        }
+        channel.position(end);
+    }
+
+    private void insert(long fingerprint) {
+        if (set.add(fingerprint)) {
+            bloom.add(fingerprint);
+        }
+    }
+
+    public long fingerprint(int[][] board) {
+        return fingerprint(board, canonical);
+    }
+
+    public boolean isCanonical() {
+        return canonical;
+    }
+
+    static long fingerprint(int[][] board, boolean canonical) {
+        BoardCanonicalizer.Canonical form = canonical
+            ? BoardCanonicalizer.canonicalize(board)
+            : BoardCanonicalizer.identity(board);
+        return BoardKey.of(form.cells).high();
+    }
+
+    public boolean contains(int[][] board) {
+        return contains(fingerprint(board));
+    }
+
+    public synchronized boolean contains(long fingerprint) {
+        return bloom.mightContain(fingerprint) && set.contains(fingerprint);
+    }
+
+    /**
+     * Record the puzzle. Returns false (and records nothing) if it is already indexed.
+     */
+    public boolean add(int[][] board) throws IOException {
+        return add(fingerprint(board));
+    }
+
+    public synchronized boolean add(long fingerprint) throws IOException {
+        if (bloom.mightContain(fingerprint) && set.contains(fingerprint)) {
+            duplicates++;
+            return false;
+        }
+        if (set.isFull()) {
+            flush();
+            capacity *= 2;
+            rebuild();
+        }
+        insert(fingerprint);
+        pending.putLong(fingerprint);
+        if (!pending.hasRemaining()) {
+            flush();
+        }
+        return true;
+    }
+
+    public synchronized void flush() throws IOException {
+        pending.flip();
+        while (pending.hasRemaining()) {
+            channel.write(pending);
+        }
+        pending.clear();
+    }
+
+    /**
+     * Flush and force the index file to disk.
+     */
+    public synchronized void sync() throws IOException {
+        flush();
+        channel.force(false);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public synchronized int size() {
+        return set.size();
+    }
+
+    public synchronized long getDuplicates() {
+        return duplicates;
+    }
+
+    public synchronized long sizeInBytes() {
+        return set.sizeInBytes() + bloom.sizeInBytes();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel.isOpen()) {
+            flush();
+            channel.close();
+        }
+    }
+}
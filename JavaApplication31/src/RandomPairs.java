@@ -1,33 +1,34 @@
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Random;
-import java.util.Set;
 
 public class RandomPairs {
-    private static final int MAX_COORD = 8;
-    private static final int MAX_UNIQUE_PAIRS = (MAX_COORD + 1) * (MAX_COORD + 1);
-    private final Random random;
+    private final int side;
+    private final CellSampler sampler;
 
     public RandomPairs() {
-        
-        this.random = new Random(System.currentTimeMillis());
+        this.side = 9;
+        this.sampler = new CellSampler();
+    }
+
+    public RandomPairs(long seed) {
+        this(BoardGeometry.STANDARD, seed);
+    }
+
+    public RandomPairs(BoardGeometry geometry, long seed) {
+        this.side = geometry.getSide();
+        this.sampler = new CellSampler(seed, geometry.getCells());
     }
 
     public List<int[]> generateDistinctPairs(int n) {
-        if (n < 0 || n > MAX_UNIQUE_PAIRS) {
-            throw new IllegalArgumentException("n must be between 0 and " + MAX_UNIQUE_PAIRS);
+        if (n < 0 || n > side * side) {
+            throw new IllegalArgumentException("n must be between 0 and " + side * side);
         }
-        Set<Integer> used = new HashSet<>();
+        sampler.reset();
         List<int[]> result = new ArrayList<>(n);
-        while (result.size() < n) {
-            int x = random.nextInt(MAX_COORD + 1);
-            int y = random.nextInt(MAX_COORD + 1);
-            int key = x * (MAX_COORD + 1) + y;
-            if (used.add(key)) {
-                result.add(new int[] { x, y });
-            }
+        for (int i = 0; i < n; i++) {
+            int cell = sampler.nextCell();
+            result.add(new int[] { cell / side, cell % side });
         }
         return result;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,458 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append-only text log split into segments.
+ *
+ * Lines go to the active file (e.g. sudoku_game.log) through one open channel. When the file
+ * passes maxBytes, or is older than maxAgeMillis, an append seals it. Sealing is a rename to
+ * "name-yyyyMMdd-HHmmss-seq.log" and reopening the active file; both are metadata operations.
+ * A single background thread gzips sealed segments to .log.gz and then applies retention:
+ * it keeps the newest retainSegments archives and at most retainBytes in total.
+ * Appends never wait for compression or retention.
+ * Segments left uncompressed by a crash are picked up when the log is opened.
+ *
+ * Every segment has a LogIndex sidecar with one record per ~16 KB block: byte range, time
+ * range and session ids. The active file's sidecar also records when it was opened, so a
+ * restart does not reset its age. Compression writes each block as a separate gzip member, so
+ * read(from, to, session) decompresses only the blocks that can match. Thread-safe.
+ */
+public class RollingLog implements AutoCloseable {
+    public static final String DEFAULT_FILE = "sudoku_game.log";
+
+    private static RollingLog shared;
+
+    private final Path active;
+    private final String prefix;
+    private final long maxBytes;
+    private final long maxAgeMillis;
+    private final int retainSegments;
+    private final long retainBytes;
+    private final ExecutorService compressor;
+    private final SimpleDateFormat stampFormat = new SimpleDateFormat("yyyyMMdd-HHmmss");
+
+    // Guarded by this
+    private FileChannel channel;
+    private FileChannel indexChannel;
+    private final LogIndex.Builder block = new LogIndex.Builder();
+    private long size;
+    private long openedAt;
+    private int sequence;
+    private long rotations;
+
+    public RollingLog(Path active, long maxBytes, long maxAgeMillis, int retainSegments, long retainBytes) throws IOException {
+        String name = active.getFileName().toString();
+        this.active = active.toAbsolutePath();
+        this.prefix = name.endsWith(".log") ? name.substring(0, name.length() - 4) : name;
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeMillis;
+        this.retainSegments = retainSegments;
+        this.retainBytes = retainBytes;
+        this.compressor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "log-compressor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        openActive();
+        compressor.submit(this::compressPending);
+    }
+
+    /**
+     * Process-wide log at DEFAULT_FILE, closed at shutdown. Limits come from
+     * -Dsudoku.log.maxBytes (10 MB), -Dsudoku.log.maxAgeMinutes (1440),
+     * -Dsudoku.log.retainSegments (20) and -Dsudoku.log.retainBytes (100 MB).
+     */
+    public static synchronized RollingLog shared() throws IOException {
+        if (shared == null) {
+            RollingLog log = new RollingLog(Paths.get(DEFAULT_FILE),
+                Long.getLong("sudoku.log.maxBytes", 10L << 20),
+                Long.getLong("sudoku.log.maxAgeMinutes", 1440L) * 60_000L,
+                Integer.getInteger("sudoku.log.retainSegments", 20),
+                Long.getLong("sudoku.log.retainBytes", 100L << 20));
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    log.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing game log: " + e.getMessage());
+                }
+            }));
+            shared = log;
+        }
+        return shared;
+    }
+
+    private void openActive() throws IOException {
+        if (active.getParent() != null) {
+            Files.createDirectories(active.getParent());
+        }
+        channel = FileChannel.open(active, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        size = channel.size();
+        Path index = LogIndex.sidecar(active);
+        long stored = LogIndex.openedAt(index);
+        // A sidecar from before the open time was recorded: the last write is the best bound left
+        openedAt = size == 0 ? System.currentTimeMillis()
+            : stored >= 0 ? stored : Files.getLastModifiedTime(active).toMillis();
+
+        // Rewrite the index so it covers exactly the existing file; lines past the last record
+        // (written just before a crash) become unknown blocks
+        List<LogIndex.Block> blocks = LogIndex.readCovering(active, size);
+        indexChannel = FileChannel.open(index, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+        LogIndex.writeHeader(indexChannel, openedAt);
+        for (LogIndex.Block existing : blocks) {
+            LogIndex.write(indexChannel, existing);
+        }
+        block.start(size);
+    }
+
+    /**
+     * Record the current block in the index. Caller holds the lock.
+     */
+    private void closeBlock() throws IOException {
+        if (!block.isEmpty()) {
+            LogIndex.write(indexChannel, block.build());
+        }
+        block.start(size);
+    }
+
+    /**
+     * Append one line (a line separator is added if missing), indexed under the current time.
+     */
+    public void append(String line) throws IOException {
+        append(line, System.currentTimeMillis(), 0);
+    }
+
+    /**
+     * Append one line indexed under timestamp and session (0 for none), sealing the segment
+     * first if it is full or too old.
+     */
+    public void append(String line, long timestamp, long session) throws IOException {
+        String text = line.endsWith(System.lineSeparator()) ? line : line + System.lineSeparator();
+        ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        synchronized (this) {
+            if (channel == null) {
+                throw new IOException("Log " + active + " is closed");
+            }
+            if (size > 0 && (size + bytes.remaining() > maxBytes || System.currentTimeMillis() - openedAt > maxAgeMillis)) {
+                rotate();
+            } else if (block.getLength() + bytes.remaining() > LogIndex.BLOCK_BYTES) {
+                closeBlock();
+            }
+            int length = bytes.remaining();
+            while (bytes.hasRemaining()) {
+                size += channel.write(bytes);
+            }
+            block.add(length, timestamp, session);
+        }
+    }
+
+    /**
+     * Seal the active file now. Caller holds the lock.
+     */
+    private void rotate() throws IOException {
+        closeBlock();
+        channel.close();
+        indexChannel.close();
+        String stamp = stampFormat.format(new Date());
+        Path sealed;
+        do {
+            sealed = active.resolveSibling(prefix + "-" + stamp + String.format("-%04d.log", sequence++ % 10_000));
+        } while (Files.exists(sealed) || Files.exists(sealed.resolveSibling(sealed.getFileName() + ".gz")));
+        // Index first: a segment without its index is still read, just without skipping
+        Files.move(LogIndex.sidecar(active), LogIndex.sidecar(sealed), StandardCopyOption.ATOMIC_MOVE);
+        Files.move(active, sealed, StandardCopyOption.ATOMIC_MOVE);
+        rotations++;
+        openActive();
+        Path segment = sealed;
+        compressor.submit(() -> compress(segment));
+    }
+
+    public synchronized long getRotations() {
+        return rotations;
+    }
+
+    /**
+     * Archived segments, oldest first.
+     */
+    public List<Path> getArchives() throws IOException {
+        return segments(".log.gz");
+    }
+
+    /**
+     * Wait until every sealed segment so far has been compressed and retention has run.
+     */
+    public void awaitCompression() throws IOException {
+        try {
+            compressor.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting for log compression", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private List<Path> segments(String suffix) throws IOException {
+        List<Path> found = new ArrayList<>();
+        Path dir = active.getParent();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, prefix + "-*" + suffix)) {
+            for (Path p : stream) {
+                found.add(p);
+            }
+        }
+        // Names embed timestamp and sequence, so name order is age order
+        Collections.sort(found);
+        return found;
+    }
+
+    private void compressPending() {
+        try {
+            for (String suffix : new String[]{".log.gz.tmp", ".log.gz.idx.tmp"}) {
+                for (Path tmp : segments(suffix)) {
+                    Files.deleteIfExists(tmp);
+                }
+            }
+            for (Path sealed : segments(".log")) {
+                compress(sealed);
+            }
+        } catch (IOException e) {
+            System.err.println("Error compressing game log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gzip a sealed segment one index block per gzip member (the result is still a normal .gz
+     * file) and write its index with the compressed offsets.
+     */
+    private void compress(Path sealed) {
+        Path tmp = sealed.resolveSibling(sealed.getFileName() + ".gz.tmp");
+        Path target = sealed.resolveSibling(sealed.getFileName() + ".gz");
+        Path indexTmp = LogIndex.sidecar(target).resolveSibling(LogIndex.sidecar(target).getFileName() + ".tmp");
+        if (!Files.exists(sealed)) {
+            // Already compressed by the pass that runs when the log is opened
+            return;
+        }
+        try {
+            List<LogIndex.Block> blocks = LogIndex.readCovering(sealed, Files.size(sealed));
+            try (FileChannel in = FileChannel.open(sealed, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING);
+                 FileChannel index = FileChannel.open(indexTmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteArrayOutputStream member = new ByteArrayOutputStream();
+                long offset = 0;
+                for (LogIndex.Block b : blocks) {
+                    member.reset();
+                    try (OutputStream gzip = new GZIPOutputStream(member)) {
+                        gzip.write(readFully(in, b.offset, b.length));
+                    }
+                    ByteBuffer bytes = ByteBuffer.wrap(member.toByteArray());
+                    int length = bytes.remaining();
+                    while (bytes.hasRemaining()) {
+                        out.write(bytes);
+                    }
+                    LogIndex.write(index, b.moved(offset, length));
+                    offset += length;
+                }
+            }
+            Files.move(indexTmp, LogIndex.sidecar(target), StandardCopyOption.ATOMIC_MOVE);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(sealed);
+            Files.deleteIfExists(LogIndex.sidecar(sealed));
+            applyRetention();
+        } catch (IOException e) {
+            System.err.println("Error compressing game log " + sealed + ": " + e.getMessage());
+        }
+    }
+
+    private void applyRetention() throws IOException {
+        List<Path> archives = segments(".log.gz");
+        long total = 0;
+        for (Path p : archives) {
+            total += Files.size(p);
+        }
+        for (int i = 0; i < archives.size() && (archives.size() - i > retainSegments || total > retainBytes); i++) {
+            total -= Files.size(archives.get(i));
+            Files.deleteIfExists(archives.get(i));
+            Files.deleteIfExists(LogIndex.sidecar(archives.get(i)));
+        }
+    }
+
+    private static byte[] readFully(FileChannel in, long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Log segment shorter than its index");
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Lines from every block that may hold entries with a timestamp in [from, to] and, unless
+     * session is 0, that session. The result is a superset: callers filter the parsed lines.
+     * Archives come first, oldest first, then the active file.
+     */
+    public List<String> read(long from, long to, long session) throws IOException {
+        long seen = getRotations();
+        // Sealed segments are listed first: one compressed in between then shows up twice, not never
+        List<Path> sealed = segments(".log");
+        List<Path> archives = segments(".log.gz");
+        List<LogIndex.Block> blocks = null;
+        FileChannel in = null;
+        synchronized (this) {
+            if (channel != null) {
+                if (rotations != seen) {
+                    // Sealed after the listing: its lines are no longer in the active file
+                    for (Path segment : segments(".log")) {
+                        if (!sealed.contains(segment)) {
+                            sealed.add(segment);
+                        }
+                    }
+                    Collections.sort(sealed);
+                }
+                blocks = new ArrayList<>(LogIndex.read(LogIndex.sidecar(active)));
+                if (!block.isEmpty()) {
+                    blocks.add(block.build());
+                }
+                // Opened under the lock, so a rotation from here on renames the file under the
+                // channel and the block offsets still refer to what it reads
+                in = FileChannel.open(active, StandardOpenOption.READ);
+            }
+        }
+        List<String> lines = new ArrayList<>();
+        try {
+            for (Path archive : archives) {
+                // Gone only if retention deleted it, and then its lines are gone too
+                readSegment(archive, true, from, to, session, lines);
+            }
+            for (Path segment : sealed) {
+                Path compressed = segment.resolveSibling(segment.getFileName() + ".gz");
+                if (!archives.contains(compressed) && !readSegment(segment, false, from, to, session, lines)) {
+                    // Compressed since it was listed; the .gz is in place before the .log goes
+                    readSegment(compressed, true, from, to, session, lines);
+                }
+            }
+            if (in != null) {
+                readBlocks(in, blocks, false, from, to, session, lines);
+            }
+        } finally {
+            if (in != null) {
+                in.close();
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Read a sealed or archived segment; false if it no longer exists.
+     */
+    private static boolean readSegment(Path segment, boolean gzip, long from, long to, long session,
+                                       List<String> lines) throws IOException {
+        int before = lines.size();
+        try {
+            readBlocks(segment, LogIndex.readCovering(segment, Files.size(segment)), gzip, from, to, session, lines);
+            return true;
+        } catch (NoSuchFileException e) {
+            lines.subList(before, lines.size()).clear();
+            return false;
+        }
+    }
+
+    private static void readBlocks(Path file, List<LogIndex.Block> blocks, boolean gzip,
+                                   long from, long to, long session, List<String> lines) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            readBlocks(in, blocks, gzip, from, to, session, lines);
+        }
+    }
+
+    private static void readBlocks(FileChannel in, List<LogIndex.Block> blocks, boolean gzip,
+                                   long from, long to, long session, List<String> lines) throws IOException {
+        for (LogIndex.Block b : blocks) {
+            if (!b.matches(from, to, session)) {
+                continue;
+            }
+            byte[] bytes = readFully(in, b.offset, b.length);
+            String text;
+            if (gzip) {
+                try (GZIPInputStream unzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+                    text = new String(unzip.readAllBytes(), StandardCharsets.UTF_8);
+                }
+            } else {
+                text = new String(bytes, StandardCharsets.UTF_8);
+            }
+            for (String line : text.split("\\R")) {
+                if (!line.isEmpty()) {
+                    lines.add(line);
+                }
+            }
+        }
+    }
+
+    /**
+     * Delete the active file and every segment, then start a fresh active file.
+     */
+    public void clear() throws IOException {
+        synchronized (this) {
+            if (channel != null) {
+                channel.close();
+                indexChannel.close();
+            }
+            Files.deleteIfExists(active);
+            Files.deleteIfExists(LogIndex.sidecar(active));
+            openActive();
+        }
+        try {
+            // Runs after any compression already queued, so no archive reappears afterwards
+            compressor.submit(() -> {
+                for (String suffix : new String[]{".log", ".log.gz", ".log.gz.tmp", ".log.idx", ".log.gz.idx", ".log.gz.idx.tmp"}) {
+                    for (Path p : segments(suffix)) {
+                        Files.deleteIfExists(p);
+                    }
+                }
+                return null;
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted clearing log", e);
+        } catch (ExecutionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (channel == null) {
+                return;
+            }
+            closeBlock();
+            channel.close();
+            indexChannel.close();
+            channel = null;
+        }
+        compressor.shutdown();
+    }
+}
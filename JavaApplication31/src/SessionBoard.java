@@ -0,0 +1,74 @@
+import java.io.Serializable;
+
+/**
+ * One player's board: a shared immutable Puzzle plus an 81-byte delta of player entries.
+ * Givens cannot be overwritten. Not thread-safe; owned by a single session.
+ */
+public final class SessionBoard implements BoardView, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Puzzle puzzle;
+    private final byte[] entries = new byte[81];
+    private int emptyCount;
+
+    public SessionBoard(Puzzle puzzle) {
+        this.puzzle = puzzle;
+        this.emptyCount = puzzle.getEmptyCount();
+    }
+
+    /**
+     * Session for the puzzle with the player's entries taken from board
+     * (cells that are givens in the puzzle are ignored).
+     */
+    public SessionBoard(Puzzle puzzle, int[][] board) {
+        this(puzzle);
+        for (int r = 0; r < 9; r++) {
+            for (int c = 0; c < 9; c++) {
+                if (!puzzle.isGiven(r, c) && board[r][c] != 0) {
+                    set(r, c, board[r][c]);
+                }
+            }
+        }
+    }
+
+    public Puzzle getPuzzle() {
+        return puzzle;
+    }
+
+    @Override
+    public int get(int row, int col) {
+        int cell = row * 9 + col;
+        return puzzle.isGiven(row, col) ? puzzle.get(row, col) : entries[cell];
+    }
+
+    @Override
+    public boolean isGiven(int row, int col) {
+        return puzzle.isGiven(row, col);
+    }
+
+    @Override
+    public int getEmptyCount() {
+        return emptyCount;
+    }
+
+    /**
+     * Set a player entry (0 clears it) and return the previous value.
+     */
+    public int set(int row, int col, int value) {
+        if (value < 0 || value > 9) {
+            throw new IllegalArgumentException("Value must be 0-9: " + value);
+        }
+        if (puzzle.isGiven(row, col)) {
+            throw new IllegalArgumentException("Cell [" + row + "][" + col + "] is a given");
+        }
+        int cell = row * 9 + col;
+        int previous = entries[cell];
+        if (previous == 0 && value != 0) {
+            emptyCount--;
+        } else if (previous != 0 && value == 0) {
+            emptyCount++;
+        }
+        entries[cell] = (byte) value;
+        return previous;
+    }
+}
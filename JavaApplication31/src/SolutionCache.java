@@ -0,0 +1,114 @@
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * Bounded LRU map from board fingerprint to solved board (both in canonical form).
+ * Thread-safe; hits and misses are counted for the hit-rate MBean.
+ */
+public class SolutionCache implements SolutionCacheMBean {
+    private static final SolutionCache SHARED = new SolutionCache(Integer.getInteger("sudoku.solveCache.size", 10_000));
+
+    static {
+        if (Metrics.ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    new StandardMBean(SHARED, SolutionCacheMBean.class),
+                    new ObjectName("sudoku:type=Cache,name=solutions"));
+            } catch (Exception e) {
+                System.err.println("Error registering cache MBean: " + e.getMessage());
+            }
+        }
+    }
+
+    private final int capacity;
+    private final LinkedHashMap<BoardKey, byte[]> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SolutionCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<BoardKey, byte[]> eldest) {
+                return size() > SolutionCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Process-wide cache shared by every Controller session.
+     */
+    public static SolutionCache shared() {
+        return SHARED;
+    }
+
+    public byte[] get(BoardKey key) {
+        byte[] value;
+        synchronized (entries) {
+            value = entries.get(key);
+        }
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    public void put(BoardKey key, byte[] solution) {
+        synchronized (entries) {
+            entries.put(key, solution);
+        }
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    @Override
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+        hits.reset();
+        misses.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-14s size=%d/%d hits=%d misses=%d hitRate=%.3f",
+            "solveCache", getSize(), capacity, getHits(), getMisses(), getHitRate());
+    }
+}
@@ -0,0 +1,13 @@
+public interface SolutionCacheMBean {
+    long getHits();
+
+    long getMisses();
+
+    double getHitRate();
+
+    int getSize();
+
+    int getCapacity();
+
+    void clear();
+}
@@ -1,3 +1,12 @@
 public interface SolveStrategy {
     int[][] solve(int[][] game) throws Exception;
+
+    /**
+     * Solve, giving up with a CancellationException once token is cancelled. Strategies that
+     * can run long override this and poll the token; the default ignores it.
+     */
+    default int[][] solve(int[][] game, CancellationToken token) throws Exception {
+        token.throwIfCancelled();
+        return solve(game);
+    }
 }
@@ -0,0 +1,7 @@
+public interface SolverCountersMBean {
+    long getNodesVisited();
+
+    long getCandidatesRejected();
+
+    void reset();
+}
@@ -0,0 +1,120 @@
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Startup timing, optional JIT warm-up and the AppCDS training workload.
+ *
+ * With -Dsudoku.startup.report=true, mark(event) records the first time an event happens, in
+ * milliseconds since the JVM started, and prints it to stderr. The launcher marks
+ * "first-frame" when its window opens, and MeteredSolveStrategy marks "first-solve". Without
+ * the flag mark does nothing: reading the JVM start time loads java.management, which would
+ * itself add to startup.
+ * -Dsudoku.startup.lazy (default true) lets the launcher open before source.txt is read and
+ * verified; the check then runs in the background.
+ * -Dsudoku.warmup=true starts a low-priority daemon thread that runs the solvers and the
+ * Verifier on built-in boards so the first real solve runs compiled code. It calls the raw
+ * strategies, so the solution cache stays empty; with -Dsudoku.metrics=true its nodes are
+ * counted like any other.
+ * "Main train" runs the warm-up inline and loads the GUI and tool classes without opening a
+ * window.
+ * "ant cds-archive" records an AppCDS archive from that run.
+ */
+public final class Startup {
+    public static final boolean LAZY = Boolean.parseBoolean(System.getProperty("sudoku.startup.lazy", "true"));
+    public static final boolean REPORT = Boolean.getBoolean("sudoku.startup.report");
+    static final int WARMUP_ROUNDS = 2_000;
+
+    // Loaded during training so the archive also covers the GUI and the command-line tools
+    private static final String[] ENTRY_CLASSES = {
+        "GameLauncherGUI", "SudokuGUI", "BoardComponent", "javax.swing.JFrame", "javax.swing.JButton",
+        "javax.swing.JLabel", "javax.swing.JPanel", "javax.swing.JOptionPane", "javax.swing.SwingWorker",
+        "BatchTool", "PuzzleFileReader", "PuzzleFileWriter", "PuzzleImporter", "SudokuServer", "PlayerSimulator"
+    };
+
+    private static final Map<String, Long> MARKS = new ConcurrentHashMap<>();
+
+    private Startup() {
+    }
+
+    /**
+     * Record event the first time it happens; later calls are ignored.
+     */
+    public static void mark(String event) {
+        if (!REPORT || MARKS.containsKey(event)) {
+            return;
+        }
+        long elapsed = ManagementFactory.getRuntimeMXBean().getUptime();
+        if (MARKS.putIfAbsent(event, elapsed) == null) {
+            System.err.println("startup: " + event + " after " + elapsed + " ms");
+        }
+    }
+
+    /**
+     * Milliseconds from JVM start to the first occurrence of event, or -1 if it has not
+     * happened or reporting is off.
+     */
+    public static long elapsed(String event) {
+        return MARKS.getOrDefault(event, -1L);
+    }
+
+    /**
+     * Start the background warm-up if -Dsudoku.warmup=true.
+     */
+    public static void warmUpIfEnabled() {
+        if (!Boolean.getBoolean("sudoku.warmup")) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            warmUp(WARMUP_ROUNDS);
+            mark("warm-up-done");
+        }, "solver-warmup");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Exercise verification and the solve paths rounds times.
+     */
+    static void warmUp(int rounds) {
+        int[][] solved = BoardCodec.fromLine(LoadGenerator.SOLVED);
+        String fiveHoles = LoadGenerator.fiveHoleBoard();
+        // A sparse puzzle makes the searches branch, so their inner loops get compiled too
+        String sparse = BoardCodec.toLine(new BitsetGenerator(BoardGeometry.STANDARD, 1).generate(55));
+        Verifier verifier = new Verifier();
+        SolveStrategy backtracking = new BacktrackingSolveStrategy();
+        SolveStrategy permutation = new PermutationSolveStrategy();
+        BitsetSolver bitset = new BitsetSolver(BoardGeometry.STANDARD);
+        try {
+            for (int i = 0; i < rounds; i++) {
+                verifier.verifyState(solved);
+                int[][] board = BoardCodec.fromLine(sparse);
+                verifier.verifyState(board);
+                verifier.verify(board);
+                bitset.countSolutions(board, 2);
+                backtracking.solve(board);
+                // Each permutation solve costs milliseconds; a few are enough to compile it
+                if (i % 100 == 0) {
+                    permutation.solve(BoardCodec.fromLine(fiveHoles));
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Warm-up failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Training workload for the AppCDS archive: warm-up plus loading (not initializing) the
+     * entry-point classes.
+     */
+    public static void main(String[] args) throws Exception {
+        warmUp(args.length > 0 ? Integer.parseInt(args[0]) : 200);
+        new Controller();
+        ClassLoader loader = Startup.class.getClassLoader();
+        for (String name : ENTRY_CLASSES) {
+            Class.forName(name, false, loader);
+        }
+        System.out.println("train: done");
+    }
+}
@@ -4,36 +4,24 @@ import javax.swing.border.LineBorder;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
-import java.util.List;
 
 public class SudokuGUI extends JFrame {
-    private static final Color BG_COLOR = new Color(240, 240, 240);
-    private static final Color SELECTED_COLOR = new Color(200, 230, 255);
-    private static final Color ERROR_COLOR = new Color(255, 200, 200);
-    private static final Color GRID_COLOR = new Color(0, 0, 0);
-    
-    private JButton[][] cells = new JButton[9][9];
+    private static final long serialVersionUID = 1L;
     private int[][] solution;
     private int[][] puzzle;
     private boolean[][] isOriginal;
-    private Controllable controller;
-    private JPanel boardPanel;
+    private transient Controllable controller;
+    private BoardComponent board;
     private JButton checkButton;
     private JButton solveButton;
     private JButton undoButton;
+    private JButton redoButton;
+    private JButton hintButton;
     private JButton newGameButton;
     private JLabel faultsLabel;
     private Point selectedCell = null;
     private int faults = 0;
     private boolean gameOver = false;
-
-    private static final String INCOMPLETE_DIR = "sudoku_games" + File.separator + "incomplete";
-    private static final String INCOMPLETE_SAVE_FILE = INCOMPLETE_DIR + File.separator + "game.txt";
-    private static final String INCOMPLETE_LOG_FILE = INCOMPLETE_DIR + File.separator + "log.txt";
     
     public SudokuGUI(Controllable controller) {
         this.controller = controller;
@@ -89,86 +77,23 @@ public class SudokuGUI extends JFrame {
         setLayout(new BorderLayout(10, 10));
         
         
-        boardPanel = new JPanel(new GridLayout(3, 3, 2, 2));
-        boardPanel.setBackground(GRID_COLOR);
-        boardPanel.setBorder(BorderFactory.createLineBorder(GRID_COLOR, 2));
-        
-        
-        JPanel[][] subgrids = new JPanel[3][3];
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
-                subgrids[i][j] = new JPanel(new GridLayout(3, 3, 1, 1));
-                subgrids[i][j].setBackground(GRID_COLOR);
-                subgrids[i][j].setBorder(BorderFactory.createLineBorder(GRID_COLOR, 1));
-                boardPanel.add(subgrids[i][j]);
-            }
-        }
-        
-        
-        for (int i = 0; i < 9; i++) {
-            for (int j = 0; j < 9; j++) {
-                final int row = i;
-                final int col = j;
-                
-                cells[i][j] = new JButton();
-                cells[i][j].setFont(new Font("Arial", Font.BOLD, 20));
-                cells[i][j].setFocusPainted(false);
-                cells[i][j].setBackground(BG_COLOR);
-                cells[i][j].setBorder(BorderFactory.createLineBorder(Color.LIGHT_GRAY));
-                
-                
-                if (puzzle[i][j] != 0) {
-                    cells[i][j].setText(String.valueOf(puzzle[i][j]));
-                    boolean isCorrect = (puzzle[i][j] == solution[i][j]);
-                    cells[i][j].setForeground(isCorrect ? new Color(0, 100, 0) : Color.RED);
-                } else {
-                    cells[i][j].setText("");
+        board = new BoardComponent();
+        board.setBoard(puzzle, isOriginal, solution);
+        board.setCellListener(new BoardComponent.CellListener() {
+            @Override
+            public void cellSelected(int row, int col) {
+                if (!isOriginal[row][col]) {
+                    selectCell(row, col);
                 }
+            }
 
-                if (isOriginal[i][j]) {
-                    cells[i][j].setForeground(Color.BLACK);
-                    cells[i][j].setEnabled(false);
-                } else {
-                    cells[i][j].addActionListener(e -> selectCell(row, col));
-
-                    
-                    cells[i][j].addKeyListener(new KeyAdapter() {
-                        @Override
-                        public void keyPressed(KeyEvent e) {
-                            if (selectedCell == null || gameOver) return;
-
-                            int keyCode = e.getKeyCode();
-
-                            
-                            if (keyCode >= KeyEvent.VK_1 && keyCode <= KeyEvent.VK_9) {
-                                setCellValue(selectedCell.x, selectedCell.y, keyCode - KeyEvent.VK_0);
-                            }
-                            
-                            else if (keyCode >= KeyEvent.VK_NUMPAD1 && keyCode <= KeyEvent.VK_NUMPAD9) {
-                                setCellValue(selectedCell.x, selectedCell.y, keyCode - KeyEvent.VK_NUMPAD0);
-                            }
-                            
-                            else if (keyCode == KeyEvent.VK_BACK_SPACE || keyCode == KeyEvent.VK_DELETE) {
-                                setCellValue(selectedCell.x, selectedCell.y, 0);
-                            }
-                            
-                            else if (keyCode == KeyEvent.VK_UP && selectedCell.x > 0) {
-                                selectCell(selectedCell.x - 1, selectedCell.y);
-                            } else if (keyCode == KeyEvent.VK_DOWN && selectedCell.x < 8) {
-                                selectCell(selectedCell.x + 1, selectedCell.y);
-                            } else if (keyCode == KeyEvent.VK_LEFT && selectedCell.y > 0) {
-                                selectCell(selectedCell.x, selectedCell.y - 1);
-                            } else if (keyCode == KeyEvent.VK_RIGHT && selectedCell.y < 8) {
-                                selectCell(selectedCell.x, selectedCell.y + 1);
-                            }
-                        }
-                    });
+            @Override
+            public void valueEntered(int row, int col, int value) {
+                if (!gameOver) {
+                    setCellValue(row, col, value);
                 }
-                
-                
-                subgrids[i/3][j/3].add(cells[i][j]);
             }
-        }
+        });
         
         
         JPanel controlPanel = new JPanel();
@@ -188,16 +113,22 @@ public class SudokuGUI extends JFrame {
         checkButton = new JButton("Verify");
         solveButton = new JButton("Solve");
         undoButton = new JButton("Undo");
+        redoButton = new JButton("Redo");
+        hintButton = new JButton("Hint");
         newGameButton = new JButton("New Game");
         
         styleButton(checkButton, new Color(100, 200, 100));
         styleButton(solveButton, new Color(100, 150, 255));
         styleButton(undoButton, new Color(160, 160, 160));
+        styleButton(redoButton, new Color(160, 160, 160));
+        styleButton(hintButton, new Color(180, 140, 220));
         styleButton(newGameButton, new Color(255, 150, 100));
         
         checkButton.addActionListener(e -> checkSolution());
         solveButton.addActionListener(e -> solvePuzzle());
         undoButton.addActionListener(e -> undoLastMove());
+        redoButton.addActionListener(e -> redoMove());
+        hintButton.addActionListener(e -> showHint());
         newGameButton.addActionListener(e -> {
             try {
                 controller.saveGame();
@@ -216,6 +147,8 @@ public class SudokuGUI extends JFrame {
         buttonPanel.add(checkButton);
         buttonPanel.add(solveButton);
         buttonPanel.add(undoButton);
+        buttonPanel.add(redoButton);
+        buttonPanel.add(hintButton);
         buttonPanel.add(newGameButton);
         
         
@@ -224,7 +157,7 @@ public class SudokuGUI extends JFrame {
         controlPanel.add(buttonPanel);
         
         
-        add(boardPanel, BorderLayout.CENTER);
+        add(board, BorderLayout.CENTER);
         add(controlPanel, BorderLayout.SOUTH);
         
         
@@ -241,7 +174,7 @@ public class SudokuGUI extends JFrame {
             }
         }
         solveButton.setEnabled(remaining == 5);
-        undoButton.setEnabled(hasUndoEntries());
+        updateHistoryButtons();
 
         
         if (remaining == 0) {
@@ -262,22 +195,9 @@ public class SudokuGUI extends JFrame {
     private void selectCell(int row, int col) {
         if (gameOver) return;
 
-        
-        if (selectedCell != null) {
-            int prevRow = selectedCell.x;
-            int prevCol = selectedCell.y;
-            cells[prevRow][prevCol].setBackground(
-                isOriginal[prevRow][prevCol] ? BG_COLOR : 
-                (puzzle[prevRow][prevCol] == 0 ? BG_COLOR : 
-                (puzzle[prevRow][prevCol] == solution[prevRow][prevCol] ? 
-                    new Color(200, 255, 200) : new Color(255, 200, 200)))
-            );
-        }
-
-        
         selectedCell = new Point(row, col);
-        cells[row][col].setBackground(SELECTED_COLOR);
-        cells[row][col].requestFocusInWindow();
+        board.setSelected(row, col);
+        board.requestFocusInWindow();
     }
 
     private void setCellValue(int row, int col, int value) {
@@ -290,18 +210,10 @@ public class SudokuGUI extends JFrame {
             return;
         }
 
-        appendLogEntry(row, col, value, prevValue);
+        controller.setCellValue(row, col, value);
         puzzle[row][col] = value;
-        boolean isCorrect = true;
-        if (value == 0) {
-            cells[row][col].setText("");
-            cells[row][col].setBackground(SELECTED_COLOR);
-            cells[row][col].setForeground(Color.BLACK);
-        } else {
-            cells[row][col].setText(String.valueOf(value));
-            isCorrect = (value == solution[row][col]);
-            cells[row][col].setForeground(isCorrect ? new Color(0, 100, 0) : Color.RED);
-        }
+        board.setValue(row, col, value);
+        boolean isCorrect = value == 0 || value == solution[row][col];
 
         if (!isCorrect) {
             faults++;
@@ -338,7 +250,7 @@ public class SudokuGUI extends JFrame {
         }
 
         solveButton.setEnabled(remaining == 5);
-        undoButton.setEnabled(hasUndoEntries());
+        updateHistoryButtons();
 
         
         if (remaining == 0) {
@@ -372,6 +284,8 @@ public class SudokuGUI extends JFrame {
         gameOver = true;
         solveButton.setEnabled(false);
         undoButton.setEnabled(false);
+        redoButton.setEnabled(false);
+        hintButton.setEnabled(false);
 
         try {
             controller.deleteCurrentGame();
@@ -415,13 +329,7 @@ public class SudokuGUI extends JFrame {
                 for (int i = 0; i < 9; i++) {
                     for (int j = 0; j < 9; j++) {
                         if (!isOriginal[i][j]) {
-                            if (puzzle[i][j] == 0) {
-                                cells[i][j].setText("");
-                            } else {
-                                cells[i][j].setText(String.valueOf(puzzle[i][j]));
-                            }
-                            boolean isCorrect = (puzzle[i][j] != 0 && puzzle[i][j] == solution[i][j]);
-                            cells[i][j].setForeground(isCorrect ? new Color(0, 100, 0) : Color.RED);
+                            board.setValue(i, j, puzzle[i][j]);
                         }
                     }
                 }
@@ -429,6 +337,8 @@ public class SudokuGUI extends JFrame {
                 gameOver = true;
                 solveButton.setEnabled(false);
                 undoButton.setEnabled(false);
+                redoButton.setEnabled(false);
+                hintButton.setEnabled(false);
 
                 controller.deleteCurrentGame();
             } catch (Exception e) {
@@ -440,89 +350,81 @@ public class SudokuGUI extends JFrame {
         }
     }
 
-    private boolean hasUndoEntries() {
-        try {
-            Path log = Paths.get(INCOMPLETE_LOG_FILE);
-            if (!Files.exists(log)) return false;
-            List<String> lines = Files.readAllLines(log);
-            return !lines.isEmpty();
-        } catch (IOException e) {
-            return false;
-        }
-    }
-
-    private void appendLogEntry(int x, int y, int val, int prev) {
-        try {
-            Files.createDirectories(Paths.get(INCOMPLETE_DIR));
-
-            Path save = Paths.get(INCOMPLETE_SAVE_FILE);
-            if (!Files.exists(save)) {
-                controller.saveGame();
-            }
+    private void showHint() {
+        if (gameOver) return;
 
-            String line = "(" + x + ", " + y + ", " + val + ", " + prev + ")" + System.lineSeparator();
-            Files.writeString(Paths.get(INCOMPLETE_LOG_FILE), line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
-        } catch (IOException e) {
+        Hint hint = controller.getHint();
+        if (hint == null) {
             JOptionPane.showMessageDialog(this,
-                "Error writing log: " + e.getMessage(),
-                "Error",
-                JOptionPane.ERROR_MESSAGE);
+                "No hint available.",
+                "Hint",
+                JOptionPane.INFORMATION_MESSAGE);
+            return;
         }
+
+        selectCell(hint.getRow(), hint.getCol());
+        String message;
+        if (hint.getTechnique() == Hint.Technique.MISTAKE) {
+            message = "Cell (" + (hint.getRow() + 1) + ", " + (hint.getCol() + 1) + ") is wrong; it should be "
+                + hint.getValue() + ".";
+        } else {
+            message = "Cell (" + (hint.getRow() + 1) + ", " + (hint.getCol() + 1) + ") must be "
+                + hint.getValue() + " (" + hint.getTechnique() + ").";
+        }
+        JOptionPane.showMessageDialog(this,
+            message,
+            "Hint",
+            JOptionPane.INFORMATION_MESSAGE);
     }
 
-    private void undoLastMove() {
-        if (gameOver) return;
+    private void updateHistoryButtons() {
+        undoButton.setEnabled(controller.canUndo());
+        redoButton.setEnabled(controller.canRedo());
+    }
 
-        Path log = Paths.get(INCOMPLETE_LOG_FILE);
-        if (!Files.exists(log)) {
-            undoButton.setEnabled(false);
+    private void undoLastMove() {
+        if (gameOver || !controller.undoLastMove()) {
+            updateHistoryButtons();
             return;
         }
+        afterHistoryMove();
+    }
 
-        try {
-            List<String> lines = Files.readAllLines(log);
-            if (lines.isEmpty()) {
-                undoButton.setEnabled(false);
-                return;
-            }
+    private void redoMove() {
+        if (gameOver || !controller.redoMove()) {
+            updateHistoryButtons();
+            return;
+        }
+        afterHistoryMove();
+    }
 
-            String last = lines.get(lines.size() - 1).trim();
-            String cleaned = last.replace("(", "").replace(")", "");
-            String[] parts = cleaned.split(",");
-            int x = Integer.parseInt(parts[0].trim());
-            int y = Integer.parseInt(parts[1].trim());
-            int prev = Integer.parseInt(parts[3].trim());
-
-            lines = lines.subList(0, lines.size() - 1);
-            Files.write(log, lines);
-
-            if (!isOriginal[x][y]) {
-                puzzle[x][y] = prev;
-                if (prev == 0) {
-                    cells[x][y].setText("");
-                } else {
-                    cells[x][y].setText(String.valueOf(prev));
+    /**
+     * Copy the cells the history step changed from the controller's board, then save.
+     */
+    private void afterHistoryMove() {
+        BoardView current = controller.getBoard();
+        int remaining = 0;
+        for (int i = 0; i < 9; i++) {
+            for (int j = 0; j < 9; j++) {
+                int value = current.get(i, j);
+                if (puzzle[i][j] != value) {
+                    puzzle[i][j] = value;
+                    board.setValue(i, j, value);
                 }
-                boolean isCorrect = (prev != 0 && prev == solution[x][y]);
-                cells[x][y].setForeground(isCorrect ? new Color(0, 100, 0) : Color.RED);
-            }
-
-            int remaining = 0;
-            for (int i = 0; i < 9; i++) {
-                for (int j = 0; j < 9; j++) {
-                    if (puzzle[i][j] == 0) {
-                        remaining++;
-                    }
+                if (value == 0) {
+                    remaining++;
                 }
             }
-            solveButton.setEnabled(remaining == 5);
-            undoButton.setEnabled(hasUndoEntries());
+        }
+        solveButton.setEnabled(remaining == 5);
+        updateHistoryButtons();
 
+        try {
             controller.setFaults(faults);
             controller.saveGame();
-        } catch (Exception e) {
+        } catch (IOException e) {
             JOptionPane.showMessageDialog(this,
-                "Error undoing move: " + e.getMessage(),
+                "Error saving game: " + e.getMessage(),
                 "Error",
                 JOptionPane.ERROR_MESSAGE);
         }
@@ -0,0 +1,209 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless line-oriented TCP server exposing the Controllable operations.
+ * Every connection gets its own Controller session and runs on its own virtual thread.
+ *
+ * Protocol: one command per line, one reply per line ("OK ..." or "ERR ...").
+ * Boards are sent as 81 digits, row by row, 0 for an empty cell.
+ *
+ *   PING                   -> OK PONG
+ *   NEW E|M|H              -> OK board
+ *   BOARD                  -> OK board
+ *   VERIFY [board]         -> OK state mask      (mask: 1 = cell is consistent)
+ *   STATE [board]          -> OK VALID|INVALID|INCOMPLETE
+ *   SOLVE [board]          -> OK board
+ *   MOVE row col value     -> OK ACCEPTED|REJECTED faults
+ *   UNDO                   -> OK UNDONE|EMPTY
+ *   REDO                   -> OK REDONE|EMPTY
+ *   HINT                   -> OK row col value technique | OK NONE
+ *   SAVE / LOAD            -> OK                 (this connection's own save slot)
+ *   QUIT                   -> OK BYE
+ */
+public class SudokuServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 7070;
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong connections = new AtomicLong();
+    private volatile boolean running = true;
+
+    public SudokuServer(int port) throws IOException {
+        this.serverSocket = new ServerSocket();
+        this.serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getConnectionCount() {
+        return connections.get();
+    }
+
+    /**
+     * Accept connections until closed. Blocks the calling thread.
+     */
+    public void serve() throws IOException {
+        while (running) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (!running) {
+                    return;
+                }
+                throw e;
+            }
+            long connection = connections.incrementAndGet();
+            executor.submit(() -> handle(socket, connection));
+        }
+    }
+
+    private void handle(Socket socket, long connection) {
+        // Each connection saves under its own directory, removed when it disconnects; the
+        // archives and puzzle index it generates into are thread-safe, so nothing is locked
+        Controller session = new Controller("server-" + ProcessHandle.current().pid() + "-" + connection);
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII))) {
+            socket.setTcpNoDelay(true);
+            String line;
+            while ((line = in.readLine()) != null) {
+                requests.incrementAndGet();
+                String reply;
+                try {
+                    reply = dispatch(session, line.trim());
+                } catch (Exception e) {
+                    reply = "ERR " + String.valueOf(e.getMessage()).replace('\n', ' ');
+                }
+                out.write(reply);
+                out.write('\n');
+                out.flush();
+                if (reply.equals("OK BYE")) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // Client went away; only its save slot is left to clean up.
+        } finally {
+            try {
+                session.discardSessionFiles();
+            } catch (IOException e) {
+                // A stale slot is harmless: its name is never reused by this process.
+            }
+        }
+    }
+
+    static String dispatch(Controllable session, String line) throws Exception {
+        if (line.isEmpty()) {
+            return "ERR empty command";
+        }
+        String[] parts = line.split("\\s+");
+        String command = parts[0].toUpperCase();
+        switch (command) {
+            case "PING":
+                return "OK PONG";
+            case "NEW": {
+                if (parts.length < 2) {
+                    return "ERR usage: NEW E|M|H";
+                }
+                int[][] game = session.getGame(parts[1].charAt(0));
+                return "OK " + BoardCodec.toLine(game);
+            }
+            case "BOARD": {
+                BoardView game = session.getBoard();
+                return game == null ? "ERR no game" : "OK " + BoardCodec.toLine(game);
+            }
+            case "VERIFY": {
+                int[][] board = boardArgument(session, parts);
+                boolean[][] mask = session.verifyGame(board);
+                return "OK " + session.verifyState(board) + " " + BoardCodec.toLine(mask);
+            }
+            case "STATE":
+                return "OK " + session.verifyState(boardArgument(session, parts));
+            case "SOLVE": {
+                int[][] board = boardArgument(session, parts);
+                return "OK " + BoardCodec.toLine(session.solveGame(board));
+            }
+            case "MOVE": {
+                if (parts.length < 4) {
+                    return "ERR usage: MOVE row col value";
+                }
+                if (session.getBoard() == null) {
+                    return "ERR no game";
+                }
+                int row = Integer.parseInt(parts[1]);
+                int col = Integer.parseInt(parts[2]);
+                int value = Integer.parseInt(parts[3]);
+                if (row < 0 || row > 8 || col < 0 || col > 8 || value < 0 || value > 9) {
+                    return "ERR out of range";
+                }
+                boolean accepted = session.setCellValue(row, col, value);
+                return "OK " + (accepted ? "ACCEPTED " : "REJECTED ") + session.getFaults();
+            }
+            case "UNDO":
+                return session.undoLastMove() ? "OK UNDONE" : "OK EMPTY";
+            case "REDO":
+                return session.redoMove() ? "OK REDONE" : "OK EMPTY";
+            case "HINT": {
+                Hint hint = session.getHint();
+                return hint == null ? "OK NONE"
+                    : "OK " + hint.getRow() + " " + hint.getCol() + " " + hint.getValue() + " " + hint.getTechnique();
+            }
+            case "SAVE":
+                session.saveGame();
+                return "OK";
+            case "LOAD":
+                session.loadGame();
+                return "OK";
+            case "QUIT":
+                return "OK BYE";
+            default:
+                return "ERR unknown command: " + command;
+        }
+    }
+
+    private static int[][] boardArgument(Controllable session, String[] parts) {
+        if (parts.length > 1) {
+            return BoardCodec.fromLine(parts[1]);
+        }
+        BoardView game = session.getBoard();
+        if (game == null) {
+            throw new IllegalStateException("no game");
+        }
+        return game.toArray();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        try (SudokuServer server = new SudokuServer(port)) {
+            System.out.println("Sudoku server listening on 127.0.0.1:" + server.getPort());
+            server.serve();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * Incremental uniqueness test for digging holes into a solved grid.
+ *
+ * If a puzzle has a unique solution S, removing the given at cell c keeps it unique exactly
+ * when no solution exists with c set to something other than S[c]. So instead of copying the
+ * grid and counting solutions up to 2, tryDig runs one search with that single value forbidden.
+ * Row/column/box masks and the empty-cell list are kept across digs, and undoDig puts a
+ * value back in O(1).
+ */
+public class UniquenessChecker {
+    private static final int ALL_DIGITS = 0x3FE; // bits 1..9
+    private static final int[] BOX = new int[81];
+
+    static {
+        for (int i = 0; i < 81; i++) {
+            BOX[i] = (i / 27) * 3 + (i % 9) / 3;
+        }
+    }
+
+    private final int[] cells = new int[81];
+    private final int[] rows = new int[9];
+    private final int[] cols = new int[9];
+    private final int[] boxes = new int[9];
+    private final int[] empty = new int[81];
+    private final int[] emptyIndex = new int[81];
+    private int emptyCount;
+    private final int[] order = new int[81];
+
+    /**
+     * Start from a grid that has exactly one solution (normally the full solution itself).
+     */
+    public UniquenessChecker(int[][] grid) {
+        java.util.Arrays.fill(emptyIndex, -1);
+        for (int i = 0; i < 81; i++) {
+            int v = grid[i / 9][i % 9];
+            if (v == 0) {
+                addEmpty(i);
+                continue;
+            }
+            int bit = 1 << v;
+            if (((rows[i / 9] | cols[i % 9] | boxes[BOX[i]]) & bit) != 0) {
+                throw new IllegalArgumentException("Grid is invalid at " + (i / 9) + "," + (i % 9));
+            }
+            set(i, v);
+        }
+    }
+
+    public int getValue(int cell) {
+        return cells[cell];
+    }
+
+    public int getEmptyCount() {
+        return emptyCount;
+    }
+
+    /**
+     * Remove the given at cell if the puzzle stays unique. Returns false (and leaves the
+     * value in place) if the cell is already empty or removing it allows another solution.
+     */
+    public boolean tryDig(int cell) {
+        int v = cells[cell];
+        if (v == 0) {
+            return false;
+        }
+        clear(cell);
+        addEmpty(cell);
+        System.arraycopy(empty, 0, order, 0, emptyCount);
+        if (search(emptyCount, cell, 1 << v)) {
+            removeEmpty(cell);
+            set(cell, v);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Put a dug value back. The caller passes the value tryDig removed.
+     */
+    public void undoDig(int cell, int value) {
+        if (cells[cell] != 0) {
+            throw new IllegalStateException("Cell " + cell + " is not empty");
+        }
+        removeEmpty(cell);
+        set(cell, value);
+    }
+
+    public void copyTo(int[][] grid) {
+        for (int i = 0; i < 81; i++) {
+            grid[i / 9][i % 9] = cells[i];
+        }
+    }
+
+    /**
+     * True if some completion exists with forbiddenCell != forbiddenBit's digit.
+     * Uses the shared masks and restores them before returning.
+     */
+    private boolean search(int n, int forbiddenCell, int forbiddenBit) {
+        if (n == 0) {
+            return true;
+        }
+        Metrics.nodeVisited();
+
+        int best = -1;
+        int bestMask = 0;
+        int bestCount = 10;
+        for (int i = 0; i < n; i++) {
+            int cell = order[i];
+            int mask = ALL_DIGITS & ~(rows[cell / 9] | cols[cell % 9] | boxes[BOX[cell]]);
+            if (cell == forbiddenCell) {
+                mask &= ~forbiddenBit;
+            }
+            int count = Integer.bitCount(mask);
+            if (count < bestCount) {
+                best = i;
+                bestMask = mask;
+                bestCount = count;
+                if (count <= 1) {
+                    break;
+                }
+            }
+        }
+        if (bestCount == 0) {
+            return false;
+        }
+
+        int cell = order[best];
+        order[best] = order[n - 1];
+        order[n - 1] = cell;
+        int r = cell / 9;
+        int c = cell % 9;
+        int b = BOX[cell];
+
+        boolean found = false;
+        int mask = bestMask;
+        while (mask != 0 && !found) {
+            int bit = mask & -mask;
+            mask ^= bit;
+            rows[r] |= bit;
+            cols[c] |= bit;
+            boxes[b] |= bit;
+            found = search(n - 1, forbiddenCell, forbiddenBit);
+            rows[r] &= ~bit;
+            cols[c] &= ~bit;
+            boxes[b] &= ~bit;
+        }
+        order[n - 1] = order[best];
+        order[best] = cell;
+        return found;
+    }
+
+    private void set(int cell, int v) {
+        int bit = 1 << v;
+        cells[cell] = v;
+        rows[cell / 9] |= bit;
+        cols[cell % 9] |= bit;
+        boxes[BOX[cell]] |= bit;
+    }
+
+    private void clear(int cell) {
+        int bit = 1 << cells[cell];
+        cells[cell] = 0;
+        rows[cell / 9] &= ~bit;
+        cols[cell % 9] &= ~bit;
+        boxes[BOX[cell]] &= ~bit;
+    }
+
+    private void addEmpty(int cell) {
+        emptyIndex[cell] = emptyCount;
+        empty[emptyCount++] = cell;
+    }
+
+    private void removeEmpty(int cell) {
+        int idx = emptyIndex[cell];
+        int last = empty[--emptyCount];
+        empty[idx] = last;
+        emptyIndex[last] = idx;
+        emptyIndex[cell] = -1;
+    }
+}
@@ -5,13 +5,22 @@ public class UserAction {
     private int col;
     private int value;
     private long timestamp;
+    private long session;
     
     public UserAction(String actionType, int row, int col, int value) {
+        this(actionType, row, col, value, System.currentTimeMillis(), 0);
+    }
+
+    /**
+     * An action read back from the log; session is 0 for lines written without one.
+     */
+    public UserAction(String actionType, int row, int col, int value, long timestamp, long session) {
         this.actionType = actionType;
         this.row = row;
         this.col = col;
         this.value = value;
-        this.timestamp = System.currentTimeMillis();
+        this.timestamp = timestamp;
+        this.session = session;
     }
     
     
@@ -20,6 +29,7 @@ public class UserAction {
     public int getCol() { return col; }
     public int getValue() { return value; }
     public long getTimestamp() { return timestamp; }
+    public long getSession() { return session; }
     
     @Override
     public String toString() {
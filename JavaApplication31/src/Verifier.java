@@ -2,15 +2,16 @@ public class Verifier {
     
     
     public String verify(int[][] board) {
+        int side = board.length;
         boolean hasZero = false;
-        for (int r = 0; r < 9; r++) {
-            for (int c = 0; c < 9; c++) {
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
                 int v = board[r][c];
                 if (v == 0) {
                     hasZero = true;
                     continue;
                 }
-                if (v < 1 || v > 9 || !isValidPlacement(board, r, c, v)) {
+                if (v < 1 || v > side || !isValidPlacement(board, r, c, v)) {
                     return "invalid " + r + "," + c;
                 }
             }
@@ -18,31 +19,48 @@ public class Verifier {
         return hasZero ? "incomplete" : "valid";
     }
 
+    /**
+     * State of a 9x9, 16x16 or 25x25 board: one pass over every row, column and box
+     * with a long bitset of the digits seen so far.
+     */
     public GameState verifyState(int[][] board) {
+        BoardGeometry geometry = BoardGeometry.of(board);
+        int side = geometry.getSide();
         boolean hasZero = false;
 
-        for (int r = 0; r < 9; r++) {
-            boolean[] seen = new boolean[10];
-            for (int c = 0; c < 9; c++) {
-                int v = board[r][c];
+        for (int u = 0; u < geometry.getUnitCount(); u++) {
+            long seen = 0;
+            for (int cell : geometry.unit(u)) {
+                int v = board[geometry.rowOf(cell)][geometry.colOf(cell)];
                 if (v == 0) {
                     hasZero = true;
                     continue;
                 }
-                if (v < 1 || v > 9) {
+                if (v < 1 || v > side) {
                     return GameState.INVALID;
                 }
-                if (seen[v]) {
+                long bit = 1L << (v - 1);
+                if ((seen & bit) != 0) {
                     return GameState.INVALID;
                 }
-                seen[v] = true;
+                seen |= bit;
             }
         }
 
-        for (int c = 0; c < 9; c++) {
-            boolean[] seen = new boolean[10];
-            for (int r = 0; r < 9; r++) {
-                int v = board[r][c];
+        return hasZero ? GameState.INCOMPLETE : GameState.VALID;
+    }
+
+    /**
+     * verifyState for a 9x9 view, read in place (a PuzzleCorpus record needs no int[][] copy).
+     */
+    public GameState verifyState(BoardView board) {
+        BoardGeometry geometry = BoardGeometry.STANDARD;
+        boolean hasZero = false;
+
+        for (int u = 0; u < geometry.getUnitCount(); u++) {
+            int seen = 0;
+            for (int cell : geometry.unit(u)) {
+                int v = board.get(geometry.rowOf(cell), geometry.colOf(cell));
                 if (v == 0) {
                     hasZero = true;
                     continue;
@@ -50,32 +68,11 @@ public class Verifier {
                 if (v < 1 || v > 9) {
                     return GameState.INVALID;
                 }
-                if (seen[v]) {
+                int bit = 1 << v;
+                if ((seen & bit) != 0) {
                     return GameState.INVALID;
                 }
-                seen[v] = true;
-            }
-        }
-
-        for (int br = 0; br < 3; br++) {
-            for (int bc = 0; bc < 3; bc++) {
-                boolean[] seen = new boolean[10];
-                for (int r = br * 3; r < br * 3 + 3; r++) {
-                    for (int c = bc * 3; c < bc * 3 + 3; c++) {
-                        int v = board[r][c];
-                        if (v == 0) {
-                            hasZero = true;
-                            continue;
-                        }
-                        if (v < 1 || v > 9) {
-                            return GameState.INVALID;
-                        }
-                        if (seen[v]) {
-                            return GameState.INVALID;
-                        }
-                        seen[v] = true;
-                    }
-                }
+                seen |= bit;
             }
         }
 
@@ -94,14 +91,16 @@ public class Verifier {
     }
 
     private boolean isPossibleVirtual(int[][] board, java.util.List<int[]> cells, int[] combo, int r, int c, int val) {
-        for (int i = 0; i < 9; i++) {
+        int side = board.length;
+        int box = BoardGeometry.forSide(side).getBox();
+        for (int i = 0; i < side; i++) {
             if (i != c && getVirtualVal(board, cells, combo, r, i) == val) return false;
             if (i != r && getVirtualVal(board, cells, combo, i, c) == val) return false;
         }
-        int subgridRow = r - r % 3;
-        int subgridCol = c - c % 3;
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
+        int subgridRow = r - r % box;
+        int subgridCol = c - c % box;
+        for (int i = 0; i < box; i++) {
+            for (int j = 0; j < box; j++) {
                 if ((subgridRow + i != r || subgridCol + j != c) && getVirtualVal(board, cells, combo, subgridRow + i, subgridCol + j) == val) {
                     return false;
                 }
@@ -118,14 +117,16 @@ public class Verifier {
     }
 
     private boolean isValidPlacement(int[][] board, int row, int col, int val) {
-        for (int i = 0; i < 9; i++) {
+        int side = board.length;
+        int box = BoardGeometry.forSide(side).getBox();
+        for (int i = 0; i < side; i++) {
             if (i != col && board[row][i] == val) return false;
             if (i != row && board[i][col] == val) return false;
         }
-        int subgridRow = row - row % 3;
-        int subgridCol = col - col % 3;
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
+        int subgridRow = row - row % box;
+        int subgridCol = col - col % box;
+        for (int i = 0; i < box; i++) {
+            for (int j = 0; j < box; j++) {
                 if ((subgridRow + i != row || subgridCol + j != col) && board[subgridRow + i][subgridCol + j] == val) {
                     return false;
                 }